@@ -4,15 +4,31 @@ import lombok.experimental.UtilityClass;
 
 @UtilityClass
 public class Consts {
+    public static final String MEMORY_DB = "memoryDB";
+    public static final String REPOSITORIES = "repositories";
+    public static final String WRITE_AHEAD_LOG = "writeAheadLog";
+    public static final String SNAPSHOTTER = "snapshotter";
+    public static final String SNAPSHOT_WARMUP = "snapshotWarmup";
+    public static final String CHANGE_FEED = "changeFeed";
     public static final String PROPERTY_SERVICE = "propertyService";
     public static final String STUDENT_SERVICE = "studentService";
     public static final String TEACHER_SERVICE = "teacherService";
     public static final String GROUP_SERVICE = "groupService";
     public static final String TIMETABLE_SERVICE = "timetableService";
     public static final String JSON_SERVICE = "jsonService";
+    public static final String ASYNC_REQUEST_EXECUTOR = "asyncRequestExecutor";
 
     public static final String NAME = "name";
     public static final String SURNAME = "surname";
+    public static final String SUBJECT = "subject";
+    public static final String VIEW = "view";
+    public static final String IDS = "ids";
+    public static final String SINCE = "since";
+    public static final String WAIT = "wait";
+
+    public static final String ETAG = "ETag";
+    public static final String IF_MATCH = "If-Match";
+    public static final String RETRY_AFTER = "Retry-After";
 
     public static final String DATE_TIME = "yyyy-MM-dd HH:mm";
 }
@@ -0,0 +1,7 @@
+package com.khokhlov.universityserver.exception;
+
+public class RepositoryException extends RuntimeException {
+    public RepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.khokhlov.universityserver.exception;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
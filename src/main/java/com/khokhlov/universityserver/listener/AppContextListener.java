@@ -7,13 +7,27 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.khokhlov.universityserver.datetimeformatter.CustomLocalDateTimeSerializer;
+import com.khokhlov.universityserver.model.data.BlockIdAllocator;
 import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.TimetableStorage;
+import com.khokhlov.universityserver.persistence.MappedSnapshot;
+import com.khokhlov.universityserver.persistence.SnapshotFile;
+import com.khokhlov.universityserver.persistence.SnapshotWarmup;
+import com.khokhlov.universityserver.persistence.Snapshotter;
+import com.khokhlov.universityserver.persistence.WriteAheadLog;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.repository.Repositories;
+import com.khokhlov.universityserver.repository.RepositoryBackend;
+import com.khokhlov.universityserver.repository.jdbc.JdbcRepositories;
+import com.khokhlov.universityserver.repository.memory.MemoryRepositories;
 import com.khokhlov.universityserver.service.*;
+import com.khokhlov.universityserver.servlet.AsyncRequestExecutor;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -25,7 +39,22 @@ public class AppContextListener implements ServletContextListener {
     public void contextInitialized(ServletContextEvent sce) {
         ServletContext ctx = sce.getServletContext();
 
-        MemoryDB memoryDB = new MemoryDB();
+        PropertyService propertyService = new PropertyService();
+        ChangeFeed changeFeed = new ChangeFeed(Integer.parseInt(propertyService.getProperty("changes.retention", "10000")));
+        Repositories repositories;
+        if (RepositoryBackend.fromProperty(propertyService.getProperty("repository.backend", "memory")) == RepositoryBackend.JDBC) {
+            repositories = new JdbcRepositories(propertyService.getProperty("jdbc.url", "jdbc:h2:./data/university"),
+                    Integer.parseInt(propertyService.getProperty("jdbc.pool.size", "4")));
+            repositories.setChangeFeed(changeFeed);
+        } else {
+            MemoryDB memoryDB = new MemoryDB(TimetableStorage.fromProperty(propertyService.getProperty("timetable.storage", "object")));
+            repositories = new MemoryRepositories(memoryDB);
+            Repositories memoryRepositories = repositories;
+            ctx.setAttribute(MEMORY_DB, memoryDB);
+            restoreMemoryDB(ctx, propertyService, memoryDB, () -> memoryRepositories.setChangeFeed(changeFeed));
+        }
+        ctx.setAttribute(REPOSITORIES, repositories);
+        ctx.setAttribute(CHANGE_FEED, changeFeed);
 
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -41,11 +70,10 @@ public class AppContextListener implements ServletContextListener {
 
         MappingService mappingService = new MappingService();
 
-        PropertyService propertyService = new PropertyService();
-        StudentService studentService = new StudentService(memoryDB, mappingService);
-        TeacherService teacherService = new TeacherService(memoryDB, mappingService);
-        GroupService groupService = new GroupService(memoryDB, mappingService, studentService, propertyService);
-        TimetableService timetableService = new TimetableService(memoryDB, mappingService, propertyService);
+        StudentService studentService = new StudentService(repositories, mappingService);
+        TeacherService teacherService = new TeacherService(repositories, mappingService);
+        GroupService groupService = new GroupService(repositories, mappingService, studentService, propertyService);
+        TimetableService timetableService = new TimetableService(repositories, mappingService, propertyService);
         JsonService jsonService = new JsonService(objectMapper);
 
         ctx.setAttribute(PROPERTY_SERVICE, propertyService);
@@ -55,6 +83,80 @@ public class AppContextListener implements ServletContextListener {
         ctx.setAttribute(TIMETABLE_SERVICE, timetableService);
         ctx.setAttribute(JSON_SERVICE, jsonService);
 
+        if (Boolean.parseBoolean(propertyService.getProperty("servlet.async", "false"))) {
+            ctx.setAttribute(ASYNC_REQUEST_EXECUTOR, new AsyncRequestExecutor(
+                    Integer.parseInt(propertyService.getProperty("async.max.in.flight", "256")),
+                    Integer.parseInt(propertyService.getProperty("async.queue.limit", "1024")),
+                    Long.parseLong(propertyService.getProperty("async.timeout.ms", "30000"))));
+        }
+
         ServletContextListener.super.contextInitialized(sce);
     }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (sce.getServletContext().getAttribute(ASYNC_REQUEST_EXECUTOR) instanceof AsyncRequestExecutor executor) {
+            executor.close();
+        }
+        if (sce.getServletContext().getAttribute(MEMORY_DB) instanceof MemoryDB memoryDB) {
+            memoryDB.stopWritePipeline();
+        }
+        if (sce.getServletContext().getAttribute(SNAPSHOT_WARMUP) instanceof SnapshotWarmup snapshotWarmup) {
+            snapshotWarmup.close();
+        }
+        if (sce.getServletContext().getAttribute(SNAPSHOTTER) instanceof Snapshotter snapshotter) {
+            snapshotter.close();
+        }
+        if (sce.getServletContext().getAttribute(WRITE_AHEAD_LOG) instanceof WriteAheadLog writeAheadLog) {
+            writeAheadLog.close();
+        }
+        if (sce.getServletContext().getAttribute(REPOSITORIES) instanceof Repositories repositories) {
+            repositories.close();
+        }
+        ServletContextListener.super.contextDestroyed(sce);
+    }
+
+    /**
+     * Restores {@code memoryDB} from its log and snapshot, if configured, and
+     * runs {@code onReady} once restored data is in place, so that only
+     * changes made after startup reach the change feed.
+     */
+    private void restoreMemoryDB(ServletContext ctx, PropertyService propertyService, MemoryDB memoryDB, Runnable onReady) {
+        String walFile = propertyService.getProperty("wal.file", "");
+        if (!walFile.isEmpty()) {
+            WriteAheadLog writeAheadLog = new WriteAheadLog(Path.of(walFile),
+                    Long.parseLong(propertyService.getProperty("wal.group.commit.micros", "1000")));
+            ctx.setAttribute(WRITE_AHEAD_LOG, writeAheadLog);
+            String snapshotPath = propertyService.getProperty("snapshot.file", "");
+            SnapshotFile snapshotFile = snapshotPath.isEmpty() ? null : new SnapshotFile(Path.of(snapshotPath));
+            MappedSnapshot snapshot = snapshotFile == null ? null : snapshotFile.map();
+            Runnable startSnapshots = () -> {
+                onReady.run();
+                if (snapshotFile != null) {
+                    ctx.setAttribute(SNAPSHOTTER, new Snapshotter(memoryDB, writeAheadLog, snapshotFile,
+                            Long.parseLong(propertyService.getProperty("snapshot.interval.seconds", "300"))));
+                }
+            };
+            if (snapshot == null) {
+                writeAheadLog.replay(memoryDB);
+                writeAheadLog.attach(memoryDB);
+                startSnapshots.run();
+            } else {
+                SnapshotWarmup snapshotWarmup = new SnapshotWarmup(memoryDB, snapshot, writeAheadLog);
+                ctx.setAttribute(SNAPSHOT_WARMUP, snapshotWarmup);
+                snapshotWarmup.start(startSnapshots);
+            }
+        } else {
+            onReady.run();
+        }
+        String idDirectory = propertyService.getProperty("id.directory", "");
+        if (!idDirectory.isEmpty()) {
+            int blockSize = Integer.parseInt(propertyService.getProperty("id.block.size", String.valueOf(BlockIdAllocator.DEFAULT_BLOCK_SIZE)));
+            memoryDB.persistIdMarks(Path.of(idDirectory), blockSize);
+        }
+        if (Boolean.parseBoolean(propertyService.getProperty("write.pipeline", "false"))) {
+            memoryDB.startWritePipeline(Integer.parseInt(propertyService.getProperty("write.pipeline.capacity", "1024")),
+                    Integer.parseInt(propertyService.getProperty("write.pipeline.batch.size", "128")));
+        }
+    }
 }
\ No newline at end of file
@@ -1,17 +1,55 @@
 package com.khokhlov.universityserver.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.LongStream;
 
 @Data
-@AllArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-public class Group {
+public class Group implements Versioned {
     private long id;
     @EqualsAndHashCode.Include
     private long number;
-    private List<Student> students;
-}
\ No newline at end of file
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long[] studentIds;
+    private long version;
+
+    public Group(long id, long number, long[] studentIds) {
+        this.id = id;
+        this.number = number;
+        this.studentIds = studentIds == null ? new long[0] : LongStream.of(studentIds).sorted().distinct().toArray();
+    }
+
+    public Group(long id, long number, Collection<Student> students) {
+        this(id, number, students == null ? null : students.stream().mapToLong(Student::getId).toArray());
+    }
+
+    public long[] getStudentIds() {
+        return studentIds.clone();
+    }
+
+    @JsonIgnore
+    public int getStudentCount() {
+        return studentIds.length;
+    }
+
+    public boolean containsStudent(long studentId) {
+        return Arrays.binarySearch(studentIds, studentId) >= 0;
+    }
+
+    public LongStream studentIdStream() {
+        return Arrays.stream(studentIds);
+    }
+
+    public Group withStudents(long... newStudentIds) {
+        return new Group(id, number, LongStream.concat(Arrays.stream(studentIds), Arrays.stream(newStudentIds)).toArray());
+    }
+}
@@ -6,12 +6,13 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 @Data
-public class Student {
+public class Student implements Versioned {
     private long id;
     private String name;
     private String surname;
     private LocalDate birthDate;
     private String phoneNumber;
+    private long version;
 
     public Student(long id, String name, String surname, LocalDate birthDate, String phoneNumber) {
         this.id = id;
@@ -4,6 +4,11 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 @RequiredArgsConstructor
 public enum Subject {
     MATH("Math"),
@@ -14,8 +19,9 @@ public enum Subject {
     CHEMISTRY("Chemistry"),
     HISTORY("History");
 
-    private final String value;
+    private static final List<List<Subject>> BY_MASK = subjectListsByMask();
 
+    private final String value;
 
     @JsonValue
     @Override
@@ -32,4 +38,37 @@ public enum Subject {
         }
         throw new IllegalArgumentException("Unknown value: " + value);
     }
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public static int toMask(Collection<Subject> subjects) {
+        int mask = 0;
+        if (subjects != null) {
+            for (Subject subject : subjects) {
+                mask |= subject.mask();
+            }
+        }
+        return mask;
+    }
+
+    public static List<Subject> fromMask(int mask) {
+        return BY_MASK.get(mask);
+    }
+
+    private static List<List<Subject>> subjectListsByMask() {
+        Subject[] subjects = values();
+        List<List<Subject>> lists = new ArrayList<>(1 << subjects.length);
+        for (int mask = 0; mask < 1 << subjects.length; mask++) {
+            List<Subject> list = new ArrayList<>();
+            for (Subject subject : subjects) {
+                if ((mask & subject.mask()) != 0) {
+                    list.add(subject);
+                }
+            }
+            lists.add(Collections.unmodifiableList(list));
+        }
+        return Collections.unmodifiableList(lists);
+    }
 }
@@ -1,24 +1,54 @@
 package com.khokhlov.universityserver.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
 import java.util.Objects;
 
 @Data
-public class Teacher {
+public class Teacher implements Versioned {
     private long id;
     private String name;
     private String surname;
     private Long experience;
-    private List<Subject> subjects;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int subjectMask;
+    private long version;
 
     public Teacher(long id, String name, String surname, Long experience, List<Subject> subjects) {
         this.id = id;
         this.name = name;
         this.surname = surname;
         this.experience = experience;
-        this.subjects = subjects;
+        this.subjectMask = Subject.toMask(subjects);
+    }
+
+    public List<Subject> getSubjects() {
+        return Subject.fromMask(subjectMask);
+    }
+
+    public void setSubjects(List<Subject> subjects) {
+        this.subjectMask = Subject.toMask(subjects);
+    }
+
+    @JsonIgnore
+    public int getSubjectMask() {
+        return subjectMask;
+    }
+
+    public boolean hasSubject(Subject subject) {
+        return (subjectMask & subject.mask()) != 0;
+    }
+
+    public Teacher withSubject(Subject subject) {
+        Teacher teacher = new Teacher(id, name, surname, experience, null);
+        teacher.subjectMask = subjectMask | subject.mask();
+        return teacher;
     }
 
     @Override
@@ -26,11 +56,11 @@ public class Teacher {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Teacher teacher = (Teacher) o;
-        return Objects.equals(name, teacher.name) && Objects.equals(surname, teacher.surname) && Objects.equals(experience, teacher.experience) && Objects.equals(subjects, teacher.subjects);
+        return Objects.equals(name, teacher.name) && Objects.equals(surname, teacher.surname) && Objects.equals(experience, teacher.experience) && subjectMask == teacher.subjectMask;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, surname, experience, subjects);
+        return Objects.hash(name, surname, experience, subjectMask);
     }
-}
\ No newline at end of file
+}
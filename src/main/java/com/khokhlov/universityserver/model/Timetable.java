@@ -7,12 +7,13 @@ import java.util.Objects;
 
 
 @Data
-public class Timetable {
+public class Timetable implements Versioned {
     private long id;
     private long groupId;
     private long teacherId;
     private LocalDateTime startDateTime;
     private LocalDateTime endDateTime;
+    private long version;
 
     public Timetable(long id, long groupId, long teacherId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
         this.id = id;
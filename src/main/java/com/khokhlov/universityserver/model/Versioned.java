@@ -0,0 +1,10 @@
+package com.khokhlov.universityserver.model;
+
+/**
+ * Entity carrying a version that the storage layer bumps on every write.
+ */
+public interface Versioned {
+    long getVersion();
+
+    void setVersion(long version);
+}
@@ -0,0 +1,133 @@
+package com.khokhlov.universityserver.model.data;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link IdAllocator} that leases ids in blocks from a shared high-water
+ * mark. Callers are spread over stripes by thread id, and each stripe
+ * hands out its current block on its own, so the shared mark is only
+ * touched once per block. With a mark file the new mark is written before
+ * a block is used, and a restarted allocator continues above it; ids left
+ * in unused blocks are skipped, never reused. A mark file that cannot be
+ * read counts as no mark, leaving the first id to the caller.
+ */
+@Slf4j
+public class BlockIdAllocator implements IdAllocator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final int blockSize;
+    private final Path markFile;
+    private final Stripe[] stripes;
+    private final ReentrantLock leaseLock = new ReentrantLock();
+    private volatile long highWaterMark;
+
+    public BlockIdAllocator(long firstId) {
+        this(firstId, DEFAULT_BLOCK_SIZE, null);
+    }
+
+    public BlockIdAllocator(long firstId, int blockSize, Path markFile) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.markFile = markFile;
+        this.highWaterMark = Math.max(firstId, readMark(markFile));
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1) << 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public long nextId() {
+        Stripe stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            if (stripe.next == stripe.end) {
+                stripe.next = lease();
+                stripe.end = stripe.next + blockSize;
+            }
+            return stripe.next++;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    private long lease() {
+        leaseLock.lock();
+        try {
+            long start = highWaterMark;
+            long mark = start + blockSize;
+            writeMark(mark);
+            highWaterMark = mark;
+            return start;
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    private static long readMark(Path markFile) {
+        if (markFile == null || !Files.exists(markFile)) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(Files.readString(markFile, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Ignoring unreadable id mark {}: {}", markFile, e.getMessage());
+            return 0L;
+        }
+    }
+
+    private void writeMark(long mark) {
+        if (markFile == null) {
+            return;
+        }
+        try {
+            Path tmp = markFile.resolveSibling(markFile.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = ByteBuffer.wrap(Long.toString(mark).getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, markFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(markFile.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing id mark to " + markFile, e);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory {} cannot be synced: {}", directory, e.getMessage());
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long end;
+    }
+}
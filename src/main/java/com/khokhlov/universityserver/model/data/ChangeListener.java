@@ -0,0 +1,13 @@
+package com.khokhlov.universityserver.model.data;
+
+/**
+ * Observes the committed row changes of an {@link IndexedTable}. Called
+ * inside the row's atomic update, so changes to one id arrive in commit
+ * order; implementations must be quick and must not write to the table.
+ */
+public interface ChangeListener<T> {
+
+    void onPut(long id, T row);
+
+    void onRemove(long id);
+}
@@ -0,0 +1,642 @@
+package com.khokhlov.universityserver.model.data;
+
+import com.khokhlov.universityserver.model.Timetable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Column-oriented {@link RowStore} for timetables. Each row is a slot in
+ * parallel primitive arrays (id, groupId, teacherId, start and end as epoch
+ * minutes, version), and {@link Timetable} objects are only built for the rows a read
+ * returns. Rows stay densely packed: a delete moves the last row into the
+ * hole, so scans never skip tombstones. Snapshots are frozen copies of the
+ * arrays, so row objects never stay on the heap.
+ * <p>
+ * The store also keeps what would otherwise take per-row index objects: the
+ * unique (group, teacher, start, end) key, as an open-addressing table of
+ * slots, and the minutes per group and per teacher and day, as primitive
+ * totals. Both change with the columns under the same lock, and a row's old
+ * contribution is read back from its columns instead of being kept.
+ */
+public class ColumnarTimetableStore implements RowStore<Timetable> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final StampedLock lock = new StampedLock();
+    private final SlotMap slotById = new SlotMap();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] groupIds = new long[INITIAL_CAPACITY];
+    private long[] teacherIds = new long[INITIAL_CAPACITY];
+    private int[] startMinutes = new int[INITIAL_CAPACITY];
+    private int[] endMinutes = new int[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private volatile int size;
+
+    private int[] slotByKey = SlotMap.filled(INITIAL_CAPACITY);
+    private int keyCount;
+    private final DailyMinutes groupMinutes = new DailyMinutes();
+    private final DailyMinutes teacherMinutes = new DailyMinutes();
+    private final Map<Long, List<Reservation>> reservationsById = new HashMap<>();
+
+    @Override
+    public Timetable get(long id) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slotById.get(id);
+            return slot < 0 ? null : materialize(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Timetable compute(long id, RemappingFunction<Timetable> function) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotById.get(id);
+            Timetable oldRow = slot < 0 ? null : materialize(slot);
+            Timetable newRow = function.apply(id, oldRow);
+            if (newRow == null) {
+                if (slot >= 0) {
+                    delete(slot);
+                }
+            } else if (newRow != oldRow) {
+                int start = toEpochMinute(newRow.getStartDateTime());
+                int end = toEpochMinute(newRow.getEndDateTime());
+                if (slot < 0) {
+                    slot = append(id);
+                } else {
+                    removeKey(slot);
+                    uncount(slot);
+                }
+                groupIds[slot] = newRow.getGroupId();
+                teacherIds[slot] = newRow.getTeacherId();
+                startMinutes[slot] = start;
+                endMinutes[slot] = end;
+                versions[slot] = newRow.getVersion();
+                addKey(slot);
+                count(id, slot);
+            }
+            return newRow;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void validate(Timetable row) {
+        toEpochMinute(row.getStartDateTime());
+        toEpochMinute(row.getEndDateTime());
+    }
+
+    /**
+     * Only called inside {@link #compute}, which already holds the lock.
+     */
+    @Override
+    public boolean conflicts(long id, Timetable row) {
+        int slot = findKey(row.getGroupId(), row.getTeacherId(),
+                toEpochMinute(row.getStartDateTime()), toEpochMinute(row.getEndDateTime()));
+        return slot >= 0 && ids[slot] != id;
+    }
+
+    public boolean containsKeyOf(Timetable row) {
+        validate(row);
+        long stamp = lock.readLock();
+        try {
+            return findKey(row.getGroupId(), row.getTeacherId(),
+                    toEpochMinute(row.getStartDateTime()), toEpochMinute(row.getEndDateTime())) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getGroupDailyMinutes(long groupId, LocalDate date) {
+        long stamp = lock.readLock();
+        try {
+            return groupMinutes.get(groupId, date.toEpochDay());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getTeacherDailyMinutes(long teacherId, LocalDate date) {
+        long stamp = lock.readLock();
+        try {
+            return teacherMinutes.get(teacherId, date.toEpochDay());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reserves the row's minutes against both the group's and the teacher's
+     * daily limit until {@code id} is written with it or the reservation is
+     * cancelled, like {@link SumIndex#reserve} does for each of them. The
+     * minutes the stored row {@code id} already counts on the same day are
+     * not counted twice.
+     */
+    public boolean reserveDailyMinutes(long id, Timetable row, long maxMinutesPerDay) {
+        Reservation reservation = reservationOf(row);
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotById.get(id);
+            long groupCredit = slot >= 0 && groupIds[slot] == reservation.groupId() && dayOf(slot) == reservation.day()
+                    ? minutesOf(slot) : 0L;
+            long teacherCredit = slot >= 0 && teacherIds[slot] == reservation.teacherId() && dayOf(slot) == reservation.day()
+                    ? minutesOf(slot) : 0L;
+            if (groupMinutes.get(reservation.groupId(), reservation.day()) - groupCredit + reservation.minutes() > maxMinutesPerDay
+                    || teacherMinutes.get(reservation.teacherId(), reservation.day()) - teacherCredit + reservation.minutes() > maxMinutesPerDay) {
+                return false;
+            }
+            add(reservation, reservation.minutes());
+            reservationsById.computeIfAbsent(id, key -> new ArrayList<>(1)).add(reservation);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void cancelDailyMinutes(long id, Timetable row) {
+        Reservation reservation = reservationOf(row);
+        long stamp = lock.writeLock();
+        try {
+            if (takeReservation(id, reservation)) {
+                add(reservation, -reservation.minutes());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean hasFrozenCopies() {
+        return true;
+    }
+
+    @Override
+    public ColumnarTimetableStore frozenCopy() {
+        long stamp = lock.readLock();
+        try {
+            // A copy only serves reads, so the key table and daily totals stay empty.
+            ColumnarTimetableStore copy = new ColumnarTimetableStore();
+            copy.ids = Arrays.copyOf(ids, size);
+            copy.groupIds = Arrays.copyOf(groupIds, size);
+            copy.teacherIds = Arrays.copyOf(teacherIds, size);
+            copy.startMinutes = Arrays.copyOf(startMinutes, size);
+            copy.endMinutes = Arrays.copyOf(endMinutes, size);
+            copy.versions = Arrays.copyOf(versions, size);
+            copy.slotById.copyFrom(slotById);
+            copy.size = size;
+            return copy;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void forEach(EntryConsumer<Timetable> consumer) {
+        select((groupId, teacherId, startMinute, endMinute) -> true)
+                .forEach(timetable -> consumer.accept(timetable.getId(), timetable));
+    }
+
+    @Override
+    public long maxKey(long defaultValue) {
+        long stamp = lock.readLock();
+        try {
+            long max = defaultValue;
+            for (int slot = 0; slot < size; slot++) {
+                max = slot == 0 ? ids[slot] : Math.max(max, ids[slot]);
+            }
+            return max;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<Timetable> select(ColumnPredicate predicate) {
+        long stamp = lock.readLock();
+        try {
+            List<Timetable> result = new ArrayList<>();
+            for (int slot = 0; slot < size; slot++) {
+                if (predicate.test(groupIds[slot], teacherIds[slot], startMinutes[slot], endMinutes[slot])) {
+                    result.add(materialize(slot));
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<Timetable> selectByGroupId(long groupId) {
+        return select((group, teacher, start, end) -> group == groupId);
+    }
+
+    public List<Timetable> selectByTeacherId(long teacherId) {
+        return select((group, teacher, start, end) -> teacher == teacherId);
+    }
+
+    public List<Timetable> selectByStart(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        long from = Math.floorDiv(fromInclusive.toEpochSecond(ZoneOffset.UTC), 60);
+        long to = Math.floorDiv(toExclusive.toEpochSecond(ZoneOffset.UTC), 60);
+        List<Timetable> result = select((group, teacher, start, end) -> start >= from && start < to);
+        result.sort(Comparator.comparing(Timetable::getStartDateTime).thenComparingLong(Timetable::getId));
+        return result;
+    }
+
+    static int toEpochMinute(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (seconds % 60 != 0 || dateTime.getNano() != 0) {
+            throw new IllegalArgumentException("Timetable times must be whole minutes: " + dateTime);
+        }
+        long minutes = Math.floorDiv(seconds, 60);
+        if (minutes < Integer.MIN_VALUE || minutes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Timetable time is out of range: " + dateTime);
+        }
+        return (int) minutes;
+    }
+
+    static LocalDateTime fromEpochMinute(int epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    private Reservation reservationOf(Timetable row) {
+        validate(row);
+        int start = toEpochMinute(row.getStartDateTime());
+        int end = toEpochMinute(row.getEndDateTime());
+        return new Reservation(row.getGroupId(), row.getTeacherId(), Math.floorDiv(start, MINUTES_PER_DAY), (long) end - start);
+    }
+
+    private long dayOf(int slot) {
+        return Math.floorDiv(startMinutes[slot], MINUTES_PER_DAY);
+    }
+
+    private long minutesOf(int slot) {
+        return (long) endMinutes[slot] - startMinutes[slot];
+    }
+
+    private void count(long id, int slot) {
+        Reservation contribution = new Reservation(groupIds[slot], teacherIds[slot], dayOf(slot), minutesOf(slot));
+        if (!takeReservation(id, contribution)) {
+            add(contribution, contribution.minutes());
+        }
+    }
+
+    private void uncount(int slot) {
+        groupMinutes.add(groupIds[slot], dayOf(slot), -minutesOf(slot));
+        teacherMinutes.add(teacherIds[slot], dayOf(slot), -minutesOf(slot));
+    }
+
+    private void add(Reservation reservation, long minutes) {
+        groupMinutes.add(reservation.groupId(), reservation.day(), minutes);
+        teacherMinutes.add(reservation.teacherId(), reservation.day(), minutes);
+    }
+
+    private boolean takeReservation(long id, Reservation reservation) {
+        List<Reservation> reservations = reservationsById.get(id);
+        if (reservations == null || !reservations.remove(reservation)) {
+            return false;
+        }
+        if (reservations.isEmpty()) {
+            reservationsById.remove(id);
+        }
+        return true;
+    }
+
+    private int findKey(long groupId, long teacherId, int start, int end) {
+        int mask = slotByKey.length - 1;
+        for (int i = keyIndex(groupId, teacherId, start, end, mask); slotByKey[i] >= 0; i = (i + 1) & mask) {
+            int slot = slotByKey[i];
+            if (groupIds[slot] == groupId && teacherIds[slot] == teacherId
+                    && startMinutes[slot] == start && endMinutes[slot] == end) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void addKey(int slot) {
+        if ((keyCount + 1) * 100 > slotByKey.length * 60) {
+            int[] old = slotByKey;
+            slotByKey = SlotMap.filled(old.length << 1);
+            keyCount = 0;
+            for (int oldSlot : old) {
+                if (oldSlot >= 0) {
+                    addKey(oldSlot);
+                }
+            }
+        }
+        int mask = slotByKey.length - 1;
+        int i = keyIndexOf(slot, mask);
+        while (slotByKey[i] >= 0) {
+            i = (i + 1) & mask;
+        }
+        slotByKey[i] = slot;
+        keyCount++;
+    }
+
+    /**
+     * Finds where the key table holds {@code slot}; the slot's columns
+     * must still hold the row it was added with.
+     */
+    private int keyPosition(int slot) {
+        int mask = slotByKey.length - 1;
+        int i = keyIndexOf(slot, mask);
+        while (slotByKey[i] != slot) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void removeKey(int slot) {
+        int mask = slotByKey.length - 1;
+        int hole = keyPosition(slot);
+        keyCount--;
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slotByKey[next] < 0) {
+                break;
+            }
+            int home = keyIndexOf(slotByKey[next], mask);
+            boolean movable = hole <= next
+                    ? home <= hole || home > next
+                    : home <= hole && home > next;
+            if (movable) {
+                slotByKey[hole] = slotByKey[next];
+                hole = next;
+            }
+        }
+        slotByKey[hole] = -1;
+    }
+
+    private int keyIndexOf(int slot, int mask) {
+        return keyIndex(groupIds[slot], teacherIds[slot], startMinutes[slot], endMinutes[slot], mask);
+    }
+
+    private static int keyIndex(long groupId, long teacherId, int start, int end, int mask) {
+        long h = groupId * 0x9E3779B97F4A7C15L;
+        h = (h ^ teacherId) * 0x9E3779B97F4A7C15L;
+        h = (h ^ ((long) start << 32 | (end & 0xFFFFFFFFL))) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private Timetable materialize(int slot) {
+        Timetable timetable = new Timetable(ids[slot],
+                groupIds[slot],
+                teacherIds[slot],
+                fromEpochMinute(startMinutes[slot]),
+                fromEpochMinute(endMinutes[slot]));
+        timetable.setVersion(versions[slot]);
+        return timetable;
+    }
+
+    private int append(long id) {
+        if (size == ids.length) {
+            int capacity = ids.length << 1;
+            ids = Arrays.copyOf(ids, capacity);
+            groupIds = Arrays.copyOf(groupIds, capacity);
+            teacherIds = Arrays.copyOf(teacherIds, capacity);
+            startMinutes = Arrays.copyOf(startMinutes, capacity);
+            endMinutes = Arrays.copyOf(endMinutes, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+        int slot = size;
+        ids[slot] = id;
+        slotById.put(id, slot);
+        size = slot + 1;
+        return slot;
+    }
+
+    private void delete(int slot) {
+        int last = size - 1;
+        removeKey(slot);
+        uncount(slot);
+        slotById.remove(ids[slot]);
+        if (slot != last) {
+            slotByKey[keyPosition(last)] = slot;
+            ids[slot] = ids[last];
+            groupIds[slot] = groupIds[last];
+            teacherIds[slot] = teacherIds[last];
+            startMinutes[slot] = startMinutes[last];
+            endMinutes[slot] = endMinutes[last];
+            versions[slot] = versions[last];
+            slotById.put(ids[slot], slot);
+        }
+        size = last;
+    }
+
+    @FunctionalInterface
+    public interface ColumnPredicate {
+        boolean test(long groupId, long teacherId, int startMinute, int endMinute);
+    }
+
+    private record Reservation(long groupId, long teacherId, long day, long minutes) {
+    }
+
+    /**
+     * Open-addressing (owner id, epoch day) to minutes map; a total that
+     * drops to zero is removed. Only used under the store's lock.
+     */
+    private static final class DailyMinutes {
+        private long[] owners = new long[INITIAL_CAPACITY];
+        private long[] days = new long[INITIAL_CAPACITY];
+        private long[] minutes = new long[INITIAL_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_CAPACITY];
+        private int count;
+
+        long get(long owner, long day) {
+            int mask = used.length - 1;
+            for (int i = index(owner, day, mask); used[i]; i = (i + 1) & mask) {
+                if (owners[i] == owner && days[i] == day) {
+                    return minutes[i];
+                }
+            }
+            return 0L;
+        }
+
+        void add(long owner, long day, long delta) {
+            if (delta == 0) {
+                return;
+            }
+            if ((count + 1) * 100 > used.length * 60) {
+                grow();
+            }
+            int mask = used.length - 1;
+            int i = index(owner, day, mask);
+            while (used[i] && (owners[i] != owner || days[i] != day)) {
+                i = (i + 1) & mask;
+            }
+            if (!used[i]) {
+                used[i] = true;
+                owners[i] = owner;
+                days[i] = day;
+                minutes[i] = delta;
+                count++;
+            } else if ((minutes[i] += delta) == 0) {
+                remove(i);
+            }
+        }
+
+        private void remove(int hole) {
+            int mask = used.length - 1;
+            count--;
+            int next = hole;
+            while (true) {
+                next = (next + 1) & mask;
+                if (!used[next]) {
+                    break;
+                }
+                int home = index(owners[next], days[next], mask);
+                boolean movable = hole <= next
+                        ? home <= hole || home > next
+                        : home <= hole && home > next;
+                if (movable) {
+                    owners[hole] = owners[next];
+                    days[hole] = days[next];
+                    minutes[hole] = minutes[next];
+                    hole = next;
+                }
+            }
+            used[hole] = false;
+        }
+
+        private void grow() {
+            long[] oldOwners = owners;
+            long[] oldDays = days;
+            long[] oldMinutes = minutes;
+            boolean[] oldUsed = used;
+            int capacity = oldUsed.length << 1;
+            owners = new long[capacity];
+            days = new long[capacity];
+            minutes = new long[capacity];
+            used = new boolean[capacity];
+            count = 0;
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (oldUsed[i]) {
+                    add(oldOwners[i], oldDays[i], oldMinutes[i]);
+                }
+            }
+        }
+
+        private static int index(long owner, long day, int mask) {
+            long h = (owner * 0x9E3779B97F4A7C15L ^ day) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    /**
+     * Open-addressing id to slot map; only used under the store's lock.
+     */
+    private static final class SlotMap {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] slots = filled(INITIAL_CAPACITY);
+        private int count;
+
+        int get(long key) {
+            int mask = slots.length - 1;
+            for (int i = index(key, mask); slots[i] >= 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return slots[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int slot) {
+            if ((count + 1) * 100 > slots.length * 60) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int i = index(key, mask);
+            while (slots[i] >= 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (slots[i] < 0) {
+                count++;
+            }
+            keys[i] = key;
+            slots[i] = slot;
+        }
+
+        void copyFrom(SlotMap other) {
+            keys = other.keys.clone();
+            slots = other.slots.clone();
+            count = other.count;
+        }
+
+        void remove(long key) {
+            int mask = slots.length - 1;
+            int hole = index(key, mask);
+            while (slots[hole] >= 0 && keys[hole] != key) {
+                hole = (hole + 1) & mask;
+            }
+            if (slots[hole] < 0) {
+                return;
+            }
+            count--;
+            int next = hole;
+            while (true) {
+                next = (next + 1) & mask;
+                if (slots[next] < 0) {
+                    break;
+                }
+                int home = index(keys[next], mask);
+                boolean movable = hole <= next
+                        ? home <= hole || home > next
+                        : home <= hole && home > next;
+                if (movable) {
+                    keys[hole] = keys[next];
+                    slots[hole] = slots[next];
+                    hole = next;
+                }
+            }
+            slots[hole] = -1;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new long[oldKeys.length << 1];
+            slots = filled(oldSlots.length << 1);
+            count = 0;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] >= 0) {
+                    put(oldKeys[i], oldSlots[i]);
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        private static int[] filled(int capacity) {
+            int[] result = new int[capacity];
+            Arrays.fill(result, -1);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.khokhlov.universityserver.model.data;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds table changes back until the write that made them has passed the
+ * commit barrier, then hands them on in the order they were made. A change
+ * is only handed on once every earlier one is either handed on or dropped,
+ * so changes to one id keep their commit order. A change whose write fails
+ * the barrier is dropped, since it may not survive a restart.
+ */
+@Slf4j
+final class CommittedChanges {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    private final ThreadLocal<List<Change>> ownChanges = ThreadLocal.withInitial(ArrayList::new);
+
+    <T> ChangeListener<T> deferring(ChangeListener<T> listener) {
+        return new ChangeListener<>() {
+            @Override
+            public void onPut(long id, T row) {
+                defer(() -> listener.onPut(id, row));
+            }
+
+            @Override
+            public void onRemove(long id) {
+                defer(() -> listener.onRemove(id));
+            }
+        };
+    }
+
+    /**
+     * Settles the changes the calling thread has made since its last call
+     * and hands on every change no longer waiting behind an unsettled one.
+     */
+    void complete(boolean committed) {
+        List<Change> own = ownChanges.get();
+        if (own.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (Change change : own) {
+                change.state = committed ? State.COMMITTED : State.DROPPED;
+            }
+            own.clear();
+            while (!changes.isEmpty() && changes.peekFirst().state != State.PENDING) {
+                Change change = changes.pollFirst();
+                if (change.state == State.COMMITTED) {
+                    deliver(change);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void defer(Runnable delivery) {
+        Change change = new Change(delivery);
+        lock.lock();
+        try {
+            changes.addLast(change);
+        } finally {
+            lock.unlock();
+        }
+        ownChanges.get().add(change);
+    }
+
+    private static void deliver(Change change) {
+        try {
+            change.delivery.run();
+        } catch (RuntimeException e) {
+            log.error("Error handing on a committed change: {}", e.getMessage(), e);
+        }
+    }
+
+    private enum State {
+        PENDING, COMMITTED, DROPPED
+    }
+
+    private static final class Change {
+        private final Runnable delivery;
+        private State state = State.PENDING;
+
+        Change(Runnable delivery) {
+            this.delivery = delivery;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent hash map from primitive {@code long} keys to objects. Entries
+ * are kept in open-addressing tables (parallel {@code long[]}/{@code Object[]}
+ * arrays with linear probing), so there is no boxed key and no node object
+ * per entry. The key space is split into segments guarded by their own
+ * {@link StampedLock}: writes lock one segment, reads are optimistic and only
+ * fall back to the read lock when they raced with a write.
+ */
+public class ConcurrentLongMap<V> implements RowStore<V> {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final int MAX_LOAD_PERCENT = 60;
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongMap() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentLongMap(int concurrencyLevel) {
+        int segmentCount = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1) << 1);
+        @SuppressWarnings("unchecked")
+        Segment<V>[] segments = (Segment<V>[]) new Segment<?>[segmentCount];
+        this.segments = segments;
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    @Override
+    public V get(long key) {
+        long hash = mix(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        Object[] previous = new Object[1];
+        compute(key, (k, old) -> {
+            previous[0] = old;
+            return value;
+        });
+        return cast(previous[0]);
+    }
+
+    public V remove(long key) {
+        Object[] previous = new Object[1];
+        compute(key, (k, old) -> {
+            previous[0] = old;
+            return null;
+        });
+        return cast(previous[0]);
+    }
+
+    /**
+     * Atomically replaces the value of {@code key} with the result of the
+     * function; {@code null} in or out means "absent". The function runs
+     * under the segment's write lock, so it must not call back into this map.
+     */
+    @Override
+    public V compute(long key, RemappingFunction<V> function) {
+        long hash = mix(key);
+        return segmentFor(hash).compute(key, hash, function);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment<V> segment : segments) {
+            if (segment.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits a per-segment snapshot of the entries. The consumer runs outside
+     * of any lock and may modify the map.
+     */
+    @Override
+    public void forEach(EntryConsumer<V> consumer) {
+        for (Segment<V> segment : segments) {
+            segment.snapshot().forEach(consumer);
+        }
+    }
+
+    @Override
+    public long maxKey(long defaultValue) {
+        long[] max = {defaultValue};
+        boolean[] found = {false};
+        forEach((key, value) -> {
+            if (!found[0] || key > max[0]) {
+                max[0] = key;
+                found[0] = true;
+            }
+        });
+        return max[0];
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[segmentShift == 64 ? 0 : (int) (hash >>> segmentShift)];
+    }
+
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    private static final class Slots {
+        final long[] keys;
+        final Object[] values;
+
+        Slots(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+
+    private static final class Snapshot<V> {
+        final long[] keys;
+        final Object[] values;
+
+        Snapshot(long[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        void forEach(EntryConsumer<V> consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                consumer.accept(keys[i], cast(values[i]));
+            }
+        }
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private volatile Slots slots = new Slots(INITIAL_SEGMENT_CAPACITY);
+        private volatile int size;
+
+        V get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            Object value = find(slots, key, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = find(slots, key, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return cast(value);
+        }
+
+        V compute(long key, long hash, RemappingFunction<V> function) {
+            long stamp = lock.writeLock();
+            try {
+                Slots current = slots;
+                int index = indexOf(current, key, hash);
+                V oldValue = current.values[index] == null ? null : cast(current.values[index]);
+                V newValue = function.apply(key, oldValue);
+                if (newValue == null) {
+                    if (oldValue != null) {
+                        delete(current, index);
+                        size = size - 1;
+                    }
+                } else if (oldValue != null) {
+                    current.values[index] = newValue;
+                } else {
+                    if ((size + 1) * 100 > current.values.length * MAX_LOAD_PERCENT) {
+                        current = resize(current);
+                        index = indexOf(current, key, hash);
+                    }
+                    current.keys[index] = key;
+                    current.values[index] = newValue;
+                    size = size + 1;
+                }
+                return newValue;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Snapshot<V> snapshot() {
+            long stamp = lock.readLock();
+            try {
+                Slots current = slots;
+                long[] keys = new long[size];
+                Object[] values = new Object[size];
+                int count = 0;
+                for (int i = 0; i < current.values.length && count < keys.length; i++) {
+                    if (current.values[i] != null) {
+                        keys[count] = current.keys[i];
+                        values[count] = current.values[i];
+                        count++;
+                    }
+                }
+                return new Snapshot<>(keys, values);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static Object find(Slots slots, long key, long hash) {
+            long[] keys = slots.keys;
+            Object[] values = slots.values;
+            int mask = values.length - 1;
+            int index = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = values[index];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[index] == key) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int indexOf(Slots slots, long key, long hash) {
+            int mask = slots.values.length - 1;
+            int index = (int) hash & mask;
+            while (slots.values[index] != null && slots.keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private static void delete(Slots slots, int index) {
+            long[] keys = slots.keys;
+            Object[] values = slots.values;
+            int mask = values.length - 1;
+            int hole = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                int home = (int) mix(keys[next]) & mask;
+                boolean movable = hole <= next
+                        ? home <= hole || home > next
+                        : home <= hole && home > next;
+                if (movable) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = 0L;
+            values[hole] = null;
+        }
+
+        private Slots resize(Slots current) {
+            Slots resized = new Slots(current.values.length << 1);
+            for (int i = 0; i < current.values.length; i++) {
+                if (current.values[i] != null) {
+                    int index = indexOf(resized, current.keys[i], mix(current.keys[i]));
+                    resized.keys[index] = current.keys[i];
+                    resized.values[index] = current.values[i];
+                }
+            }
+            slots = resized;
+            return resized;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.time.LocalDate;
+
+public record DailyKey(long ownerId, LocalDate date) {
+}
@@ -0,0 +1,68 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Non-unique secondary index of an {@link IndexedTable}. A row may be filed
+ * under several keys. The keys of every row are remembered on insert, so the
+ * entries can be dropped later even if the row was mutated in place.
+ */
+public class HashIndex<T> implements SecondaryIndex<T> {
+
+    private final RowStore<T> rows;
+    private final Function<T, ? extends Collection<?>> keysExtractor;
+    private final Map<Long, Collection<?>> keysById = new ConcurrentHashMap<>();
+    private final Map<Object, Set<Long>> idsByKey = new ConcurrentHashMap<>();
+
+    HashIndex(RowStore<T> rows, Function<T, ? extends Collection<?>> keysExtractor) {
+        this.rows = rows;
+        this.keysExtractor = keysExtractor;
+    }
+
+    public List<T> find(Object key) {
+        Set<Long> ids = key == null ? null : idsByKey.get(key);
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void add(long id, T row) {
+        Collection<?> keys = keysExtractor.apply(row);
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        keysById.put(id, keys);
+        for (Object key : keys) {
+            idsByKey.compute(key, (k, ids) -> {
+                Set<Long> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                result.add(id);
+                return result;
+            });
+        }
+    }
+
+    @Override
+    public void remove(long id, T row) {
+        Collection<?> keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (Object key : keys) {
+            idsByKey.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.khokhlov.universityserver.model.data;
+
+/**
+ * Source of row ids for an {@link IndexedTable}. Every call hands out an id
+ * that no other call of the same allocator has returned.
+ */
+public interface IdAllocator {
+
+    long nextId();
+
+    /**
+     * Returns an id above every id handed out so far.
+     */
+    long getHighWaterMark();
+}
@@ -0,0 +1,419 @@
+package com.khokhlov.universityserver.model.data;
+
+import com.khokhlov.universityserver.model.Versioned;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Id-keyed table that keeps its secondary indexes in step with every write.
+ * Rows are kept in a {@link RowStore} ({@link ConcurrentLongMap} by default),
+ * and each row change runs inside the store's atomic compute, so a row and
+ * its index entries are always replaced together. Unique keys are reserved
+ * before the row is committed and released again if any of them is taken.
+ * <p>
+ * Every committed change also publishes a new {@link TableSnapshot};
+ * {@link #values()} and {@link #entrySet()} read from the snapshot current
+ * at the time of the call, so a whole listing reflects one moment, and is
+ * reported to each of the table's {@link ChangeListener}s. A store that can
+ * make {@linkplain RowStore#frozenCopy() frozen copies} of itself, such as
+ * {@link ColumnarTimetableStore}, gets no row-object snapshot: a snapshot is
+ * a frozen copy of the store taken on demand.
+ */
+public class IndexedTable<T> extends AbstractMap<Long, T> {
+
+    private final RowStore<T> rows;
+    private final List<SecondaryIndex<T>> indexes = new CopyOnWriteArrayList<>();
+    private final List<UniqueIndex<T>> uniqueIndexes = new CopyOnWriteArrayList<>();
+    private final AtomicReference<TableSnapshot<T>> snapshot;
+    private final AtomicLong writeCount = new AtomicLong();
+    private volatile IdAllocator idAllocator;
+    private volatile long idFloor;
+    private volatile LongFunction<T> readThrough;
+    private final List<ChangeListener<T>> changeListeners = new CopyOnWriteArrayList<>();
+
+    public IndexedTable() {
+        this(new ConcurrentLongMap<>());
+    }
+
+    public IndexedTable(RowStore<T> rows) {
+        this.rows = rows;
+        this.snapshot = rows.hasFrozenCopies() ? null : new AtomicReference<>(new TableSnapshot<>(0L, PersistentLongMap.empty()));
+        if (snapshot != null) {
+            rows.forEach((id, row) -> snapshot.set(snapshot.get().with(id, row)));
+        }
+    }
+
+    public RowStore<T> getStore() {
+        return rows;
+    }
+
+    public HashIndex<T> addIndex(Function<T, ?> keyExtractor) {
+        return addMultiIndex(row -> {
+            Object key = keyExtractor.apply(row);
+            return key == null ? List.of() : List.of(key);
+        });
+    }
+
+    public HashIndex<T> addMultiIndex(Function<T, ? extends Collection<?>> keysExtractor) {
+        return register(new HashIndex<>(rows, keysExtractor));
+    }
+
+    public <K extends Comparable<? super K>> SortedIndex<T, K> addSortedIndex(Function<T, K> keyExtractor) {
+        return register(new SortedIndex<>(rows, keyExtractor));
+    }
+
+    public SumIndex<T> addSumIndex(Function<T, ?> keyExtractor, ToLongFunction<T> valueExtractor) {
+        return register(new SumIndex<>(rows, keyExtractor, valueExtractor));
+    }
+
+    public UniqueIndex<T> addUniqueIndex(Function<T, ?> keyExtractor) {
+        UniqueIndex<T> index = new UniqueIndex<>(rows, keyExtractor);
+        rows.forEach((id, row) -> {
+            Object key = index.reserve(id, row);
+            if (key == null) {
+                throw new IllegalStateException("Duplicate unique key for row " + id);
+            }
+            index.commit(id, key);
+        });
+        uniqueIndexes.add(index);
+        return index;
+    }
+
+    public boolean insert(long id, T row) {
+        return write(id, row, WriteMode.INSERT, null, null).applied();
+    }
+
+    public boolean update(long id, T row) {
+        return write(id, row, WriteMode.UPDATE, null, null).applied();
+    }
+
+    /**
+     * Stores {@code row} only if the current row is still {@code expected}
+     * (the same instance, or the same version for {@link Versioned} rows), so
+     * a read-modify-write can detect a concurrent change.
+     */
+    public boolean replace(long id, T expected, T row) {
+        return write(id, row, WriteMode.UPDATE, expected, null).applied();
+    }
+
+    /**
+     * Stores a row as it was persisted, keeping its version; used to load
+     * a table back from disk.
+     */
+    public void restore(long id, T row) {
+        if (!write(id, row, WriteMode.RESTORE, null, null).applied()) {
+            throw new IllegalArgumentException("Row " + id + " violates a unique constraint");
+        }
+    }
+
+    /**
+     * Like {@link #restore}, but leaves an existing row with the same id in
+     * place and returns {@code false}.
+     */
+    public boolean restoreIfAbsent(long id, T row) {
+        WriteResult<T> result = write(id, row, WriteMode.RESTORE_IF_ABSENT, null, null);
+        if (!result.applied() && result.previous() == null) {
+            throw new IllegalArgumentException("Row " + id + " violates a unique constraint");
+        }
+        return result.applied();
+    }
+
+    /**
+     * Stores {@code row} only if the current row is {@link Versioned} with
+     * {@code expectedVersion}; a {@code null} version skips the check.
+     */
+    public WriteStatus update(long id, T row, Long expectedVersion) {
+        return write(id, row, WriteMode.UPDATE, null, expectedVersion).status();
+    }
+
+    public TableSnapshot<T> snapshot() {
+        if (snapshot != null) {
+            return snapshot.get();
+        }
+        long version = writeCount.get();
+        return new TableSnapshot<>(version, rows.frozenCopy());
+    }
+
+    /**
+     * Grows with every committed change; cheaper than {@code snapshot().getVersion()}.
+     */
+    public long getVersion() {
+        return snapshot != null ? snapshot.get().getVersion() : writeCount.get();
+    }
+
+    public long maxId() {
+        return rows.maxKey(0L);
+    }
+
+    public long nextId() {
+        IdAllocator allocator = idAllocator;
+        if (allocator == null) {
+            synchronized (this) {
+                allocator = idAllocator;
+                if (allocator == null) {
+                    allocator = new BlockIdAllocator(Math.max(maxId() + 1, idFloor));
+                    idAllocator = allocator;
+                }
+            }
+        }
+        return allocator.nextId();
+    }
+
+    public void setIdAllocator(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Makes {@link #get} fall back to {@code source} for ids not in the table,
+     * e.g. while the table is still loading in the background; {@code null}
+     * turns it off again.
+     */
+    public void setReadThrough(LongFunction<T> source) {
+        this.readThrough = source;
+    }
+
+    /**
+     * Keeps the default allocator from handing out ids below {@code firstId},
+     * e.g. ids used before a restart whose rows no longer exist.
+     */
+    public void setIdFloor(long firstId) {
+        this.idFloor = firstId;
+    }
+
+    /**
+     * Returns an id above every id this table has stored or handed out.
+     */
+    public long idHighWaterMark() {
+        IdAllocator allocator = idAllocator;
+        long mark = Math.max(maxId() + 1, idFloor);
+        return allocator == null ? mark : Math.max(mark, allocator.getHighWaterMark());
+    }
+
+    public void addChangeListener(ChangeListener<T> changeListener) {
+        changeListeners.add(changeListener);
+    }
+
+    @Override
+    public T get(Object id) {
+        if (!(id instanceof Long key)) {
+            return null;
+        }
+        T row = rows.get(key);
+        LongFunction<T> source = readThrough;
+        return row != null || source == null ? row : source.apply(key);
+    }
+
+    @Override
+    public boolean containsKey(Object id) {
+        return id instanceof Long key && (rows.containsKey(key) || readThrough != null && get(key) != null);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    @Override
+    public T put(Long id, T row) {
+        WriteResult<T> result = write(id, row, WriteMode.UPSERT, null, null);
+        if (!result.applied()) {
+            throw new IllegalArgumentException("Row " + id + " violates a unique constraint");
+        }
+        return result.previous();
+    }
+
+    @Override
+    public T remove(Object id) {
+        if (!(id instanceof Long rowId)) {
+            return null;
+        }
+        AtomicReference<T> previous = new AtomicReference<>();
+        rows.compute(rowId, (key, old) -> {
+            if (old != null) {
+                uniqueIndexes.forEach(index -> index.remove(key));
+                indexes.forEach(index -> index.remove(key, old));
+                publish(key, null);
+                previous.set(old);
+            }
+            return null;
+        });
+        return previous.get();
+    }
+
+    @Override
+    public void clear() {
+        rows.forEach((id, row) -> remove(id));
+    }
+
+    @Override
+    public Set<Long> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Long> iterator() {
+                List<Long> ids = new ArrayList<>(rows.size());
+                rows.forEach((id, row) -> ids.add(id));
+                return Collections.unmodifiableList(ids).iterator();
+            }
+
+            @Override
+            public boolean contains(Object id) {
+                return containsKey(id);
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<T> values() {
+        return snapshot().values();
+    }
+
+    @Override
+    public Set<Entry<Long, T>> entrySet() {
+        TableSnapshot<T> current = snapshot();
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Long, T>> iterator() {
+                List<Entry<Long, T>> entries = new ArrayList<>(current.size());
+                current.forEach((id, row) -> entries.add(new SimpleImmutableEntry<>(id, row)));
+                return Collections.unmodifiableList(entries).iterator();
+            }
+
+            @Override
+            public int size() {
+                return current.size();
+            }
+        };
+    }
+
+    private <I extends SecondaryIndex<T>> I register(I index) {
+        rows.forEach(index::add);
+        indexes.add(index);
+        return index;
+    }
+
+    private WriteResult<T> write(long id, T row, WriteMode mode, T expected, Long expectedVersion) {
+        Objects.requireNonNull(row, "row");
+        rows.validate(row);
+        AtomicReference<WriteResult<T>> result = new AtomicReference<>();
+        rows.compute(id, (key, old) -> {
+            WriteStatus status = check(old, mode, expected, expectedVersion);
+            if (status == WriteStatus.APPLIED && rows.conflicts(key, row)) {
+                status = WriteStatus.UNIQUE_CONFLICT;
+            }
+            if (status == WriteStatus.APPLIED) {
+                status = reserveAndCommit(key, row);
+            }
+            result.set(new WriteResult<>(status, old));
+            if (status != WriteStatus.APPLIED) {
+                return old;
+            }
+            if (row instanceof Versioned versioned && mode != WriteMode.RESTORE && mode != WriteMode.RESTORE_IF_ABSENT) {
+                versioned.setVersion(old instanceof Versioned previous ? previous.getVersion() + 1 : 1);
+            }
+            if (old != null) {
+                indexes.forEach(index -> index.remove(key, old));
+            }
+            indexes.forEach(index -> index.add(key, row));
+            publish(key, row);
+            return row;
+        });
+        return result.get();
+    }
+
+    private void publish(long id, T row) {
+        if (snapshot != null) {
+            snapshot.updateAndGet(current -> current.with(id, row));
+        } else {
+            writeCount.incrementAndGet();
+        }
+        for (ChangeListener<T> listener : changeListeners) {
+            if (row == null) {
+                listener.onRemove(id);
+            } else {
+                listener.onPut(id, row);
+            }
+        }
+    }
+
+    private WriteStatus check(T old, WriteMode mode, T expected, Long expectedVersion) {
+        if ((mode == WriteMode.INSERT || mode == WriteMode.RESTORE_IF_ABSENT) && old != null) {
+            return WriteStatus.UNIQUE_CONFLICT;
+        }
+        if (mode == WriteMode.UPDATE && old == null) {
+            return WriteStatus.NOT_FOUND;
+        }
+        if (expected != null && !isSameRevision(old, expected)) {
+            return WriteStatus.VERSION_CONFLICT;
+        }
+        if (expectedVersion != null && !(old instanceof Versioned versioned && versioned.getVersion() == expectedVersion)) {
+            return WriteStatus.VERSION_CONFLICT;
+        }
+        return WriteStatus.APPLIED;
+    }
+
+    private static boolean isSameRevision(Object current, Object expected) {
+        return current == expected
+                || current instanceof Versioned actual && expected instanceof Versioned wanted
+                && actual.getVersion() == wanted.getVersion();
+    }
+
+    private WriteStatus reserveAndCommit(long id, T row) {
+        List<Object> reserved = reserveUniqueKeys(id, row);
+        if (reserved == null) {
+            return WriteStatus.UNIQUE_CONFLICT;
+        }
+        for (int i = 0; i < reserved.size(); i++) {
+            uniqueIndexes.get(i).commit(id, reserved.get(i));
+        }
+        return WriteStatus.APPLIED;
+    }
+
+    private List<Object> reserveUniqueKeys(long id, T row) {
+        List<Object> reserved = new ArrayList<>(uniqueIndexes.size());
+        for (UniqueIndex<T> index : uniqueIndexes) {
+            Object key = index.reserve(id, row);
+            if (key == null) {
+                for (int i = 0; i < reserved.size(); i++) {
+                    uniqueIndexes.get(i).abort(id, reserved.get(i));
+                }
+                return null;
+            }
+            reserved.add(key);
+        }
+        return reserved;
+    }
+
+    private enum WriteMode {
+        INSERT, UPDATE, UPSERT, RESTORE, RESTORE_IF_ABSENT
+    }
+
+    private record WriteResult<T>(WriteStatus status, T previous) {
+        boolean applied() {
+            return status == WriteStatus.APPLIED;
+        }
+    }
+}
@@ -4,17 +4,278 @@ import com.khokhlov.universityserver.model.Group;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.Teacher;
 import com.khokhlov.universityserver.model.Timetable;
-import lombok.Data;
+import lombok.AccessLevel;
+import lombok.Getter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
 
-@Data
+@Getter
 public class MemoryDB {
 
-    private Map<Long, Student> students = new ConcurrentHashMap<>();
-    private Map<Long, Teacher> teachers = new ConcurrentHashMap<>();
-    private Map<Long, Group> groups = new ConcurrentHashMap<>();
-    private Map<Long, Timetable> timetables = new ConcurrentHashMap<>();
+    private final IndexedTable<Student> students = new IndexedTable<>();
+    private final IndexedTable<Teacher> teachers = new IndexedTable<>();
+    private final IndexedTable<Group> groups = new IndexedTable<>();
+
+    private final UniqueIndex<Student> studentKeys = students.addUniqueIndex(student -> Arrays.asList(
+            student.getName(), student.getSurname(), student.getBirthDate(), student.getPhoneNumber()));
+    private final UniqueIndex<Teacher> teacherKeys = teachers.addUniqueIndex(teacher -> Arrays.asList(
+            teacher.getName(), teacher.getSurname(), teacher.getExperience(), teacher.getSubjectMask()));
+    private final UniqueIndex<Group> groupsByNumber = groups.addUniqueIndex(Group::getNumber);
+
+    private final HashIndex<Student> studentsByName = students.addIndex(student -> normalize(student.getName()));
+    private final HashIndex<Student> studentsBySurname = students.addIndex(student -> normalize(student.getSurname()));
+    private final HashIndex<Student> studentsByNameAndSurname = students.addIndex(student -> normalize(student.getName(), student.getSurname()));
+
+    private final HashIndex<Teacher> teachersBySurname = teachers.addIndex(teacher -> normalize(teacher.getSurname()));
+    private final HashIndex<Teacher> teachersBySubject = teachers.addMultiIndex(Teacher::getSubjects);
+
+    private final HashIndex<Group> groupsByStudentId = groups.addMultiIndex(group -> group.studentIdStream()
+            .boxed()
+            .toList());
+
+    private final TimetableStorage timetableStorage;
+    private final IndexedTable<Timetable> timetables;
+    /**
+     * The timetable key and daily-minute indexes; {@code null} with
+     * {@link TimetableStorage#COLUMNAR} storage, which keeps them itself.
+     */
+    private final UniqueIndex<Timetable> timetableKeys;
+    private final SumIndex<Timetable> groupDailyMinutes;
+    private final SumIndex<Timetable> teacherDailyMinutes;
+
+    @Getter(AccessLevel.NONE)
+    private final ColumnarTimetableStore columnarTimetables;
+    @Getter(AccessLevel.NONE)
+    private final HashIndex<Timetable> timetablesByGroupId;
+    @Getter(AccessLevel.NONE)
+    private final HashIndex<Timetable> timetablesByTeacherId;
+    @Getter(AccessLevel.NONE)
+    private final SortedIndex<Timetable, LocalDateTime> timetablesByStart;
+
+    @Getter(AccessLevel.NONE)
+    private volatile WritePipeline writePipeline;
+    @Getter(AccessLevel.NONE)
+    private volatile Runnable commitBarrier;
+    @Getter(AccessLevel.NONE)
+    private final CommittedChanges committedChanges = new CommittedChanges();
+
+    public MemoryDB() {
+        this(TimetableStorage.OBJECT);
+    }
+
+    public MemoryDB(TimetableStorage timetableStorage) {
+        this.timetableStorage = timetableStorage;
+        if (timetableStorage == TimetableStorage.COLUMNAR) {
+            columnarTimetables = new ColumnarTimetableStore();
+            timetables = new IndexedTable<>(columnarTimetables);
+            timetablesByGroupId = null;
+            timetablesByTeacherId = null;
+            timetablesByStart = null;
+            timetableKeys = null;
+            groupDailyMinutes = null;
+            teacherDailyMinutes = null;
+        } else {
+            columnarTimetables = null;
+            timetables = new IndexedTable<>();
+            timetablesByGroupId = timetables.addIndex(Timetable::getGroupId);
+            timetablesByTeacherId = timetables.addIndex(Timetable::getTeacherId);
+            timetablesByStart = timetables.addSortedIndex(Timetable::getStartDateTime);
+            timetableKeys = timetables.addUniqueIndex(timetable -> new TimetableKey(timetable.getGroupId(),
+                    timetable.getTeacherId(),
+                    timetable.getStartDateTime().toEpochSecond(ZoneOffset.UTC),
+                    timetable.getEndDateTime().toEpochSecond(ZoneOffset.UTC)));
+            groupDailyMinutes = timetables.addSumIndex(
+                    timetable -> new DailyKey(timetable.getGroupId(), timetable.getStartDateTime().toLocalDate()),
+                    MemoryDB::durationInMinutes);
+            teacherDailyMinutes = timetables.addSumIndex(
+                    timetable -> new DailyKey(timetable.getTeacherId(), timetable.getStartDateTime().toLocalDate()),
+                    MemoryDB::durationInMinutes);
+        }
+    }
+
+    /**
+     * Runs a write command; with the write pipeline started it is applied
+     * by the single writer thread, otherwise on the calling thread. Either
+     * way it returns only after the commit barrier, if one is set, has
+     * passed for the command's changes.
+     */
+    public <R> R write(Supplier<R> command) {
+        WritePipeline pipeline = writePipeline;
+        if (pipeline != null) {
+            return pipeline.execute(command);
+        }
+        R result = command.get();
+        awaitCommit();
+        return result;
+    }
+
+    public void write(Runnable command) {
+        write(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public void startWritePipeline(int capacity, int batchSize) {
+        writePipeline = new WritePipeline(capacity, batchSize, this::awaitCommit);
+    }
+
+    public void stopWritePipeline() {
+        WritePipeline pipeline = writePipeline;
+        writePipeline = null;
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Sets the action {@link #write} runs after a command, and the write
+     * pipeline after each batch, before reporting success; it blocks until
+     * the changes committed by the calling thread are durable.
+     */
+    public void setCommitBarrier(Runnable commitBarrier) {
+        this.commitBarrier = commitBarrier;
+    }
+
+    /**
+     * Adds a listener that sees a change of {@code table} only once its
+     * write has passed the commit barrier, unlike one added to the table
+     * directly; changes of a write that fails the barrier are never seen.
+     */
+    public <T> void addCommittedChangeListener(IndexedTable<T> table, ChangeListener<T> listener) {
+        table.addChangeListener(committedChanges.deferring(listener));
+    }
+
+    /**
+     * Grows with every committed write to any table, so equal values mean
+     * nothing has changed in between.
+     */
+    public long getDataVersion() {
+        return students.getVersion()
+                + teachers.getVersion()
+                + groups.getVersion()
+                + timetables.getVersion();
+    }
+
+    /**
+     * Switches every table to a {@link BlockIdAllocator} that keeps its
+     * high-water mark in {@code directory}, so ids stay unique across restarts.
+     */
+    public void persistIdMarks(Path directory, int blockSize) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error creating id mark directory " + directory, e);
+        }
+        students.setIdAllocator(new BlockIdAllocator(students.idHighWaterMark(), blockSize, directory.resolve("students.id")));
+        teachers.setIdAllocator(new BlockIdAllocator(teachers.idHighWaterMark(), blockSize, directory.resolve("teachers.id")));
+        groups.setIdAllocator(new BlockIdAllocator(groups.idHighWaterMark(), blockSize, directory.resolve("groups.id")));
+        timetables.setIdAllocator(new BlockIdAllocator(timetables.idHighWaterMark(), blockSize, directory.resolve("timetables.id")));
+    }
+
+    /**
+     * Reserves the timetable's minutes against both the group's and the
+     * teacher's daily limit; either both reservations hold or neither does.
+     * For an update, the minutes the stored row already counts on the same
+     * day are not counted twice.
+     */
+    public boolean reserveDailyMinutes(long timetableId, Timetable timetable, long maxMinutesPerDay) {
+        if (columnarTimetables != null) {
+            return columnarTimetables.reserveDailyMinutes(timetableId, timetable, maxMinutesPerDay);
+        }
+        if (!groupDailyMinutes.reserve(timetableId, timetable, maxMinutesPerDay)) {
+            return false;
+        }
+        if (!teacherDailyMinutes.reserve(timetableId, timetable, maxMinutesPerDay)) {
+            groupDailyMinutes.cancel(timetableId, timetable);
+            return false;
+        }
+        return true;
+    }
+
+    public void cancelDailyMinutes(long timetableId, Timetable timetable) {
+        if (columnarTimetables != null) {
+            columnarTimetables.cancelDailyMinutes(timetableId, timetable);
+            return;
+        }
+        groupDailyMinutes.cancel(timetableId, timetable);
+        teacherDailyMinutes.cancel(timetableId, timetable);
+    }
+
+    public boolean containsTimetable(Timetable timetable) {
+        return columnarTimetables != null
+                ? columnarTimetables.containsKeyOf(timetable)
+                : timetableKeys.contains(timetable);
+    }
+
+    public long getGroupDailyMinutes(long groupId, LocalDate date) {
+        return columnarTimetables != null
+                ? columnarTimetables.getGroupDailyMinutes(groupId, date)
+                : groupDailyMinutes.sum(new DailyKey(groupId, date));
+    }
+
+    public long getTeacherDailyMinutes(long teacherId, LocalDate date) {
+        return columnarTimetables != null
+                ? columnarTimetables.getTeacherDailyMinutes(teacherId, date)
+                : teacherDailyMinutes.sum(new DailyKey(teacherId, date));
+    }
+
+    public List<Group> findGroupsByStudentSurname(String surname) {
+        return studentsBySurname.find(normalize(surname)).stream()
+                .flatMap(student -> groupsByStudentId.find(student.getId()).stream())
+                .distinct()
+                .sorted(Comparator.comparingLong(Group::getId))
+                .toList();
+    }
+
+    public List<Timetable> findTimetablesByGroupId(long groupId) {
+        return columnarTimetables != null
+                ? columnarTimetables.selectByGroupId(groupId)
+                : timetablesByGroupId.find(groupId);
+    }
+
+    public List<Timetable> findTimetablesByTeacherId(long teacherId) {
+        return columnarTimetables != null
+                ? columnarTimetables.selectByTeacherId(teacherId)
+                : timetablesByTeacherId.find(teacherId);
+    }
+
+    public List<Timetable> findTimetablesByStart(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        return columnarTimetables != null
+                ? columnarTimetables.selectByStart(fromInclusive, toExclusive)
+                : timetablesByStart.range(fromInclusive, toExclusive);
+    }
+
+    private void awaitCommit() {
+        Runnable barrier = commitBarrier;
+        boolean committed = false;
+        try {
+            if (barrier != null) {
+                barrier.run();
+            }
+            committed = true;
+        } finally {
+            committedChanges.complete(committed);
+        }
+    }
+
+    private static long durationInMinutes(Timetable timetable) {
+        return Duration.between(timetable.getStartDateTime(), timetable.getEndDateTime()).toMinutes();
+    }
+
+    private record TimetableKey(long groupId, long teacherId, long startEpochSecond, long endEpochSecond) {
+    }
 }
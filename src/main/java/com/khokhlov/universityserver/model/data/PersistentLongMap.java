@@ -0,0 +1,161 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Immutable map from {@code long} keys to objects, stored as a hash array
+ * mapped trie. {@code put} and {@code remove} return a new map that shares
+ * every untouched branch with the old one, so a write copies one path of at
+ * most 13 small nodes. Keys are spread with a bijective mix, so two keys
+ * never share a full hash and no collision nodes are needed.
+ */
+final class PersistentLongMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(new Node(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentLongMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long hash = mix(key);
+        Object current = root;
+        for (int shift = 0; current instanceof Node node; shift += BITS) {
+            int bit = 1 << ((int) (hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            current = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+        }
+        return current instanceof Leaf leaf && leaf.key == key ? (V) leaf.value : null;
+    }
+
+    PersistentLongMap<V> put(long key, V value) {
+        boolean[] added = {false};
+        Node newRoot = (Node) put(root, new Leaf(key, mix(key), value), 0, added);
+        return new PersistentLongMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentLongMap<V> remove(long key) {
+        Object newRoot = remove(root, key, mix(key), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        if (newRoot == null) {
+            return empty();
+        }
+        if (newRoot instanceof Leaf leaf) {
+            newRoot = new Node(1 << ((int) leaf.hash & MASK), new Object[]{leaf});
+        }
+        return new PersistentLongMap<>((Node) newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<? super V> consumer) {
+        forEach(root, leaf -> consumer.accept((V) leaf.value));
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(RowStore.EntryConsumer<V> consumer) {
+        forEach(root, leaf -> consumer.accept(leaf.key, (V) leaf.value));
+    }
+
+    private static void forEach(Node node, Consumer<Leaf> consumer) {
+        for (Object child : node.children) {
+            if (child instanceof Leaf leaf) {
+                consumer.accept(leaf);
+            } else {
+                forEach((Node) child, consumer);
+            }
+        }
+    }
+
+    private static Object put(Node node, Leaf leaf, int shift, boolean[] added) {
+        int bit = 1 << ((int) (leaf.hash >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) == 0) {
+            Object[] children = new Object[node.children.length + 1];
+            System.arraycopy(node.children, 0, children, 0, index);
+            children[index] = leaf;
+            System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+            added[0] = true;
+            return new Node(node.bitmap | bit, children);
+        }
+        Object child = node.children[index];
+        Object replacement;
+        if (child instanceof Node childNode) {
+            replacement = put(childNode, leaf, shift + BITS, added);
+        } else if (((Leaf) child).key == leaf.key) {
+            replacement = leaf;
+        } else {
+            Node split = (Node) put(new Node(0, new Object[0]), (Leaf) child, shift + BITS, new boolean[1]);
+            replacement = put(split, leaf, shift + BITS, added);
+        }
+        Object[] children = Arrays.copyOf(node.children, node.children.length);
+        children[index] = replacement;
+        return new Node(node.bitmap, children);
+    }
+
+    private static Object remove(Node node, long key, long hash, int shift) {
+        int bit = 1 << ((int) (hash >>> shift) & MASK);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        Object child = node.children[index];
+        Object replacement;
+        if (child instanceof Node childNode) {
+            replacement = remove(childNode, key, hash, shift + BITS);
+        } else {
+            replacement = ((Leaf) child).key == key ? null : child;
+        }
+        if (replacement == child) {
+            return node;
+        }
+        if (replacement != null) {
+            Object[] children = Arrays.copyOf(node.children, node.children.length);
+            children[index] = replacement;
+            return children.length == 1 && replacement instanceof Leaf ? replacement : new Node(node.bitmap, children);
+        }
+        if (node.children.length == 1) {
+            return null;
+        }
+        Object[] children = new Object[node.children.length - 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        return children.length == 1 && children[0] instanceof Leaf leaf ? leaf : new Node(node.bitmap & ~bit, children);
+    }
+
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Node(int bitmap, Object[] children) {
+    }
+
+    private record Leaf(long key, long hash, Object value) {
+    }
+}
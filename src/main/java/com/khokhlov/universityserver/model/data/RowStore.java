@@ -0,0 +1,67 @@
+package com.khokhlov.universityserver.model.data;
+
+/**
+ * Primary storage of an {@link IndexedTable}: rows by id. {@code compute} is
+ * the only write operation and must apply its function atomically per id.
+ */
+public interface RowStore<T> {
+
+    T get(long id);
+
+    default boolean containsKey(long id) {
+        return get(id) != null;
+    }
+
+    T compute(long id, RemappingFunction<T> function);
+
+    /**
+     * Throws {@link IllegalArgumentException} if {@code row} cannot be
+     * stored; called before a write touches any index or listener.
+     */
+    default void validate(T row) {
+    }
+
+    /**
+     * Whether storing {@code row} under {@code id} would repeat the unique
+     * key of another row, for a store that keeps a unique key itself rather
+     * than through a {@link UniqueIndex}. Called inside {@code compute} for
+     * {@code id}, before anything is changed.
+     */
+    default boolean conflicts(long id, T row) {
+        return false;
+    }
+
+    /**
+     * Whether {@link #frozenCopy} is supported; if not, {@link IndexedTable}
+     * keeps a persistent snapshot of the row objects itself.
+     */
+    default boolean hasFrozenCopies() {
+        return false;
+    }
+
+    /**
+     * Returns a copy of the current rows that later writes do not change;
+     * it must not be written to.
+     */
+    default RowStore<T> frozenCopy() {
+        throw new UnsupportedOperationException("Frozen copies are not supported");
+    }
+
+    int size();
+
+    boolean isEmpty();
+
+    void forEach(EntryConsumer<T> consumer);
+
+    long maxKey(long defaultValue);
+
+    @FunctionalInterface
+    interface RemappingFunction<T> {
+        T apply(long id, T oldRow);
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer<T> {
+        void accept(long id, T row);
+    }
+}
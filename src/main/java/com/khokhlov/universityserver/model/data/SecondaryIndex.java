@@ -0,0 +1,11 @@
+package com.khokhlov.universityserver.model.data;
+
+interface SecondaryIndex<T> {
+
+    void add(long id, T row);
+
+    /**
+     * Drops the entries of {@code row}, the row currently stored under {@code id}.
+     */
+    void remove(long id, T row);
+}
@@ -0,0 +1,67 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Ordered secondary index of an {@link IndexedTable}. Range reads walk only
+ * the matching part of a skip list, and rows come back in key order.
+ */
+public class SortedIndex<T, K extends Comparable<? super K>> implements SecondaryIndex<T> {
+
+    private final RowStore<T> rows;
+    private final Function<T, K> keyExtractor;
+    private final Map<Long, K> keyById = new ConcurrentHashMap<>();
+    private final NavigableMap<K, NavigableSet<Long>> idsByKey = new ConcurrentSkipListMap<>();
+
+    SortedIndex(RowStore<T> rows, Function<T, K> keyExtractor) {
+        this.rows = rows;
+        this.keyExtractor = keyExtractor;
+    }
+
+    public List<T> range(K fromInclusive, K toExclusive) {
+        return resolve(idsByKey.subMap(fromInclusive, true, toExclusive, false).values());
+    }
+
+    @Override
+    public void add(long id, T row) {
+        K key = keyExtractor.apply(row);
+        if (key == null) {
+            return;
+        }
+        keyById.put(id, key);
+        idsByKey.compute(key, (k, ids) -> {
+            NavigableSet<Long> result = ids != null ? ids : new ConcurrentSkipListSet<>();
+            result.add(id);
+            return result;
+        });
+    }
+
+    @Override
+    public void remove(long id, T row) {
+        K key = keyById.remove(id);
+        if (key == null) {
+            return;
+        }
+        idsByKey.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private List<T> resolve(Collection<NavigableSet<Long>> buckets) {
+        return buckets.stream()
+                .flatMap(Collection::stream)
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
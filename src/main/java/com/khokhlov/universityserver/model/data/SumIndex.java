@@ -0,0 +1,117 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Running total of a numeric row attribute per key of an {@link IndexedTable}.
+ * Only the totals are kept: when a row is replaced or removed, its
+ * contribution is worked out again from the stored row and subtracted.
+ * <p>
+ * A writer can also {@link #reserve} a row's contribution against a limit
+ * before inserting or updating it. The reservation is counted at once, in a
+ * single atomic step per key, so concurrent writers can't overshoot the
+ * limit; committing the row then takes the reservation over instead of
+ * adding again, and {@link #cancel} gives it back if the write doesn't
+ * happen. For an update, the row's current contribution to the same key
+ * does not count against the limit, since the update replaces it.
+ */
+public class SumIndex<T> implements SecondaryIndex<T> {
+
+    private final RowStore<T> rows;
+    private final Function<T, ?> keyExtractor;
+    private final ToLongFunction<T> valueExtractor;
+    private final Map<Long, List<Contribution>> reservationsById = new ConcurrentHashMap<>();
+    private final Map<Object, Long> sumByKey = new ConcurrentHashMap<>();
+
+    SumIndex(RowStore<T> rows, Function<T, ?> keyExtractor, ToLongFunction<T> valueExtractor) {
+        this.rows = rows;
+        this.keyExtractor = keyExtractor;
+        this.valueExtractor = valueExtractor;
+    }
+
+    public long sum(Object key) {
+        return key == null ? 0L : sumByKey.getOrDefault(key, 0L);
+    }
+
+    public boolean reserve(long id, T row, long limit) {
+        Object key = keyExtractor.apply(row);
+        if (key == null) {
+            return true;
+        }
+        long value = valueExtractor.applyAsLong(row);
+        Contribution current = contributionOf(rows.get(id));
+        long replaced = current != null && current.key().equals(key) ? current.value() : 0L;
+        boolean[] admitted = {false};
+        sumByKey.compute(key, (k, sum) -> {
+            long total = sum == null ? 0L : sum;
+            if (total - replaced + value > limit) {
+                return sum;
+            }
+            admitted[0] = true;
+            return total + value;
+        });
+        if (admitted[0]) {
+            reservationsById.compute(id, (rowId, reservations) -> {
+                List<Contribution> result = reservations == null ? new ArrayList<>(1) : reservations;
+                result.add(new Contribution(key, value));
+                return result;
+            });
+        }
+        return admitted[0];
+    }
+
+    /**
+     * Gives back a reservation made for {@code row}.
+     */
+    public void cancel(long id, T row) {
+        Contribution reservation = contributionOf(row);
+        if (reservation != null && takeReservation(id, reservation)) {
+            subtract(reservation);
+        }
+    }
+
+    @Override
+    public void add(long id, T row) {
+        Contribution contribution = contributionOf(row);
+        if (contribution != null && !takeReservation(id, contribution)) {
+            sumByKey.merge(contribution.key(), contribution.value(), Long::sum);
+        }
+    }
+
+    @Override
+    public void remove(long id, T row) {
+        Contribution contribution = contributionOf(row);
+        if (contribution != null) {
+            subtract(contribution);
+        }
+    }
+
+    private Contribution contributionOf(T row) {
+        Object key = row == null ? null : keyExtractor.apply(row);
+        return key == null ? null : new Contribution(key, valueExtractor.applyAsLong(row));
+    }
+
+    private boolean takeReservation(long id, Contribution contribution) {
+        boolean[] taken = {false};
+        reservationsById.computeIfPresent(id, (rowId, reservations) -> {
+            taken[0] = reservations.remove(contribution);
+            return reservations.isEmpty() ? null : reservations;
+        });
+        return taken[0];
+    }
+
+    private void subtract(Contribution contribution) {
+        sumByKey.computeIfPresent(contribution.key(), (key, sum) -> {
+            long result = sum - contribution.value();
+            return result == 0 ? null : result;
+        });
+    }
+
+    private record Contribution(Object key, long value) {
+    }
+}
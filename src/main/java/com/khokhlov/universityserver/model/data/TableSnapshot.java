@@ -0,0 +1,74 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Point-in-time view of an {@link IndexedTable}. A snapshot never changes
+ * after it is published, so it can be read without locks for as long as it
+ * is held; later writes only produce newer snapshots that share its
+ * unchanged parts. A snapshot nobody references is simply garbage collected.
+ * A snapshot of a store that makes its own frozen copies wraps one instead.
+ */
+public final class TableSnapshot<T> {
+
+    private final long version;
+    private final PersistentLongMap<T> rows;
+    private final RowStore<T> frozen;
+
+    TableSnapshot(long version, PersistentLongMap<T> rows) {
+        this.version = version;
+        this.rows = rows;
+        this.frozen = null;
+    }
+
+    TableSnapshot(long version, RowStore<T> frozen) {
+        this.version = version;
+        this.rows = null;
+        this.frozen = frozen;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public T get(long id) {
+        return rows != null ? rows.get(id) : frozen.get(id);
+    }
+
+    public int size() {
+        return rows != null ? rows.size() : frozen.size();
+    }
+
+    public Collection<T> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                List<T> values = new ArrayList<>(TableSnapshot.this.size());
+                TableSnapshot.this.forEach((id, row) -> values.add(row));
+                return Collections.unmodifiableList(values).iterator();
+            }
+
+            @Override
+            public int size() {
+                return TableSnapshot.this.size();
+            }
+        };
+    }
+
+    public void forEach(RowStore.EntryConsumer<T> consumer) {
+        if (rows != null) {
+            rows.forEach(consumer);
+        } else {
+            frozen.forEach(consumer);
+        }
+    }
+
+    TableSnapshot<T> with(long id, T row) {
+        return new TableSnapshot<>(version + 1, row == null ? rows.remove(id) : rows.put(id, row));
+    }
+}
@@ -0,0 +1,17 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.Locale;
+
+/**
+ * Row layout of the timetable table: {@code OBJECT} keeps one {@code Timetable}
+ * per row plus lookup indexes, {@code COLUMNAR} keeps primitive columns and
+ * answers lookups by scanning them.
+ */
+public enum TimetableStorage {
+    OBJECT,
+    COLUMNAR;
+
+    public static TimetableStorage fromProperty(String value) {
+        return value == null || value.isBlank() ? OBJECT : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
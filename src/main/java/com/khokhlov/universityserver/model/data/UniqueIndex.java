@@ -0,0 +1,61 @@
+package com.khokhlov.universityserver.model.data;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Unique secondary index of an {@link IndexedTable}. A key is claimed with
+ * {@code putIfAbsent}, which makes it the single point where two writers with
+ * the same natural key are told apart.
+ */
+public class UniqueIndex<T> {
+
+    private final RowStore<T> rows;
+    private final Function<T, ?> keyExtractor;
+    private final Map<Long, Object> keyById = new ConcurrentHashMap<>();
+    private final Map<Object, Long> idByKey = new ConcurrentHashMap<>();
+
+    UniqueIndex(RowStore<T> rows, Function<T, ?> keyExtractor) {
+        this.rows = rows;
+        this.keyExtractor = keyExtractor;
+    }
+
+    public Optional<T> find(Object key) {
+        Long id = key == null ? null : idByKey.get(key);
+        return id == null ? Optional.empty() : Optional.ofNullable(rows.get(id));
+    }
+
+    public boolean contains(T row) {
+        Object key = keyExtractor.apply(row);
+        return key != null && idByKey.containsKey(key);
+    }
+
+    Object reserve(long id, T row) {
+        Object key = Objects.requireNonNull(keyExtractor.apply(row), "unique key");
+        Long owner = idByKey.putIfAbsent(key, id);
+        return owner == null || owner == id ? key : null;
+    }
+
+    void commit(long id, Object key) {
+        Object previous = keyById.put(id, key);
+        if (previous != null && !previous.equals(key)) {
+            idByKey.remove(previous, id);
+        }
+    }
+
+    void abort(long id, Object key) {
+        if (!key.equals(keyById.get(id))) {
+            idByKey.remove(key, id);
+        }
+    }
+
+    void remove(long id) {
+        Object key = keyById.remove(id);
+        if (key != null) {
+            idByKey.remove(key, id);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.khokhlov.universityserver.model.data;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Funnels write commands through one writer thread. Requests publish
+ * commands into a bounded ring buffer and wait; the writer drains up to
+ * {@code batchSize} commands at a time, applies them in order and only then
+ * acknowledges the whole batch, so every command sees the effects of all
+ * earlier ones. A command that issues another write from the writer thread
+ * runs it in place.
+ */
+@Slf4j
+public class WritePipeline implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = 100_000L;
+
+    private final Object[] commands;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final int batchSize;
+    private final Runnable afterBatch;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private long head;
+
+    public WritePipeline(int capacity, int batchSize) {
+        this(capacity, batchSize, () -> {
+        });
+    }
+
+    /**
+     * {@code afterBatch} runs on the writer thread once a batch has been
+     * applied and before it is acknowledged; if it fails, every command of
+     * the batch fails with its exception.
+     */
+    public WritePipeline(int capacity, int batchSize, Runnable afterBatch) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Invalid write pipeline size: capacity=" + capacity + ", batchSize=" + batchSize);
+        }
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1) << 1);
+        this.commands = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.batchSize = batchSize;
+        this.afterBatch = afterBatch;
+        this.writer = Thread.ofPlatform().name("memorydb-writer").daemon().unstarted(this::drain);
+        writer.start();
+    }
+
+    public <R> R execute(Supplier<R> command) {
+        if (Thread.currentThread() == writer) {
+            return command.get();
+        }
+        if (!running) {
+            throw new IllegalStateException("Write pipeline is closed");
+        }
+        Command<R> pending = new Command<>(command);
+        publish(pending);
+        LockSupport.unpark(writer);
+        if (!running) {
+            // The writer may have stopped draining before this command was
+            // published; once it is gone, nobody else will run it.
+            awaitWriterExit();
+            pending.result.completeExceptionally(new IllegalStateException("Write pipeline is closed"));
+        }
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitWriterExit() {
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(Command<?> command) {
+        long position = tail.getAndIncrement();
+        int slot = (int) position & mask;
+        while (sequences.get(slot) != position) {
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+        commands[slot] = command;
+        sequences.set(slot, position + 1);
+    }
+
+    private void drain() {
+        List<Command<?>> batch = new ArrayList<>(batchSize);
+        while (running || head != tail.get()) {
+            take(batch);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            batch.forEach(Command::apply);
+            Throwable batchFailure = finishBatch();
+            batch.forEach(command -> command.acknowledge(batchFailure));
+            batch.clear();
+        }
+    }
+
+    private Throwable finishBatch() {
+        try {
+            afterBatch.run();
+            return null;
+        } catch (Throwable e) {
+            log.error("Error completing write batch: {}", e.getMessage(), e);
+            return e;
+        }
+    }
+
+    private void take(List<Command<?>> batch) {
+        while (batch.size() < batchSize) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) {
+                return;
+            }
+            batch.add((Command<?>) commands[slot]);
+            commands[slot] = null;
+            sequences.set(slot, head + commands.length);
+            head++;
+        }
+    }
+
+    private static final class Command<R> {
+        private final Supplier<R> body;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private R value;
+        private Throwable failure;
+
+        Command(Supplier<R> body) {
+            this.body = body;
+        }
+
+        void apply() {
+            try {
+                value = body.get();
+            } catch (Throwable e) {
+                log.debug("Write command failed: {}", e.getMessage());
+                failure = e;
+            }
+        }
+
+        void acknowledge(Throwable batchFailure) {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else if (batchFailure != null) {
+                result.completeExceptionally(batchFailure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+}
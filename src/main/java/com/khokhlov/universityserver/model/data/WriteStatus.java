@@ -0,0 +1,11 @@
+package com.khokhlov.universityserver.model.data;
+
+/**
+ * Outcome of a conditional {@link IndexedTable} write.
+ */
+public enum WriteStatus {
+    APPLIED,
+    NOT_FOUND,
+    VERSION_CONFLICT,
+    UNIQUE_CONFLICT
+}
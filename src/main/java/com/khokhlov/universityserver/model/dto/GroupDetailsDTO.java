@@ -0,0 +1,16 @@
+package com.khokhlov.universityserver.model.dto;
+
+import com.khokhlov.universityserver.model.Student;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class GroupDetailsDTO {
+    private long id;
+    private long number;
+    private List<Student> students;
+    private long version;
+}
@@ -0,0 +1,27 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.MemoryDB;
+
+/**
+ * Receives the changes read back from a {@link WriteAheadLog}.
+ */
+interface ChangeSink {
+
+    <T> void put(DurableTable<T> table, long id, T row);
+
+    void remove(DurableTable<?> table, long id);
+
+    static ChangeSink into(MemoryDB db) {
+        return new ChangeSink() {
+            @Override
+            public <T> void put(DurableTable<T> table, long id, T row) {
+                table.of(db).restore(id, row);
+            }
+
+            @Override
+            public void remove(DurableTable<?> table, long id) {
+                table.of(db).remove(id);
+            }
+        };
+    }
+}
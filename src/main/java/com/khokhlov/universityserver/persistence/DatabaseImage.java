@@ -0,0 +1,29 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.IndexedTable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.TableSnapshot;
+
+import java.util.List;
+
+/**
+ * The {@link TableSnapshot}s and id high-water marks of every table of a
+ * {@link MemoryDB}, together with the first log segment whose changes they
+ * may not contain.
+ */
+record DatabaseImage(long firstLogSegment, List<TableImage<?>> tables) {
+
+    static DatabaseImage capture(MemoryDB db, long firstLogSegment) {
+        return new DatabaseImage(firstLogSegment, DurableTable.ALL.stream()
+                .<TableImage<?>>map(table -> TableImage.capture(db, table))
+                .toList());
+    }
+
+    record TableImage<T>(DurableTable<T> table, TableSnapshot<T> rows, long idHighWaterMark) {
+
+        static <T> TableImage<T> capture(MemoryDB db, DurableTable<T> table) {
+            IndexedTable<T> rows = table.of(db);
+            return new TableImage<>(table, rows.snapshot(), rows.idHighWaterMark());
+        }
+    }
+}
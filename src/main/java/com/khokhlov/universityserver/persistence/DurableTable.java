@@ -0,0 +1,38 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.IndexedTable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link MemoryDB} table as it is written to disk: a one-byte tag, the
+ * codec of its rows in the log and their fixed-width snapshot record.
+ */
+record DurableTable<T>(byte tag, String name, RowCodec<T> codec, RecordCodec<T> record,
+                       Function<MemoryDB, IndexedTable<T>> accessor) {
+
+    static final List<DurableTable<?>> ALL = List.of(
+            new DurableTable<>((byte) 0, "students", RowCodecs.STUDENT, RecordCodecs.STUDENT, MemoryDB::getStudents),
+            new DurableTable<>((byte) 1, "teachers", RowCodecs.TEACHER, RecordCodecs.TEACHER, MemoryDB::getTeachers),
+            new DurableTable<>((byte) 2, "groups", RowCodecs.GROUP, RecordCodecs.GROUP, MemoryDB::getGroups),
+            new DurableTable<>((byte) 3, "timetables", RowCodecs.TIMETABLE, RecordCodecs.TIMETABLE, MemoryDB::getTimetables));
+
+    static DurableTable<?> byTag(int tag) {
+        if (tag < 0 || tag >= ALL.size()) {
+            throw new IllegalArgumentException("Unknown table tag: " + tag);
+        }
+        return ALL.get(tag);
+    }
+
+    IndexedTable<T> of(MemoryDB db) {
+        return accessor.apply(db);
+    }
+
+    void replay(ChangeSink sink, long id, DataInput in) throws IOException {
+        sink.put(this, id, codec.read(id, in));
+    }
+}
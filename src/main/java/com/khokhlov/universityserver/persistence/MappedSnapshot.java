@@ -0,0 +1,145 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.MemoryDB;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static com.khokhlov.universityserver.persistence.SnapshotFile.ENTRY_BYTES;
+import static com.khokhlov.universityserver.persistence.SnapshotFile.FORMAT;
+import static com.khokhlov.universityserver.persistence.SnapshotFile.HEADER_BYTES;
+import static com.khokhlov.universityserver.persistence.SnapshotFile.MAGIC;
+
+/**
+ * A {@link SnapshotFile} mapped into memory with {@link FileChannel#map}.
+ * Opening it reads and checks only the header; rows are decoded straight
+ * from the mapped pages when they are looked up or loaded, and the
+ * per-table checksums are verified by {@link #verify()}.
+ */
+public final class MappedSnapshot {
+
+    private final Path file;
+    private final long firstLogSegment;
+    private final List<MappedTable<?>> tables;
+
+    private MappedSnapshot(Path file, long firstLogSegment, List<MappedTable<?>> tables) {
+        this.file = file;
+        this.firstLogSegment = firstLogSegment;
+        this.tables = tables;
+    }
+
+    static MappedSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT) {
+                throw new IOException("Not a snapshot file");
+            }
+            long firstLogSegment = header.getLong(8);
+            int tableCount = header.getInt(16);
+            ByteBuffer entries = ByteBuffer.allocate(tableCount * ENTRY_BYTES + Integer.BYTES);
+            readFully(channel, entries, HEADER_BYTES);
+            CRC32C crc = new CRC32C();
+            crc.update(header.clear());
+            crc.update(entries.slice(0, tableCount * ENTRY_BYTES));
+            if ((int) crc.getValue() != entries.getInt(tableCount * ENTRY_BYTES)) {
+                throw new IOException("Snapshot header checksum mismatch");
+            }
+            List<MappedTable<?>> tables = new ArrayList<>(tableCount);
+            for (int i = 0; i < tableCount; i++) {
+                tables.add(mapTable(channel, entries, i * ENTRY_BYTES));
+            }
+            return new MappedSnapshot(file, firstLogSegment, List.copyOf(tables));
+        }
+    }
+
+    public long getFirstLogSegment() {
+        return firstLogSegment;
+    }
+
+    public long size() {
+        return tables.stream().mapToLong(MappedTable::size).sum();
+    }
+
+    /**
+     * Fails if any table does not match its checksum.
+     */
+    public void verify() {
+        for (MappedTable<?> table : tables) {
+            if (!table.isValid()) {
+                throw new UncheckedIOException(new IOException(
+                        "Snapshot " + file + " is corrupt: " + table.table().name() + " checksum mismatch"));
+            }
+        }
+    }
+
+    /**
+     * Verifies the snapshot and loads every row into an empty {@code db}.
+     */
+    public void restoreInto(MemoryDB db) {
+        verify();
+        tables.forEach(table -> restoreInto(db, table));
+    }
+
+    /**
+     * Loads every row that {@code tail} neither holds nor removed; the
+     * snapshot has been verified.
+     */
+    void restoreInto(MemoryDB db, TailChanges tail) {
+        tables.forEach(table -> restoreInto(db, table, tail));
+    }
+
+    List<MappedTable<?>> tables() {
+        return tables;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> MappedTable<T> table(DurableTable<T> table) {
+        for (MappedTable<?> mapped : tables) {
+            if (mapped.table() == table) {
+                return (MappedTable<T>) mapped;
+            }
+        }
+        return null;
+    }
+
+    private static <T> void restoreInto(MemoryDB db, MappedTable<T> table) {
+        table.restoreInto(table.table().of(db), id -> false, () -> false);
+    }
+
+    private static <T> void restoreInto(MemoryDB db, MappedTable<T> table, TailChanges tail) {
+        table.restoreInto(table.table().of(db), tail.removed(table.table())::contains, () -> false);
+    }
+
+    private static MappedTable<?> mapTable(FileChannel channel, ByteBuffer entries, int at) throws IOException {
+        DurableTable<?> table = DurableTable.byTag(entries.getInt(at));
+        int rowCount = entries.getInt(at + 4);
+        long idHighWaterMark = entries.getLong(at + 8);
+        long recordsOffset = entries.getLong(at + 16);
+        long heapOffset = entries.getLong(at + 24);
+        long heapLength = entries.getLong(at + 32);
+        int checksum = entries.getInt(at + 40);
+        if (entries.getInt(at + 44) != MappedTable.stride(table)) {
+            throw new IOException("Snapshot record layout of " + table.name() + " does not match");
+        }
+        ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, recordsOffset, heapOffset - recordsOffset);
+        ByteBuffer heap = channel.map(FileChannel.MapMode.READ_ONLY, heapOffset, heapLength);
+        return new MappedTable<>(table, records, heap, rowCount, idHighWaterMark, checksum);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Snapshot file is truncated");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,111 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.Versioned;
+import com.khokhlov.universityserver.model.data.IndexedTable;
+
+import java.nio.ByteBuffer;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
+import java.util.zip.CRC32C;
+
+/**
+ * One table of a {@link MappedSnapshot}: {@code [long id][long version]}
+ * followed by the {@link RecordCodec} fields, one fixed-width record per row
+ * in id order, so a row is found by binary search and decoded in place.
+ */
+final class MappedTable<T> {
+
+    private static final int HEADER_BYTES = Long.BYTES * 2;
+
+    private final DurableTable<T> table;
+    private final ByteBuffer records;
+    private final ByteBuffer heap;
+    private final int rowCount;
+    private final int stride;
+    private final long idHighWaterMark;
+    private final int checksum;
+
+    MappedTable(DurableTable<T> table, ByteBuffer records, ByteBuffer heap, int rowCount, long idHighWaterMark, int checksum) {
+        this.table = table;
+        this.records = records;
+        this.heap = heap;
+        this.rowCount = rowCount;
+        this.stride = stride(table);
+        this.idHighWaterMark = idHighWaterMark;
+        this.checksum = checksum;
+        if ((long) rowCount * stride != records.capacity()) {
+            throw new IllegalArgumentException("Snapshot of " + table.name() + " has " + records.capacity()
+                    + " bytes of records for " + rowCount + " rows");
+        }
+    }
+
+    static int stride(DurableTable<?> table) {
+        return HEADER_BYTES + table.record().width();
+    }
+
+    DurableTable<T> table() {
+        return table;
+    }
+
+    int size() {
+        return rowCount;
+    }
+
+    long idHighWaterMark() {
+        return idHighWaterMark;
+    }
+
+    T get(long id) {
+        int low = 0;
+        int high = rowCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = records.getLong(middle * stride);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return read(middle);
+            }
+        }
+        return null;
+    }
+
+    boolean isValid() {
+        CRC32C crc = new CRC32C();
+        crc.update(records.duplicate().clear());
+        crc.update(heap.duplicate().clear());
+        return (int) crc.getValue() == checksum;
+    }
+
+    /**
+     * Restores every row whose id {@code skip} rejects and that is not in
+     * {@code target} yet; stops early once {@code cancelled} says so.
+     *
+     * @return the number of rows restored
+     */
+    int restoreInto(IndexedTable<T> target, LongPredicate skip, BooleanSupplier cancelled) {
+        int restored = 0;
+        for (int index = 0; index < rowCount; index++) {
+            if ((index & 0xFFF) == 0 && cancelled.getAsBoolean()) {
+                break;
+            }
+            long id = records.getLong(index * stride);
+            if (!skip.test(id) && target.restoreIfAbsent(id, read(index))) {
+                restored++;
+            }
+        }
+        target.setIdFloor(idHighWaterMark);
+        return restored;
+    }
+
+    private T read(int index) {
+        int offset = index * stride;
+        T row = table.record().read(records.getLong(offset), records, offset + HEADER_BYTES, heap);
+        if (row instanceof Versioned versioned) {
+            versioned.setVersion(records.getLong(offset + Long.BYTES));
+        }
+        return row;
+    }
+}
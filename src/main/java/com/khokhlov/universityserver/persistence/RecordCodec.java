@@ -0,0 +1,26 @@
+package com.khokhlov.universityserver.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width form of a table row for {@link MappedSnapshot}, without its id
+ * and version. Values of variable length go to the table's {@link RecordHeap}
+ * and the record keeps only their offset and length.
+ */
+interface RecordCodec<T> {
+
+    /**
+     * Bytes every record takes.
+     */
+    int width();
+
+    /**
+     * Writes exactly {@link #width()} bytes at the position of {@code record}.
+     */
+    void write(ByteBuffer record, RecordHeap heap, T row);
+
+    /**
+     * Reads the record that starts at {@code offset} of {@code records}.
+     */
+    T read(long id, ByteBuffer records, int offset, ByteBuffer heap);
+}
@@ -0,0 +1,122 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.model.Timetable;
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static com.khokhlov.universityserver.persistence.RecordHeap.REFERENCE_BYTES;
+
+@UtilityClass
+class RecordCodecs {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    static final RecordCodec<Student> STUDENT = new RecordCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES + REFERENCE_BYTES * 3;
+        }
+
+        @Override
+        public void write(ByteBuffer record, RecordHeap heap, Student student) {
+            record.putLong(student.getBirthDate() == null ? NONE : student.getBirthDate().toEpochDay());
+            heap.putString(record, student.getName());
+            heap.putString(record, student.getSurname());
+            heap.putString(record, student.getPhoneNumber());
+        }
+
+        @Override
+        public Student read(long id, ByteBuffer records, int offset, ByteBuffer heap) {
+            long birthDay = records.getLong(offset);
+            int strings = offset + Long.BYTES;
+            return new Student(id,
+                    RecordHeap.getString(records, strings, heap),
+                    RecordHeap.getString(records, strings + REFERENCE_BYTES, heap),
+                    birthDay == NONE ? null : LocalDate.ofEpochDay(birthDay),
+                    RecordHeap.getString(records, strings + REFERENCE_BYTES * 2, heap));
+        }
+    };
+
+    static final RecordCodec<Teacher> TEACHER = new RecordCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES + Integer.BYTES + REFERENCE_BYTES * 2;
+        }
+
+        @Override
+        public void write(ByteBuffer record, RecordHeap heap, Teacher teacher) {
+            record.putLong(teacher.getExperience() == null ? NONE : teacher.getExperience());
+            record.putInt(teacher.getSubjectMask());
+            heap.putString(record, teacher.getName());
+            heap.putString(record, teacher.getSurname());
+        }
+
+        @Override
+        public Teacher read(long id, ByteBuffer records, int offset, ByteBuffer heap) {
+            long experience = records.getLong(offset);
+            int strings = offset + Long.BYTES + Integer.BYTES;
+            return new Teacher(id,
+                    RecordHeap.getString(records, strings, heap),
+                    RecordHeap.getString(records, strings + REFERENCE_BYTES, heap),
+                    experience == NONE ? null : experience,
+                    Subject.fromMask(records.getInt(offset + Long.BYTES)));
+        }
+    };
+
+    static final RecordCodec<Group> GROUP = new RecordCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES + REFERENCE_BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer record, RecordHeap heap, Group group) {
+            record.putLong(group.getNumber());
+            heap.putLongs(record, group.getStudentIds());
+        }
+
+        @Override
+        public Group read(long id, ByteBuffer records, int offset, ByteBuffer heap) {
+            return new Group(id, records.getLong(offset), RecordHeap.getLongs(records, offset + Long.BYTES, heap));
+        }
+    };
+
+    static final RecordCodec<Timetable> TIMETABLE = new RecordCodec<>() {
+        @Override
+        public int width() {
+            return Long.BYTES * 4 + Integer.BYTES * 2;
+        }
+
+        @Override
+        public void write(ByteBuffer record, RecordHeap heap, Timetable timetable) {
+            record.putLong(timetable.getGroupId());
+            record.putLong(timetable.getTeacherId());
+            putDateTime(record, timetable.getStartDateTime());
+            putDateTime(record, timetable.getEndDateTime());
+        }
+
+        @Override
+        public Timetable read(long id, ByteBuffer records, int offset, ByteBuffer heap) {
+            return new Timetable(id, records.getLong(offset), records.getLong(offset + Long.BYTES),
+                    getDateTime(records, offset + Long.BYTES * 2),
+                    getDateTime(records, offset + Long.BYTES * 3 + Integer.BYTES));
+        }
+    };
+
+    private static void putDateTime(ByteBuffer record, LocalDateTime value) {
+        record.putLong(value.toEpochSecond(ZoneOffset.UTC));
+        record.putInt(value.getNano());
+    }
+
+    private static LocalDateTime getDateTime(ByteBuffer records, int at) {
+        return LocalDateTime.ofEpochSecond(records.getLong(at), records.getInt(at + Long.BYTES), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,75 @@
+package com.khokhlov.universityserver.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Variable-length values of one table in a {@link MappedSnapshot}. A record
+ * refers to a value by {@code [int offset][int length]}; a length of
+ * {@code -1} stands for {@code null}.
+ */
+final class RecordHeap {
+
+    static final int REFERENCE_BYTES = Integer.BYTES * 2;
+
+    private byte[] bytes = new byte[4096];
+    private int size;
+
+    void putString(ByteBuffer record, String value) {
+        if (value == null) {
+            record.putInt(0).putInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        int offset = append(utf8.length);
+        System.arraycopy(utf8, 0, bytes, offset, utf8.length);
+        record.putInt(offset).putInt(utf8.length);
+    }
+
+    void putLongs(ByteBuffer record, long[] values) {
+        int offset = append(values.length * Long.BYTES);
+        record.putInt(offset).putInt(values.length);
+        ByteBuffer.wrap(bytes, offset, values.length * Long.BYTES).asLongBuffer().put(values);
+    }
+
+    static String getString(ByteBuffer records, int at, ByteBuffer heap) {
+        int length = records.getInt(at + Integer.BYTES);
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        heap.get(records.getInt(at), utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    static long[] getLongs(ByteBuffer records, int at, ByteBuffer heap) {
+        long[] values = new long[records.getInt(at + Integer.BYTES)];
+        heap.slice(records.getInt(at), values.length * Long.BYTES).asLongBuffer().get(values);
+        return values;
+    }
+
+    int size() {
+        return size;
+    }
+
+    ByteBuffer buffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private int append(int length) {
+        int offset = size;
+        if (length > Integer.MAX_VALUE - 8 - offset) {
+            throw new IllegalStateException("Snapshot heap of a table exceeds 2 GB");
+        }
+        if (offset + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(offset + length, bytes.length * 2L)));
+        }
+        size += length;
+        return offset;
+    }
+}
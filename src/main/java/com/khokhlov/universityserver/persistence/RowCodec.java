@@ -0,0 +1,15 @@
+package com.khokhlov.universityserver.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary form of one table row, without its id.
+ */
+public interface RowCodec<T> {
+
+    void write(DataOutput out, T row) throws IOException;
+
+    T read(long id, DataInput in) throws IOException;
+}
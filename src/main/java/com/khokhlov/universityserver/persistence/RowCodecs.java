@@ -0,0 +1,133 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.model.Timetable;
+import lombok.experimental.UtilityClass;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+@UtilityClass
+public class RowCodecs {
+
+    public static final RowCodec<Student> STUDENT = new RowCodec<>() {
+        @Override
+        public void write(DataOutput out, Student student) throws IOException {
+            writeString(out, student.getName());
+            writeString(out, student.getSurname());
+            out.writeLong(student.getBirthDate() == null ? Long.MIN_VALUE : student.getBirthDate().toEpochDay());
+            writeString(out, student.getPhoneNumber());
+            out.writeLong(student.getVersion());
+        }
+
+        @Override
+        public Student read(long id, DataInput in) throws IOException {
+            String name = readString(in);
+            String surname = readString(in);
+            long birthDay = in.readLong();
+            Student student = new Student(id, name, surname,
+                    birthDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(birthDay),
+                    readString(in));
+            student.setVersion(in.readLong());
+            return student;
+        }
+    };
+
+    public static final RowCodec<Teacher> TEACHER = new RowCodec<>() {
+        @Override
+        public void write(DataOutput out, Teacher teacher) throws IOException {
+            writeString(out, teacher.getName());
+            writeString(out, teacher.getSurname());
+            out.writeBoolean(teacher.getExperience() != null);
+            out.writeLong(teacher.getExperience() == null ? 0L : teacher.getExperience());
+            out.writeInt(teacher.getSubjectMask());
+            out.writeLong(teacher.getVersion());
+        }
+
+        @Override
+        public Teacher read(long id, DataInput in) throws IOException {
+            String name = readString(in);
+            String surname = readString(in);
+            boolean hasExperience = in.readBoolean();
+            long experience = in.readLong();
+            Teacher teacher = new Teacher(id, name, surname, hasExperience ? experience : null,
+                    Subject.fromMask(in.readInt()));
+            teacher.setVersion(in.readLong());
+            return teacher;
+        }
+    };
+
+    public static final RowCodec<Group> GROUP = new RowCodec<>() {
+        @Override
+        public void write(DataOutput out, Group group) throws IOException {
+            out.writeLong(group.getNumber());
+            long[] studentIds = group.getStudentIds();
+            out.writeInt(studentIds.length);
+            long previous = 0;
+            for (long studentId : studentIds) {
+                out.writeLong(studentId - previous);
+                previous = studentId;
+            }
+            out.writeLong(group.getVersion());
+        }
+
+        @Override
+        public Group read(long id, DataInput in) throws IOException {
+            long number = in.readLong();
+            long[] studentIds = new long[in.readInt()];
+            long previous = 0;
+            for (int i = 0; i < studentIds.length; i++) {
+                previous += in.readLong();
+                studentIds[i] = previous;
+            }
+            Group group = new Group(id, number, studentIds);
+            group.setVersion(in.readLong());
+            return group;
+        }
+    };
+
+    public static final RowCodec<Timetable> TIMETABLE = new RowCodec<>() {
+        @Override
+        public void write(DataOutput out, Timetable timetable) throws IOException {
+            out.writeLong(timetable.getGroupId());
+            out.writeLong(timetable.getTeacherId());
+            writeDateTime(out, timetable.getStartDateTime());
+            writeDateTime(out, timetable.getEndDateTime());
+            out.writeLong(timetable.getVersion());
+        }
+
+        @Override
+        public Timetable read(long id, DataInput in) throws IOException {
+            Timetable timetable = new Timetable(id, in.readLong(), in.readLong(), readDateTime(in), readDateTime(in));
+            timetable.setVersion(in.readLong());
+            return timetable;
+        }
+    };
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInput in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,164 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.Versioned;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary image of a whole {@link MemoryDB}, laid out to be read through
+ * {@link MappedSnapshot}. The header holds the first log segment to replay
+ * on top of the image and, per table, its tag, row count, id high-water
+ * mark, where its records and heap start, their CRC-32C and the record
+ * width, followed by a CRC-32C of the header itself. Each table is a block
+ * of fixed-width records in id order followed by its {@link RecordHeap}.
+ * <p>
+ * A new image is written next to the old one and moved over it, so the file
+ * always holds a complete image.
+ */
+@Slf4j
+public class SnapshotFile {
+
+    static final int MAGIC = 0x55444253;
+    static final int FORMAT = 2;
+    static final int HEADER_BYTES = 20;
+    static final int ENTRY_BYTES = 48;
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final Path file;
+
+    public SnapshotFile(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Maps the current image, or returns {@code null} when there is none yet.
+     */
+    public MappedSnapshot map() {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return MappedSnapshot.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error mapping snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Loads the image into an empty {@code db}; to bring in the log written
+     * since as well, use {@link WriteAheadLog#replay(MemoryDB, SnapshotFile)}.
+     *
+     * @return the first log segment to replay on top of the image, or
+     * {@code 0} when there is no image yet
+     */
+    public long load(MemoryDB db) {
+        MappedSnapshot snapshot = map();
+        if (snapshot == null) {
+            return 0L;
+        }
+        snapshot.restoreInto(db);
+        log.info("Loaded {} rows from snapshot {}", snapshot.size(), file);
+        return snapshot.getFirstLogSegment();
+    }
+
+    void write(DatabaseImage image) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int tableCount = image.tables().size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + tableCount * ENTRY_BYTES + Integer.BYTES);
+        header.putInt(MAGIC).putInt(FORMAT).putLong(image.firstLogSegment()).putInt(tableCount);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(header.capacity());
+            RecordHeap heap = new RecordHeap();
+            for (DatabaseImage.TableImage<?> table : image.tables()) {
+                writeTable(channel, header, heap, table);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(header.flip());
+            header.limit(header.capacity()).putInt((int) crc.getValue()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing snapshot " + tmp, e);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error replacing snapshot " + file, e);
+        }
+    }
+
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory {} cannot be synced: {}", directory, e.getMessage());
+        }
+    }
+
+    private static <T> void writeTable(FileChannel channel, ByteBuffer header, RecordHeap heap,
+                                       DatabaseImage.TableImage<T> table) throws IOException {
+        RecordCodec<T> codec = table.table().record();
+        int stride = MappedTable.stride(table.table());
+        long[] ids = new long[table.rows().size()];
+        int[] count = {0};
+        table.rows().forEach((id, row) -> ids[count[0]++] = id);
+        Arrays.sort(ids);
+        if ((long) ids.length * stride > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot of " + table.table().name() + " exceeds 2 GB of records");
+        }
+
+        CRC32C crc = new CRC32C();
+        long recordsOffset = channel.position();
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES / stride * stride);
+        heap.clear();
+        for (long id : ids) {
+            T row = table.rows().get(id);
+            if (!chunk.hasRemaining()) {
+                write(channel, chunk, crc);
+            }
+            chunk.putLong(id);
+            chunk.putLong(row instanceof Versioned versioned ? versioned.getVersion() : 0L);
+            codec.write(chunk, heap, row);
+        }
+        write(channel, chunk, crc);
+        long heapOffset = channel.position();
+        write(channel, heap.buffer().position(heap.size()), crc);
+
+        header.putInt(table.table().tag())
+                .putInt(ids.length)
+                .putLong(table.idHighWaterMark())
+                .putLong(recordsOffset)
+                .putLong(heapOffset)
+                .putLong(heap.size())
+                .putInt((int) crc.getValue())
+                .putInt(stride);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,114 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.IndexedTable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a {@link MemoryDB} from a {@link MappedSnapshot} without waiting
+ * for it to be loaded. {@link #start} replays the log tail into the heap
+ * tables and makes them read through to the mapped snapshot for every other
+ * id, so lookups by id are served at once. A background thread then checks
+ * the snapshot, copies its rows into the tables and builds their indexes;
+ * only after that does it attach the log and report the database ready.
+ * Everything other than lookups by id has to wait for {@link #isReady()}.
+ */
+@Slf4j
+public class SnapshotWarmup implements AutoCloseable {
+
+    private final MemoryDB db;
+    private final MappedSnapshot snapshot;
+    private final WriteAheadLog writeAheadLog;
+    private final TailChanges tail;
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private volatile boolean cancelled;
+    private volatile RuntimeException failure;
+    private Thread loader;
+
+    public SnapshotWarmup(MemoryDB db, MappedSnapshot snapshot, WriteAheadLog writeAheadLog) {
+        this.db = db;
+        this.snapshot = snapshot;
+        this.writeAheadLog = writeAheadLog;
+        this.tail = new TailChanges(db);
+    }
+
+    /**
+     * Replays the log tail, serves lookups by id from the snapshot and starts
+     * loading the rest; {@code onReady} runs on the loader thread right
+     * before the database is reported ready.
+     */
+    public void start(Runnable onReady) {
+        long begin = System.nanoTime();
+        snapshot.tables().forEach(table -> table.table().of(db).setIdFloor(table.idHighWaterMark()));
+        long replayed = writeAheadLog.replay(tail, snapshot.getFirstLogSegment());
+        snapshot.tables().forEach(this::readThrough);
+        log.info("Serving lookups from snapshot after {} ms ({} changes replayed)",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin), replayed);
+        loader = Thread.ofPlatform().name("snapshot-warmup").daemon().start(() -> load(onReady));
+    }
+
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    /**
+     * Blocks until the database is ready; fails if loading it failed.
+     */
+    public void awaitReady() throws InterruptedException {
+        while (!ready.await(100, TimeUnit.MILLISECONDS)) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelled = true;
+        if (loader == null) {
+            return;
+        }
+        try {
+            loader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> void readThrough(MappedTable<T> mapped) {
+        Set<Long> removed = tail.removed(mapped.table());
+        mapped.table().of(db).setReadThrough(id -> removed.contains(id) ? null : mapped.get(id));
+    }
+
+    private void load(Runnable onReady) {
+        long begin = System.nanoTime();
+        try {
+            snapshot.verify();
+            long rows = 0;
+            for (MappedTable<?> table : snapshot.tables()) {
+                rows += restore(table);
+            }
+            if (cancelled) {
+                return;
+            }
+            DurableTable.ALL.forEach(table -> table.of(db).setReadThrough(null));
+            writeAheadLog.attach(db);
+            onReady.run();
+            ready.countDown();
+            log.info("Loaded {} rows from snapshot in {} ms, database is ready", rows,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (RuntimeException e) {
+            log.error("Error loading snapshot: {}", e.getMessage(), e);
+            failure = e;
+        }
+    }
+
+    private <T> int restore(MappedTable<T> mapped) {
+        IndexedTable<T> table = mapped.table().of(db);
+        return mapped.restoreInto(table, tail.removed(mapped.table())::contains, () -> cancelled);
+    }
+}
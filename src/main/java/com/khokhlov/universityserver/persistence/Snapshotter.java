@@ -0,0 +1,59 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkpoints a {@link MemoryDB} into a {@link SnapshotFile} in the
+ * background every {@code intervalSeconds}, and once more on close, so a
+ * restart only has to replay the log written since the last snapshot.
+ */
+@Slf4j
+public class Snapshotter implements AutoCloseable {
+
+    private final MemoryDB db;
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotFile snapshotFile;
+    private final ScheduledExecutorService scheduler;
+
+    public Snapshotter(MemoryDB db, WriteAheadLog writeAheadLog, SnapshotFile snapshotFile, long intervalSeconds) {
+        this.db = db;
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotFile = snapshotFile;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("memorydb-snapshotter").daemon().factory());
+        if (intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public synchronized void snapshot() {
+        long start = System.nanoTime();
+        writeAheadLog.checkpoint(db, snapshotFile);
+        log.info("Wrote snapshot {} in {} ms", snapshotFile.getFile(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotQuietly();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Error writing snapshot {}: {}", snapshotFile.getFile(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.MemoryDB;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies the log written since a snapshot to a {@link MemoryDB} that does
+ * not hold the snapshot's rows yet, and remembers which ids the tail removed
+ * so that they are not loaded from the snapshot afterwards.
+ */
+final class TailChanges implements ChangeSink {
+
+    private final MemoryDB db;
+    private final Map<DurableTable<?>, Set<Long>> removed = new ConcurrentHashMap<>();
+
+    TailChanges(MemoryDB db) {
+        this.db = db;
+        DurableTable.ALL.forEach(table -> removed.put(table, ConcurrentHashMap.newKeySet()));
+    }
+
+    @Override
+    public <T> void put(DurableTable<T> table, long id, T row) {
+        removed.get(table).remove(id);
+        table.of(db).restore(id, row);
+    }
+
+    @Override
+    public void remove(DurableTable<?> table, long id) {
+        removed.get(table).add(id);
+        table.of(db).remove(id);
+    }
+
+    Set<Long> removed(DurableTable<?> table) {
+        return removed.get(table);
+    }
+}
@@ -0,0 +1,433 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.data.ChangeListener;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of every row change made to a {@link MemoryDB}. Each
+ * change is one record: {@code [int length][int crc32c][payload]}, where the
+ * payload is the table tag, the operation, the row id and, for a put, the
+ * row in its {@link RowCodec} form.
+ * <p>
+ * Changes are buffered as they commit and a single flusher thread writes and
+ * fsyncs them in groups: it waits up to {@code groupCommitMicros} after the
+ * first pending record so that concurrent writes share one fsync. Writers
+ * block in {@link #awaitDurable()} until their own last change is on disk.
+ * A torn or corrupt tail left by a crash is cut off by {@link #replay}.
+ * <p>
+ * The log is split into numbered segment files {@code <file>.<n>}.
+ * {@link #checkpoint} starts a new segment, writes a {@link SnapshotFile}
+ * that covers every older one and then deletes them.
+ */
+@Slf4j
+public class WriteAheadLog implements AutoCloseable {
+
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path file;
+    private final long groupCommitNanos;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final Thread flusher;
+    private FileChannel channel;
+    private long segment;
+    private long appendedLsn;
+    private volatile long durableLsn;
+    private IOException failure;
+    private boolean closed;
+    private boolean stopped;
+
+    public WriteAheadLog(Path file, long groupCommitMicros) {
+        this.file = file;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            List<Long> segments = segments();
+            openSegment(segments.isEmpty() ? 1L : segments.get(segments.size() - 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening write-ahead log " + file, e);
+        }
+        this.flusher = Thread.ofPlatform().name("wal-flusher").daemon().unstarted(this::flush);
+        flusher.start();
+    }
+
+    public long replay(MemoryDB db) {
+        return replay(ChangeSink.into(db), 0L);
+    }
+
+    /**
+     * Restores an empty {@code db} from {@code snapshotFile} and the log
+     * written since. The tail is replayed first and the snapshot only fills
+     * in the rows it did not touch: a snapshot taken while writes go on can
+     * already hold some of the tail's changes, and replaying those on top of
+     * it would walk unique keys through states that never existed together.
+     *
+     * @return the number of records applied
+     */
+    public long replay(MemoryDB db, SnapshotFile snapshotFile) {
+        MappedSnapshot snapshot = snapshotFile.map();
+        if (snapshot == null) {
+            return replay(db);
+        }
+        snapshot.verify();
+        TailChanges tail = new TailChanges(db);
+        long applied = replay(tail, snapshot.getFirstLogSegment());
+        snapshot.restoreInto(db, tail);
+        return applied;
+    }
+
+    /**
+     * Applies every intact record of segment {@code firstSegment} and later
+     * to {@code sink}, deletes older segments and truncates the last one after
+     * its last intact record. Must run before {@link #attach}.
+     *
+     * @return the number of records applied
+     */
+
+    long replay(ChangeSink sink, long firstSegment) {
+        long applied = 0;
+        try {
+            if (segment < firstSegment) {
+                openSegment(firstSegment);
+            }
+            for (long number : segments()) {
+                if (number < firstSegment) {
+                    Files.delete(segmentFile(number));
+                } else if (number == segment) {
+                    applied += replay(sink, channel, true);
+                } else {
+                    try (FileChannel older = FileChannel.open(segmentFile(number), StandardOpenOption.READ)) {
+                        applied += replay(sink, older, false);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error replaying write-ahead log " + file, e);
+        }
+        log.info("Replayed {} changes from write-ahead log {}", applied, file);
+        return applied;
+    }
+
+    /**
+     * Writes a snapshot of {@code db} and drops the log segments it covers.
+     * Writes go on meanwhile: changes that may be missing from the snapshot
+     * are all in the new segment, which is replayed on top of it.
+     */
+    public void checkpoint(MemoryDB db, SnapshotFile snapshotFile) {
+        long retired;
+        DatabaseImage image;
+        writeLock.lock();
+        try {
+            flushPending();
+            retired = segment;
+            openSegment(retired + 1);
+            image = DatabaseImage.capture(db, retired + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error switching write-ahead log segment of " + file, e);
+        } finally {
+            writeLock.unlock();
+        }
+        snapshotFile.write(image);
+        try {
+            for (long number : segments()) {
+                if (number <= retired) {
+                    Files.delete(segmentFile(number));
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error deleting old write-ahead log segments of {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts logging every change made to {@code db} and makes its writes
+     * wait for durability before they return.
+     */
+    public void attach(MemoryDB db) {
+        DurableTable.ALL.forEach(table -> listen(db, table));
+        db.setCommitBarrier(this::awaitDurable);
+    }
+
+    /**
+     * Blocks until every change appended by the calling thread is on disk.
+     */
+    public void awaitDurable() {
+        long lsn = lastAppended.get()[0];
+        if (lsn <= durableLsn) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableLsn < lsn) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log " + file + " is not writable", failure);
+                }
+                if (stopped) {
+                    throw new IllegalStateException("Write-ahead log " + file + " is closed");
+                }
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error("Error closing write-ahead log {}: {}", file, e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private <T> void listen(MemoryDB db, DurableTable<T> table) {
+        table.of(db).addChangeListener(new ChangeListener<>() {
+            @Override
+            public void onPut(long id, T row) {
+                append(encode(table, PUT, id, row));
+            }
+
+            @Override
+            public void onRemove(long id) {
+                append(encode(table, REMOVE, id, null));
+            }
+        });
+    }
+
+    private static <T> byte[] encode(DurableTable<T> table, byte operation, long id, T row) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(table.tag());
+            out.writeByte(operation);
+            out.writeLong(id);
+            if (row != null) {
+                table.codec().write(out, row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void append(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        lock.lock();
+        try {
+            pendingOut.writeInt(payload.length);
+            pendingOut.writeInt((int) crc.getValue());
+            pendingOut.write(payload);
+            lastAppended.get()[0] = ++appendedLsn;
+            appended.signal();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.size() == 0) {
+                    stopped = true;
+                    synced.signalAll();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (groupCommitNanos > 0) {
+                LockSupport.parkNanos(this, groupCommitNanos);
+            }
+            writeLock.lock();
+            try {
+                flushPending();
+            } catch (IOException e) {
+                log.error("Error writing write-ahead log {}: {}", file, e.getMessage(), e);
+                return;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes and fsyncs every pending record to the current segment; the
+     * caller holds {@code writeLock}. A failure is final: every writer still
+     * waiting, and every later one, gets it.
+     */
+    private void flushPending() throws IOException {
+        byte[] batch;
+        long batchLsn;
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            batch = pending.toByteArray();
+            pending.reset();
+            batchLsn = appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+        IOException error = null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        lock.lock();
+        try {
+            if (error == null) {
+                durableLsn = batchLsn;
+            } else {
+                failure = error;
+                stopped = true;
+            }
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        FileChannel next = FileChannel.open(segmentFile(number), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        next.position(next.size());
+        if (channel != null) {
+            channel.close();
+        }
+        channel = next;
+        segment = number;
+        SnapshotFile.syncDirectory(segmentFile(number).toAbsolutePath().getParent());
+    }
+
+    Path segmentFile(long number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    private List<Long> segments() throws IOException {
+        String prefix = file.getFileName() + ".";
+        try (Stream<Path> files = Files.list(file.toAbsolutePath().getParent())) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.length() > prefix.length()
+                            && name.substring(prefix.length()).chars().allMatch(Character::isDigit))
+                    .map(name -> Long.parseLong(name.substring(prefix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long replay(ChangeSink sink, FileChannel segmentChannel, boolean last) throws IOException {
+        long applied = 0;
+        long validBytes = 0;
+        segmentChannel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(segmentChannel), 1 << 16));
+        byte[] payload;
+        while ((payload = readRecord(in)) != null) {
+            apply(sink, payload);
+            validBytes += Integer.BYTES * 2 + payload.length;
+            applied++;
+        }
+        if (validBytes < segmentChannel.size()) {
+            if (!last) {
+                throw new IOException("Corrupt record in the middle of the log at byte " + validBytes);
+            }
+            log.warn("Truncating write-ahead log {} from {} to {} bytes", file, segmentChannel.size(), validBytes);
+            segmentChannel.truncate(validBytes);
+            segmentChannel.force(true);
+        }
+        segmentChannel.position(validBytes);
+        return applied;
+    }
+
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void apply(ChangeSink sink, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        DurableTable<?> table = DurableTable.byTag(in.readByte());
+        byte operation = in.readByte();
+        long id = in.readLong();
+        if (operation == PUT) {
+            table.replay(sink, id, in);
+        } else if (operation == REMOVE) {
+            sink.remove(table, id);
+        } else {
+            throw new IOException("Unknown write-ahead log operation: " + operation);
+        }
+    }
+}
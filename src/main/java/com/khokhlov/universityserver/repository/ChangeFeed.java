@@ -0,0 +1,164 @@
+package com.khokhlov.universityserver.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.khokhlov.universityserver.model.data.ChangeListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sequenced log of the latest committed row changes of all four entities,
+ * for clients that keep a copy of the data and only want what changed.
+ * <p>
+ * Every change gets the next sequence number. Only the last
+ * {@code retention} changes are kept; a client asking for changes after a
+ * sequence that is no longer covered is told to resync instead. Sequences
+ * start at the startup time in seconds times a million, so as long as a run
+ * averages fewer than a million changes a second they keep growing across
+ * restarts, and a sequence from before a restart always asks for a resync.
+ */
+public class ChangeFeed {
+
+    public static final String STUDENT = "student";
+    public static final String TEACHER = "teacher";
+    public static final String GROUP = "group";
+    public static final String TIMETABLE = "timetable";
+
+    public static final String PUT = "put";
+    public static final String DELETE = "delete";
+
+    private final Change[] changes;
+    private final long firstSequence;
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<Runnable> waiters = new ArrayList<>();
+    private long lastSequence;
+
+    public ChangeFeed(int retention) {
+        this(retention, Instant.now().getEpochSecond() * 1_000_000L);
+    }
+
+    public ChangeFeed(int retention, long firstSequence) {
+        if (retention < 1) {
+            throw new IllegalArgumentException("Invalid change retention: " + retention);
+        }
+        this.changes = new Change[retention];
+        this.firstSequence = firstSequence;
+        this.lastSequence = firstSequence;
+    }
+
+    /**
+     * Records that the row {@code id} of {@code entity} is now {@code row},
+     * or was deleted if {@code row} is {@code null}.
+     */
+    public void append(String entity, long id, Object row) {
+        List<Runnable> woken;
+        lock.lock();
+        try {
+            long sequence = ++lastSequence;
+            changes[slot(sequence)] = new Change(sequence, entity, id, row == null ? DELETE : PUT, row);
+            woken = waiters;
+            if (!woken.isEmpty()) {
+                waiters = new ArrayList<>();
+            }
+        } finally {
+            lock.unlock();
+        }
+        woken.forEach(Runnable::run);
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} changes following {@code since}, oldest
+     * first, or a resync page if some of them are no longer kept.
+     */
+    public Page read(long since, int limit) {
+        lock.lock();
+        try {
+            if (since < Math.max(firstSequence, lastSequence - changes.length) || since > lastSequence) {
+                return new Page(List.of(), true, lastSequence);
+            }
+            long last = Math.min(lastSequence, since + limit);
+            List<Change> page = new ArrayList<>((int) (last - since));
+            for (long sequence = since + 1; sequence <= last; sequence++) {
+                page.add(changes[slot(sequence)]);
+            }
+            return new Page(page, false, lastSequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code onChange} once there is a change after {@code since}: on
+     * the calling thread right away if there already is one, or a sequence
+     * the feed doesn't know, otherwise on the thread that appends the next
+     * change, so it must not block. No thread waits in between.
+     *
+     * @return an action that drops the wait if it has not fired yet
+     */
+    public Runnable onChangeAfter(long since, Runnable onChange) {
+        lock.lock();
+        try {
+            if (since == lastSequence) {
+                waiters.add(onChange);
+                return () -> cancel(onChange);
+            }
+        } finally {
+            lock.unlock();
+        }
+        onChange.run();
+        return () -> {
+        };
+    }
+
+    /**
+     * Returns a listener that appends the changes of an in-memory table.
+     */
+    public <T> ChangeListener<T> listener(String entity) {
+        return new ChangeListener<>() {
+            @Override
+            public void onPut(long id, T row) {
+                append(entity, id, row);
+            }
+
+            @Override
+            public void onRemove(long id) {
+                append(entity, id, null);
+            }
+        };
+    }
+
+    private void cancel(Runnable waiter) {
+        lock.lock();
+        try {
+            waiters.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) changes.length);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Change(long seq, String entity, long id, String op, Object data) {
+    }
+
+    /**
+     * {@code lastSequence} is the newest sequence at the time of the read;
+     * after a resync, a client reloads everything and continues from it.
+     */
+    public record Page(List<Change> changes, boolean resyncRequired, long lastSequence) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.khokhlov.universityserver.repository;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface GroupRepository {
+
+    Collection<Group> findAll();
+
+    Optional<Group> findByNumber(long number);
+
+    List<Group> findByStudentId(long studentId);
+
+    /**
+     * Returns the groups of every student with {@code surname}, each once
+     * and ordered by id.
+     */
+    List<Group> findByStudentSurname(String surname);
+
+    long nextId();
+
+    boolean insert(long id, Group group);
+
+    WriteStatus update(long id, Group group, Long expectedVersion);
+}
@@ -0,0 +1,50 @@
+package com.khokhlov.universityserver.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * The four entity repositories of one storage backend, plus the write
+ * command that makes a service's reads and writes atomic.
+ */
+public interface Repositories extends AutoCloseable {
+
+    StudentRepository getStudents();
+
+    TeacherRepository getTeachers();
+
+    GroupRepository getGroups();
+
+    TimetableRepository getTimetables();
+
+    /**
+     * Runs a command whose changes are applied all together, after all
+     * earlier commands and before any later one. What happens when the
+     * command throws depends on the backend: the JDBC backend rolls all of
+     * its changes back, while the memory backend keeps the changes made
+     * before the exception, so commands should check everything they can
+     * before their first change.
+     */
+    <R> R write(Supplier<R> command);
+
+    default void write(Runnable command) {
+        write(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Grows with every committed write, so equal values mean nothing has
+     * changed in between.
+     */
+    long getDataVersion();
+
+    /**
+     * Starts appending every committed change to {@code changeFeed}.
+     */
+    void setChangeFeed(ChangeFeed changeFeed);
+
+    @Override
+    default void close() {
+    }
+}
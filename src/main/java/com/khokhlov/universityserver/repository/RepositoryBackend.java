@@ -0,0 +1,16 @@
+package com.khokhlov.universityserver.repository;
+
+import java.util.Locale;
+
+/**
+ * Where the services keep their data: {@code MEMORY} in the heap-resident
+ * {@code MemoryDB}, {@code JDBC} in an embedded database file.
+ */
+public enum RepositoryBackend {
+    MEMORY,
+    JDBC;
+
+    public static RepositoryBackend fromProperty(String value) {
+        return value == null || value.isBlank() ? MEMORY : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
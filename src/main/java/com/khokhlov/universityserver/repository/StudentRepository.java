@@ -0,0 +1,38 @@
+package com.khokhlov.universityserver.repository;
+
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Names are matched case-insensitively. Writes report conflicts through
+ * their result instead of throwing.
+ */
+public interface StudentRepository {
+
+    Collection<Student> findAll();
+
+    Optional<Student> findById(long id);
+
+    boolean existsById(long id);
+
+    Collection<Student> findByName(String name);
+
+    Collection<Student> findBySurname(String surname);
+
+    Collection<Student> findByNameAndSurname(String name, String surname);
+
+    long nextId();
+
+    boolean insert(long id, Student student);
+
+    /**
+     * Replaces the student if it is still at {@code expectedVersion}; a
+     * {@code null} version skips the check.
+     */
+    WriteStatus update(long id, Student student, Long expectedVersion);
+
+    boolean delete(long id);
+}
@@ -0,0 +1,29 @@
+package com.khokhlov.universityserver.repository;
+
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TeacherRepository {
+
+    Collection<Teacher> findAll();
+
+    Optional<Teacher> findById(long id);
+
+    List<Teacher> findBySurname(String surname);
+
+    /**
+     * Returns the teachers of {@code subject} ordered by id.
+     */
+    List<Teacher> findBySubject(Subject subject);
+
+    long nextId();
+
+    boolean insert(long id, Teacher teacher);
+
+    WriteStatus update(long id, Teacher teacher, Long expectedVersion);
+}
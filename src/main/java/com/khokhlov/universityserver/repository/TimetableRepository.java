@@ -0,0 +1,47 @@
+package com.khokhlov.universityserver.repository;
+
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TimetableRepository {
+
+    Collection<Timetable> findAll();
+
+    List<Timetable> findByGroupId(long groupId);
+
+    List<Timetable> findByTeacherId(long teacherId);
+
+    List<Timetable> findByStart(LocalDateTime fromInclusive, LocalDateTime toExclusive);
+
+    /**
+     * Tells whether a timetable with the same group, teacher, start and end
+     * is stored.
+     */
+    boolean contains(Timetable timetable);
+
+    long getGroupDailyMinutes(long groupId, LocalDate date);
+
+    long getTeacherDailyMinutes(long teacherId, LocalDate date);
+
+    /**
+     * Reserves the timetable's minutes against both the group's and the
+     * teacher's daily limit until it is inserted or updated, or the
+     * reservation is cancelled; either both reservations hold or neither
+     * does. Minutes the stored row {@code id} already counts on the same day
+     * are not counted again.
+     */
+    boolean reserveDailyMinutes(long id, Timetable timetable, long maxMinutesPerDay);
+
+    void cancelDailyMinutes(long id, Timetable timetable);
+
+    long nextId();
+
+    boolean insert(long id, Timetable timetable);
+
+    WriteStatus update(long id, Timetable timetable, Long expectedVersion);
+}
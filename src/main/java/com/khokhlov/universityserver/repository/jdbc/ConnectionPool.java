@@ -0,0 +1,65 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.exception.RepositoryException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed set of connections opened up front; a thread that finds them all
+ * in use waits for one to be released.
+ */
+@Slf4j
+final class ConnectionPool implements AutoCloseable {
+
+    private final List<PooledConnection> connections = new ArrayList<>();
+    private final BlockingQueue<PooledConnection> idle;
+
+    ConnectionPool(String url, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid connection pool size: " + size);
+        }
+        idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                PooledConnection connection = new PooledConnection(DriverManager.getConnection(url));
+                connections.add(connection);
+                idle.add(connection);
+            }
+        } catch (SQLException e) {
+            close();
+            throw new RepositoryException("Error connecting to " + url, e);
+        }
+    }
+
+    PooledConnection acquire() {
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    void release(PooledConnection connection) {
+        idle.add(connection);
+    }
+
+    @Override
+    public void close() {
+        for (PooledConnection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Error closing connection: {}", e.getMessage());
+            }
+        }
+        connections.clear();
+        idle.clear();
+    }
+}
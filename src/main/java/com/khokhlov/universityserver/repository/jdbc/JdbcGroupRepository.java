@@ -0,0 +1,103 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.repository.GroupRepository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
+
+/**
+ * Keeps each group's students both as an id array in the row and as link
+ * rows indexed by student.
+ */
+class JdbcGroupRepository extends JdbcTable<Group> implements GroupRepository {
+
+    private static final String SELECT = "SELECT g.id, g.number, g.student_ids, g.version FROM student_groups g";
+    private static final String FIND_ALL = SELECT + " ORDER BY g.id";
+    private static final String FIND_BY_NUMBER = SELECT + " WHERE g.number = ?";
+    private static final String FIND_BY_STUDENT_ID = SELECT
+            + " JOIN group_students m ON m.group_id = g.id WHERE m.student_id = ? ORDER BY g.id";
+    private static final String FIND_BY_STUDENT_SURNAME = SELECT + " WHERE g.id IN (SELECT m.group_id FROM group_students m"
+            + " JOIN students s ON s.id = m.student_id WHERE s.surname_key = ?) ORDER BY g.id";
+    private static final String INSERT_STUDENT = "INSERT INTO group_students (student_id, group_id) VALUES (?, ?)";
+    private static final String DELETE_STUDENTS = "DELETE FROM group_students WHERE group_id = ?";
+
+    JdbcGroupRepository(JdbcRepositories jdbc) {
+        super(jdbc, ChangeFeed.GROUP, "student_groups", "group_ids", List.of("number", "student_ids"));
+    }
+
+    @Override
+    public Collection<Group> findAll() {
+        return list(FIND_ALL, statement -> {
+        });
+    }
+
+    @Override
+    public Optional<Group> findByNumber(long number) {
+        return one(FIND_BY_NUMBER, statement -> statement.setLong(1, number));
+    }
+
+    @Override
+    public List<Group> findByStudentId(long studentId) {
+        return list(FIND_BY_STUDENT_ID, statement -> statement.setLong(1, studentId));
+    }
+
+    @Override
+    public List<Group> findByStudentSurname(String surname) {
+        return list(FIND_BY_STUDENT_SURNAME, statement -> statement.setString(1, normalize(surname)));
+    }
+
+    @Override
+    void bind(PreparedStatement statement, Group group) throws SQLException {
+        statement.setLong(1, group.getNumber());
+        statement.setObject(2, group.studentIdStream().boxed().toArray(Long[]::new));
+    }
+
+    @Override
+    Group read(ResultSet resultSet) throws SQLException {
+        Array studentIds = resultSet.getArray(3);
+        Object[] ids = (Object[]) studentIds.getArray();
+        long[] values = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = ((Number) ids[i]).longValue();
+        }
+        studentIds.free();
+        Group group = new Group(resultSet.getLong(1), resultSet.getLong(2), values);
+        group.setVersion(resultSet.getLong(4));
+        return group;
+    }
+
+    @Override
+    long idOf(Group group) {
+        return group.getId();
+    }
+
+    @Override
+    void insertLinks(PooledConnection connection, List<Group> groups) throws SQLException {
+        PreparedStatement statement = connection.prepare(INSERT_STUDENT);
+        for (Group group : groups) {
+            for (PrimitiveIterator.OfLong ids = group.studentIdStream().iterator(); ids.hasNext(); ) {
+                statement.setLong(1, ids.nextLong());
+                statement.setLong(2, group.getId());
+                statement.addBatch();
+            }
+        }
+        statement.executeBatch();
+    }
+
+    @Override
+    void deleteLinks(PooledConnection connection, long id) throws SQLException {
+        PreparedStatement statement = connection.prepare(DELETE_STUDENTS);
+        statement.setLong(1, id);
+        statement.executeUpdate();
+    }
+}
@@ -0,0 +1,267 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.exception.RepositoryException;
+import com.khokhlov.universityserver.model.Versioned;
+import com.khokhlov.universityserver.model.data.IndexedTable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.repository.GroupRepository;
+import com.khokhlov.universityserver.repository.Repositories;
+import com.khokhlov.universityserver.repository.StudentRepository;
+import com.khokhlov.universityserver.repository.TeacherRepository;
+import com.khokhlov.universityserver.repository.TimetableRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Repositories over an embedded JDBC database, by default an H2 file, so
+ * the data set is bounded by disk rather than heap. Each lookup the services
+ * make is served by an index, every pooled connection keeps its prepared
+ * statements, and link rows are written in batches.
+ * <p>
+ * {@link #write} runs commands one at a time, each in its own transaction;
+ * reads outside a command see committed data only, and a command's changes
+ * reach the change feed once it has committed.
+ */
+@Slf4j
+public class JdbcRepositories implements Repositories {
+
+    static final int IMPORT_BATCH_SIZE = 1000;
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS students (id BIGINT PRIMARY KEY, name VARCHAR, surname VARCHAR,"
+                    + " birth_date DATE, phone_number VARCHAR, name_key VARCHAR, surname_key VARCHAR, version BIGINT NOT NULL,"
+                    + " CONSTRAINT students_key UNIQUE NULLS NOT DISTINCT (name, surname, birth_date, phone_number))",
+            "CREATE INDEX IF NOT EXISTS students_by_name ON students (name_key, surname_key)",
+            "CREATE INDEX IF NOT EXISTS students_by_surname ON students (surname_key)",
+            "CREATE SEQUENCE IF NOT EXISTS student_ids",
+            "CREATE TABLE IF NOT EXISTS teachers (id BIGINT PRIMARY KEY, name VARCHAR, surname VARCHAR,"
+                    + " surname_key VARCHAR, experience BIGINT, subject_mask INT NOT NULL, version BIGINT NOT NULL,"
+                    + " CONSTRAINT teachers_key UNIQUE NULLS NOT DISTINCT (name, surname, experience, subject_mask))",
+            "CREATE INDEX IF NOT EXISTS teachers_by_surname ON teachers (surname_key)",
+            "CREATE TABLE IF NOT EXISTS teacher_subjects (subject INT NOT NULL,"
+                    + " teacher_id BIGINT NOT NULL REFERENCES teachers (id) ON DELETE CASCADE, PRIMARY KEY (subject, teacher_id))",
+            "CREATE SEQUENCE IF NOT EXISTS teacher_ids",
+            "CREATE TABLE IF NOT EXISTS student_groups (id BIGINT PRIMARY KEY, number BIGINT NOT NULL UNIQUE,"
+                    + " student_ids BIGINT ARRAY NOT NULL, version BIGINT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS group_students (student_id BIGINT NOT NULL,"
+                    + " group_id BIGINT NOT NULL REFERENCES student_groups (id) ON DELETE CASCADE, PRIMARY KEY (student_id, group_id))",
+            "CREATE INDEX IF NOT EXISTS group_students_by_group ON group_students (group_id)",
+            "CREATE SEQUENCE IF NOT EXISTS group_ids",
+            "CREATE TABLE IF NOT EXISTS timetables (id BIGINT PRIMARY KEY, group_id BIGINT NOT NULL,"
+                    + " teacher_id BIGINT NOT NULL, start_date_time TIMESTAMP NOT NULL, end_date_time TIMESTAMP NOT NULL,"
+                    + " version BIGINT NOT NULL,"
+                    + " CONSTRAINT timetables_key UNIQUE (group_id, teacher_id, start_date_time, end_date_time))",
+            "CREATE INDEX IF NOT EXISTS timetables_by_group ON timetables (group_id, start_date_time)",
+            "CREATE INDEX IF NOT EXISTS timetables_by_teacher ON timetables (teacher_id, start_date_time)",
+            "CREATE INDEX IF NOT EXISTS timetables_by_start ON timetables (start_date_time)",
+            "CREATE SEQUENCE IF NOT EXISTS timetable_ids");
+
+    private final ConnectionPool pool;
+    private final ThreadLocal<PooledConnection> transaction = new ThreadLocal<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final List<PendingChange> pendingChanges = new ArrayList<>();
+    private volatile ChangeFeed changeFeed;
+
+    private final JdbcStudentRepository students;
+    private final JdbcTeacherRepository teachers;
+    private final JdbcGroupRepository groups;
+    private final JdbcTimetableRepository timetables;
+
+    public JdbcRepositories(String url, int poolSize) {
+        this.pool = new ConnectionPool(url, poolSize);
+        this.students = new JdbcStudentRepository(this);
+        this.teachers = new JdbcTeacherRepository(this);
+        this.groups = new JdbcGroupRepository(this);
+        this.timetables = new JdbcTimetableRepository(this);
+        try {
+            query(connection -> {
+                try (Statement statement = connection.getConnection().createStatement()) {
+                    for (String sql : SCHEMA) {
+                        statement.execute(sql);
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            pool.close();
+            throw e;
+        }
+        log.info("Opened JDBC repositories at {} with {} connections", url, poolSize);
+    }
+
+    @Override
+    public StudentRepository getStudents() {
+        return students;
+    }
+
+    @Override
+    public TeacherRepository getTeachers() {
+        return teachers;
+    }
+
+    @Override
+    public GroupRepository getGroups() {
+        return groups;
+    }
+
+    @Override
+    public TimetableRepository getTimetables() {
+        return timetables;
+    }
+
+    @Override
+    public <R> R write(Supplier<R> command) {
+        if (transaction.get() != null) {
+            return command.get();
+        }
+        writeLock.lock();
+        PooledConnection connection = pool.acquire();
+        try {
+            Connection jdbcConnection = connection.getConnection();
+            jdbcConnection.setAutoCommit(false);
+            transaction.set(connection);
+            try {
+                R result = command.get();
+                jdbcConnection.commit();
+                dataVersion.incrementAndGet();
+                publishChanges();
+                return result;
+            } catch (RuntimeException | Error e) {
+                jdbcConnection.rollback();
+                throw e;
+            } finally {
+                pendingChanges.clear();
+                transaction.remove();
+                jdbcConnection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException("Error committing write: " + e.getMessage(), e);
+        } finally {
+            pool.release(connection);
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    @Override
+    public void setChangeFeed(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Copies every row of {@code db}, with its id and version, into these
+     * empty tables in batches of {@value #IMPORT_BATCH_SIZE} rows, committing
+     * after each, and makes new ids continue after those of {@code db}.
+     */
+    public void importFrom(MemoryDB db) {
+        writeLock.lock();
+        PooledConnection connection = pool.acquire();
+        try {
+            connection.getConnection().setAutoCommit(false);
+            try {
+                importTable(connection, students, db.getStudents());
+                importTable(connection, teachers, db.getTeachers());
+                importTable(connection, groups, db.getGroups());
+                importTable(connection, timetables, db.getTimetables());
+            } finally {
+                connection.getConnection().setAutoCommit(true);
+            }
+            dataVersion.incrementAndGet();
+            log.info("Imported {} students, {} teachers, {} groups and {} timetables", db.getStudents().size(),
+                    db.getTeachers().size(), db.getGroups().size(), db.getTimetables().size());
+        } catch (SQLException e) {
+            throw new RepositoryException("Error importing rows: " + e.getMessage(), e);
+        } finally {
+            pool.release(connection);
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * Runs {@code work} on the connection of the current write command, or
+     * on a pooled connection outside of one.
+     */
+    <R> R query(SqlFunction<PooledConnection, R> work) {
+        PooledConnection bound = transaction.get();
+        PooledConnection connection = bound != null ? bound : pool.acquire();
+        try {
+            return work.apply(connection);
+        } catch (SQLException e) {
+            throw new RepositoryException("Error accessing the database: " + e.getMessage(), e);
+        } finally {
+            if (bound == null) {
+                pool.release(connection);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code work} as part of the current write command, or as a
+     * command of its own outside of one.
+     */
+    <R> R update(SqlFunction<PooledConnection, R> work) {
+        return write(() -> query(work));
+    }
+
+    /**
+     * Notes a change made by the current write command, to be published
+     * once the command commits.
+     */
+    void changed(String entity, long id, Object row) {
+        if (changeFeed != null) {
+            pendingChanges.add(new PendingChange(entity, id, row));
+        }
+    }
+
+    private void publishChanges() {
+        ChangeFeed feed = changeFeed;
+        if (feed != null) {
+            pendingChanges.forEach(change -> feed.append(change.entity(), change.id(), change.row()));
+        }
+    }
+
+    private <T extends Versioned> void importTable(PooledConnection connection, JdbcTable<T> table, IndexedTable<T> rows)
+            throws SQLException {
+        List<T> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try {
+            for (T row : rows.values()) {
+                batch.add(row);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    table.importRows(connection, batch);
+                    connection.getConnection().commit();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                table.importRows(connection, batch);
+            }
+            table.restartIds(connection, rows.idHighWaterMark());
+            connection.getConnection().commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.getConnection().rollback();
+            throw e;
+        }
+    }
+
+    private record PendingChange(String entity, long id, Object row) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.repository.StudentRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
+
+class JdbcStudentRepository extends JdbcTable<Student> implements StudentRepository {
+
+    private static final String SELECT = "SELECT id, name, surname, birth_date, phone_number, version FROM students";
+    private static final String FIND_ALL = SELECT + " ORDER BY id";
+    private static final String FIND_BY_ID = SELECT + " WHERE id = ?";
+    private static final String FIND_BY_NAME = SELECT + " WHERE name_key = ? ORDER BY id";
+    private static final String FIND_BY_SURNAME = SELECT + " WHERE surname_key = ? ORDER BY id";
+    private static final String FIND_BY_NAME_AND_SURNAME = SELECT + " WHERE name_key = ? AND surname_key = ? ORDER BY id";
+    private static final String EXISTS = "SELECT 1 FROM students WHERE id = ?";
+    private static final String DELETE = "DELETE FROM students WHERE id = ?";
+
+    JdbcStudentRepository(JdbcRepositories jdbc) {
+        super(jdbc, ChangeFeed.STUDENT, "students", "student_ids",
+                List.of("name", "surname", "birth_date", "phone_number", "name_key", "surname_key"));
+    }
+
+    @Override
+    public Collection<Student> findAll() {
+        return list(FIND_ALL, statement -> {
+        });
+    }
+
+    @Override
+    public Optional<Student> findById(long id) {
+        return one(FIND_BY_ID, statement -> statement.setLong(1, id));
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return exists(EXISTS, statement -> statement.setLong(1, id));
+    }
+
+    @Override
+    public Collection<Student> findByName(String name) {
+        return list(FIND_BY_NAME, statement -> statement.setString(1, normalize(name)));
+    }
+
+    @Override
+    public Collection<Student> findBySurname(String surname) {
+        return list(FIND_BY_SURNAME, statement -> statement.setString(1, normalize(surname)));
+    }
+
+    @Override
+    public Collection<Student> findByNameAndSurname(String name, String surname) {
+        return list(FIND_BY_NAME_AND_SURNAME, statement -> {
+            statement.setString(1, normalize(name));
+            statement.setString(2, normalize(surname));
+        });
+    }
+
+    @Override
+    public boolean delete(long id) {
+        return jdbc.update(connection -> {
+            PreparedStatement statement = connection.prepare(DELETE);
+            statement.setLong(1, id);
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+            changed(id, null);
+            return true;
+        });
+    }
+
+    @Override
+    void bind(PreparedStatement statement, Student student) throws SQLException {
+        statement.setString(1, student.getName());
+        statement.setString(2, student.getSurname());
+        statement.setObject(3, student.getBirthDate());
+        statement.setString(4, student.getPhoneNumber());
+        statement.setString(5, normalize(student.getName()));
+        statement.setString(6, normalize(student.getSurname()));
+    }
+
+    @Override
+    Student read(ResultSet resultSet) throws SQLException {
+        Student student = new Student(resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getObject(4, LocalDate.class),
+                resultSet.getString(5));
+        student.setVersion(resultSet.getLong(6));
+        return student;
+    }
+
+    @Override
+    long idOf(Student student) {
+        return student.getId();
+    }
+}
@@ -0,0 +1,179 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.model.Versioned;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Shared SQL of one entity table. Subclasses bind the table's columns, in
+ * the order given to the constructor, and read rows back; tables with link
+ * rows, such as a teacher's subjects, also rewrite those on every write.
+ */
+abstract class JdbcTable<T extends Versioned> {
+
+    final JdbcRepositories jdbc;
+    private final String entity;
+    private final String sequence;
+    private final int columnCount;
+    private final String insertSql;
+    private final String updateSql;
+    private final String versionSql;
+    private final String nextIdSql;
+
+    JdbcTable(JdbcRepositories jdbc, String entity, String table, String sequence, List<String> columns) {
+        this.jdbc = jdbc;
+        this.entity = entity;
+        this.sequence = sequence;
+        this.columnCount = columns.size();
+        this.insertSql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ", version, id) VALUES ("
+                + "?, ".repeat(columns.size() + 1) + "?)";
+        this.updateSql = "UPDATE " + table + " SET "
+                + columns.stream().map(column -> column + " = ?").collect(Collectors.joining(", "))
+                + ", version = ? WHERE id = ?";
+        this.versionSql = "SELECT version FROM " + table + " WHERE id = ?";
+        this.nextIdSql = "SELECT NEXT VALUE FOR " + sequence;
+    }
+
+    /**
+     * Binds the row's columns to parameters {@code 1..columns.size()}.
+     */
+    abstract void bind(PreparedStatement statement, T row) throws SQLException;
+
+    abstract T read(ResultSet resultSet) throws SQLException;
+
+    abstract long idOf(T row);
+
+    void insertLinks(PooledConnection connection, List<T> rows) throws SQLException {
+    }
+
+    void deleteLinks(PooledConnection connection, long id) throws SQLException {
+    }
+
+    public long nextId() {
+        return jdbc.query(connection -> {
+            try (ResultSet resultSet = connection.prepare(nextIdSql).executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        });
+    }
+
+    public boolean insert(long id, T row) {
+        return jdbc.update(connection -> {
+            PreparedStatement statement = connection.prepare(insertSql);
+            bind(statement, row);
+            statement.setLong(columnCount + 1, 1L);
+            statement.setLong(columnCount + 2, id);
+            try {
+                statement.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException e) {
+                return false;
+            }
+            insertLinks(connection, List.of(row));
+            row.setVersion(1L);
+            changed(id, row);
+            return true;
+        });
+    }
+
+    public WriteStatus update(long id, T row, Long expectedVersion) {
+        return jdbc.update(connection -> {
+            Long version = findVersion(connection, id);
+            if (version == null) {
+                return WriteStatus.NOT_FOUND;
+            }
+            if (expectedVersion != null && version.longValue() != expectedVersion) {
+                return WriteStatus.VERSION_CONFLICT;
+            }
+            PreparedStatement statement = connection.prepare(updateSql);
+            bind(statement, row);
+            statement.setLong(columnCount + 1, version + 1);
+            statement.setLong(columnCount + 2, id);
+            try {
+                statement.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException e) {
+                return WriteStatus.UNIQUE_CONFLICT;
+            }
+            deleteLinks(connection, id);
+            insertLinks(connection, List.of(row));
+            row.setVersion(version + 1);
+            changed(id, row);
+            return WriteStatus.APPLIED;
+        });
+    }
+
+    /**
+     * Inserts rows as they are, keeping their ids and versions, in one
+     * batch per statement.
+     */
+    void importRows(PooledConnection connection, List<T> rows) throws SQLException {
+        PreparedStatement statement = connection.prepare(insertSql);
+        for (T row : rows) {
+            bind(statement, row);
+            statement.setLong(columnCount + 1, row.getVersion());
+            statement.setLong(columnCount + 2, idOf(row));
+            statement.addBatch();
+        }
+        statement.executeBatch();
+        insertLinks(connection, rows);
+    }
+
+    void changed(long id, T row) {
+        jdbc.changed(entity, id, row);
+    }
+
+    /**
+     * Makes {@link #nextId} continue from {@code firstId}.
+     */
+    void restartIds(PooledConnection connection, long firstId) throws SQLException {
+        try (Statement statement = connection.getConnection().createStatement()) {
+            statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + firstId);
+        }
+    }
+
+    List<T> list(String sql, SqlConsumer<PreparedStatement> parameters) {
+        return jdbc.query(connection -> {
+            PreparedStatement statement = connection.prepare(sql);
+            parameters.accept(statement);
+            List<T> rows = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(read(resultSet));
+                }
+            }
+            return rows;
+        });
+    }
+
+    Optional<T> one(String sql, SqlConsumer<PreparedStatement> parameters) {
+        List<T> rows = list(sql, parameters);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    boolean exists(String sql, SqlConsumer<PreparedStatement> parameters) {
+        return jdbc.query(connection -> {
+            PreparedStatement statement = connection.prepare(sql);
+            parameters.accept(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        });
+    }
+
+    private Long findVersion(PooledConnection connection, long id) throws SQLException {
+        PreparedStatement statement = connection.prepare(versionSql);
+        statement.setLong(1, id);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.repository.TeacherRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
+
+/**
+ * Keeps each teacher's subjects both as a mask in the row and as link rows
+ * indexed by subject.
+ */
+class JdbcTeacherRepository extends JdbcTable<Teacher> implements TeacherRepository {
+
+    private static final String SELECT = "SELECT t.id, t.name, t.surname, t.experience, t.subject_mask, t.version FROM teachers t";
+    private static final String FIND_ALL = SELECT + " ORDER BY t.id";
+    private static final String FIND_BY_ID = SELECT + " WHERE t.id = ?";
+    private static final String FIND_BY_SURNAME = SELECT + " WHERE t.surname_key = ? ORDER BY t.id";
+    private static final String FIND_BY_SUBJECT = SELECT
+            + " JOIN teacher_subjects s ON s.teacher_id = t.id WHERE s.subject = ? ORDER BY t.id";
+    private static final String INSERT_SUBJECT = "INSERT INTO teacher_subjects (subject, teacher_id) VALUES (?, ?)";
+    private static final String DELETE_SUBJECTS = "DELETE FROM teacher_subjects WHERE teacher_id = ?";
+
+    JdbcTeacherRepository(JdbcRepositories jdbc) {
+        super(jdbc, ChangeFeed.TEACHER, "teachers", "teacher_ids",
+                List.of("name", "surname", "surname_key", "experience", "subject_mask"));
+    }
+
+    @Override
+    public Collection<Teacher> findAll() {
+        return list(FIND_ALL, statement -> {
+        });
+    }
+
+    @Override
+    public Optional<Teacher> findById(long id) {
+        return one(FIND_BY_ID, statement -> statement.setLong(1, id));
+    }
+
+    @Override
+    public List<Teacher> findBySurname(String surname) {
+        return list(FIND_BY_SURNAME, statement -> statement.setString(1, normalize(surname)));
+    }
+
+    @Override
+    public List<Teacher> findBySubject(Subject subject) {
+        return list(FIND_BY_SUBJECT, statement -> statement.setInt(1, subject.ordinal()));
+    }
+
+    @Override
+    void bind(PreparedStatement statement, Teacher teacher) throws SQLException {
+        statement.setString(1, teacher.getName());
+        statement.setString(2, teacher.getSurname());
+        statement.setString(3, normalize(teacher.getSurname()));
+        if (teacher.getExperience() == null) {
+            statement.setNull(4, Types.BIGINT);
+        } else {
+            statement.setLong(4, teacher.getExperience());
+        }
+        statement.setInt(5, teacher.getSubjectMask());
+    }
+
+    @Override
+    Teacher read(ResultSet resultSet) throws SQLException {
+        Teacher teacher = new Teacher(resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getObject(4, Long.class),
+                Subject.fromMask(resultSet.getInt(5)));
+        teacher.setVersion(resultSet.getLong(6));
+        return teacher;
+    }
+
+    @Override
+    long idOf(Teacher teacher) {
+        return teacher.getId();
+    }
+
+    @Override
+    void insertLinks(PooledConnection connection, List<Teacher> teachers) throws SQLException {
+        PreparedStatement statement = connection.prepare(INSERT_SUBJECT);
+        for (Teacher teacher : teachers) {
+            for (Subject subject : teacher.getSubjects()) {
+                statement.setInt(1, subject.ordinal());
+                statement.setLong(2, teacher.getId());
+                statement.addBatch();
+            }
+        }
+        statement.executeBatch();
+    }
+
+    @Override
+    void deleteLinks(PooledConnection connection, long id) throws SQLException {
+        PreparedStatement statement = connection.prepare(DELETE_SUBJECTS);
+        statement.setLong(1, id);
+        statement.executeUpdate();
+    }
+}
@@ -0,0 +1,140 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.repository.TimetableRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Daily minutes are summed on demand from the (owner, start) indexes; since
+ * {@link JdbcRepositories#write} runs one command at a time, a reservation
+ * is just a check of those sums that holds until the command commits.
+ */
+class JdbcTimetableRepository extends JdbcTable<Timetable> implements TimetableRepository {
+
+    private static final String SELECT = "SELECT id, group_id, teacher_id, start_date_time, end_date_time, version FROM timetables";
+    private static final String FIND_ALL = SELECT + " ORDER BY id";
+    private static final String FIND_BY_GROUP_ID = SELECT + " WHERE group_id = ? ORDER BY id";
+    private static final String FIND_BY_TEACHER_ID = SELECT + " WHERE teacher_id = ? ORDER BY id";
+    private static final String FIND_BY_START = SELECT + " WHERE start_date_time >= ? AND start_date_time < ? ORDER BY start_date_time, id";
+    private static final String EXISTS = "SELECT 1 FROM timetables"
+            + " WHERE group_id = ? AND teacher_id = ? AND start_date_time = ? AND end_date_time = ?";
+    private static final String MINUTES = "SELECT COALESCE(SUM(DATEDIFF(MINUTE, start_date_time, end_date_time)), 0) FROM timetables";
+    private static final String GROUP_DAILY_MINUTES = MINUTES + " WHERE group_id = ? AND start_date_time >= ? AND start_date_time < ?";
+    private static final String TEACHER_DAILY_MINUTES = MINUTES + " WHERE teacher_id = ? AND start_date_time >= ? AND start_date_time < ?";
+    private static final String OTHER_GROUP_DAILY_MINUTES = GROUP_DAILY_MINUTES + " AND id <> ?";
+    private static final String OTHER_TEACHER_DAILY_MINUTES = TEACHER_DAILY_MINUTES + " AND id <> ?";
+
+    JdbcTimetableRepository(JdbcRepositories jdbc) {
+        super(jdbc, ChangeFeed.TIMETABLE, "timetables", "timetable_ids",
+                List.of("group_id", "teacher_id", "start_date_time", "end_date_time"));
+    }
+
+    @Override
+    public Collection<Timetable> findAll() {
+        return list(FIND_ALL, statement -> {
+        });
+    }
+
+    @Override
+    public List<Timetable> findByGroupId(long groupId) {
+        return list(FIND_BY_GROUP_ID, statement -> statement.setLong(1, groupId));
+    }
+
+    @Override
+    public List<Timetable> findByTeacherId(long teacherId) {
+        return list(FIND_BY_TEACHER_ID, statement -> statement.setLong(1, teacherId));
+    }
+
+    @Override
+    public List<Timetable> findByStart(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        return list(FIND_BY_START, statement -> {
+            statement.setObject(1, fromInclusive);
+            statement.setObject(2, toExclusive);
+        });
+    }
+
+    @Override
+    public boolean contains(Timetable timetable) {
+        return exists(EXISTS, statement -> {
+            statement.setLong(1, timetable.getGroupId());
+            statement.setLong(2, timetable.getTeacherId());
+            statement.setObject(3, timetable.getStartDateTime());
+            statement.setObject(4, timetable.getEndDateTime());
+        });
+    }
+
+    @Override
+    public long getGroupDailyMinutes(long groupId, LocalDate date) {
+        return dailyMinutes(GROUP_DAILY_MINUTES, groupId, date);
+    }
+
+    @Override
+    public long getTeacherDailyMinutes(long teacherId, LocalDate date) {
+        return dailyMinutes(TEACHER_DAILY_MINUTES, teacherId, date);
+    }
+
+    @Override
+    public boolean reserveDailyMinutes(long id, Timetable timetable, long maxMinutesPerDay) {
+        LocalDate date = timetable.getStartDateTime().toLocalDate();
+        long minutes = Duration.between(timetable.getStartDateTime(), timetable.getEndDateTime()).toMinutes();
+        return dailyMinutes(OTHER_GROUP_DAILY_MINUTES, timetable.getGroupId(), date, id) + minutes <= maxMinutesPerDay
+                && dailyMinutes(OTHER_TEACHER_DAILY_MINUTES, timetable.getTeacherId(), date, id) + minutes <= maxMinutesPerDay;
+    }
+
+    @Override
+    public void cancelDailyMinutes(long id, Timetable timetable) {
+    }
+
+    @Override
+    void bind(PreparedStatement statement, Timetable timetable) throws SQLException {
+        statement.setLong(1, timetable.getGroupId());
+        statement.setLong(2, timetable.getTeacherId());
+        statement.setObject(3, timetable.getStartDateTime());
+        statement.setObject(4, timetable.getEndDateTime());
+    }
+
+    @Override
+    Timetable read(ResultSet resultSet) throws SQLException {
+        Timetable timetable = new Timetable(resultSet.getLong(1),
+                resultSet.getLong(2),
+                resultSet.getLong(3),
+                resultSet.getObject(4, LocalDateTime.class),
+                resultSet.getObject(5, LocalDateTime.class));
+        timetable.setVersion(resultSet.getLong(6));
+        return timetable;
+    }
+
+    @Override
+    long idOf(Timetable timetable) {
+        return timetable.getId();
+    }
+
+    private long dailyMinutes(String sql, long ownerId, LocalDate date) {
+        return dailyMinutes(sql, ownerId, date, null);
+    }
+
+    private long dailyMinutes(String sql, long ownerId, LocalDate date, Long excludedId) {
+        return jdbc.query(connection -> {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setLong(1, ownerId);
+            statement.setObject(2, date.atStartOfDay());
+            statement.setObject(3, date.plusDays(1).atStartOfDay());
+            if (excludedId != null) {
+                statement.setLong(4, excludedId);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        });
+    }
+}
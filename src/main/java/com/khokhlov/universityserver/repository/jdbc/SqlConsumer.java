@@ -0,0 +1,8 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface SqlConsumer<T> {
+    void accept(T value) throws SQLException;
+}
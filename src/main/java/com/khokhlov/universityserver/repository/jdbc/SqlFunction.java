@@ -0,0 +1,8 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface SqlFunction<T, R> {
+    R apply(T value) throws SQLException;
+}
@@ -0,0 +1,54 @@
+package com.khokhlov.universityserver.repository.memory;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+import com.khokhlov.universityserver.repository.GroupRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+class MemoryGroupRepository implements GroupRepository {
+
+    private final MemoryDB DB;
+
+    MemoryGroupRepository(MemoryDB DB) {
+        this.DB = DB;
+    }
+
+    @Override
+    public Collection<Group> findAll() {
+        return DB.getGroups().values();
+    }
+
+    @Override
+    public Optional<Group> findByNumber(long number) {
+        return DB.getGroupsByNumber().find(number);
+    }
+
+    @Override
+    public List<Group> findByStudentId(long studentId) {
+        return DB.getGroupsByStudentId().find(studentId);
+    }
+
+    @Override
+    public List<Group> findByStudentSurname(String surname) {
+        return DB.findGroupsByStudentSurname(surname);
+    }
+
+    @Override
+    public long nextId() {
+        return DB.getGroups().nextId();
+    }
+
+    @Override
+    public boolean insert(long id, Group group) {
+        return DB.getGroups().insert(id, group);
+    }
+
+    @Override
+    public WriteStatus update(long id, Group group, Long expectedVersion) {
+        return DB.getGroups().update(id, group, expectedVersion);
+    }
+}
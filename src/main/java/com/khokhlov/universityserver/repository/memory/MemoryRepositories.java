@@ -0,0 +1,53 @@
+package com.khokhlov.universityserver.repository.memory;
+
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.repository.GroupRepository;
+import com.khokhlov.universityserver.repository.Repositories;
+import com.khokhlov.universityserver.repository.StudentRepository;
+import com.khokhlov.universityserver.repository.TeacherRepository;
+import com.khokhlov.universityserver.repository.TimetableRepository;
+import lombok.Getter;
+
+import java.util.function.Supplier;
+
+/**
+ * Repositories over the tables and indexes of a {@link MemoryDB}; writes go
+ * through {@link MemoryDB#write}. A write that throws is not rolled back:
+ * the changes it made before the exception stay applied.
+ */
+@Getter
+public class MemoryRepositories implements Repositories {
+
+    private final MemoryDB memoryDB;
+    private final StudentRepository students;
+    private final TeacherRepository teachers;
+    private final GroupRepository groups;
+    private final TimetableRepository timetables;
+
+    public MemoryRepositories(MemoryDB memoryDB) {
+        this.memoryDB = memoryDB;
+        this.students = new MemoryStudentRepository(memoryDB);
+        this.teachers = new MemoryTeacherRepository(memoryDB);
+        this.groups = new MemoryGroupRepository(memoryDB);
+        this.timetables = new MemoryTimetableRepository(memoryDB);
+    }
+
+    @Override
+    public <R> R write(Supplier<R> command) {
+        return memoryDB.write(command);
+    }
+
+    @Override
+    public long getDataVersion() {
+        return memoryDB.getDataVersion();
+    }
+
+    @Override
+    public void setChangeFeed(ChangeFeed changeFeed) {
+        memoryDB.addCommittedChangeListener(memoryDB.getStudents(), changeFeed.listener(ChangeFeed.STUDENT));
+        memoryDB.addCommittedChangeListener(memoryDB.getTeachers(), changeFeed.listener(ChangeFeed.TEACHER));
+        memoryDB.addCommittedChangeListener(memoryDB.getGroups(), changeFeed.listener(ChangeFeed.GROUP));
+        memoryDB.addCommittedChangeListener(memoryDB.getTimetables(), changeFeed.listener(ChangeFeed.TIMETABLE));
+    }
+}
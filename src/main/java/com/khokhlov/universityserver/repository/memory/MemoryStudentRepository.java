@@ -0,0 +1,70 @@
+package com.khokhlov.universityserver.repository.memory;
+
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+import com.khokhlov.universityserver.repository.StudentRepository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
+
+class MemoryStudentRepository implements StudentRepository {
+
+    private final MemoryDB DB;
+
+    MemoryStudentRepository(MemoryDB DB) {
+        this.DB = DB;
+    }
+
+    @Override
+    public Collection<Student> findAll() {
+        return DB.getStudents().values();
+    }
+
+    @Override
+    public Optional<Student> findById(long id) {
+        return Optional.ofNullable(DB.getStudents().get(id));
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return DB.getStudents().containsKey(id);
+    }
+
+    @Override
+    public Collection<Student> findByName(String name) {
+        return DB.getStudentsByName().find(normalize(name));
+    }
+
+    @Override
+    public Collection<Student> findBySurname(String surname) {
+        return DB.getStudentsBySurname().find(normalize(surname));
+    }
+
+    @Override
+    public Collection<Student> findByNameAndSurname(String name, String surname) {
+        return DB.getStudentsByNameAndSurname().find(normalize(name, surname));
+    }
+
+    @Override
+    public long nextId() {
+        return DB.getStudents().nextId();
+    }
+
+    @Override
+    public boolean insert(long id, Student student) {
+        return DB.getStudents().insert(id, student);
+    }
+
+    @Override
+    public WriteStatus update(long id, Student student, Long expectedVersion) {
+        return DB.getStudents().update(id, student, expectedVersion);
+    }
+
+    @Override
+    public boolean delete(long id) {
+        return DB.getStudents().remove(id) != null;
+    }
+}
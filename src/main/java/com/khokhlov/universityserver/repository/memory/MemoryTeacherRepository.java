@@ -0,0 +1,60 @@
+package com.khokhlov.universityserver.repository.memory;
+
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+import com.khokhlov.universityserver.repository.TeacherRepository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
+
+class MemoryTeacherRepository implements TeacherRepository {
+
+    private final MemoryDB DB;
+
+    MemoryTeacherRepository(MemoryDB DB) {
+        this.DB = DB;
+    }
+
+    @Override
+    public Collection<Teacher> findAll() {
+        return DB.getTeachers().values();
+    }
+
+    @Override
+    public Optional<Teacher> findById(long id) {
+        return Optional.ofNullable(DB.getTeachers().get(id));
+    }
+
+    @Override
+    public List<Teacher> findBySurname(String surname) {
+        return DB.getTeachersBySurname().find(normalize(surname));
+    }
+
+    @Override
+    public List<Teacher> findBySubject(Subject subject) {
+        return DB.getTeachersBySubject().find(subject).stream()
+                .sorted(Comparator.comparingLong(Teacher::getId))
+                .toList();
+    }
+
+    @Override
+    public long nextId() {
+        return DB.getTeachers().nextId();
+    }
+
+    @Override
+    public boolean insert(long id, Teacher teacher) {
+        return DB.getTeachers().insert(id, teacher);
+    }
+
+    @Override
+    public WriteStatus update(long id, Teacher teacher, Long expectedVersion) {
+        return DB.getTeachers().update(id, teacher, expectedVersion);
+    }
+}
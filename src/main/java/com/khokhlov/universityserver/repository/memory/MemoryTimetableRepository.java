@@ -0,0 +1,80 @@
+package com.khokhlov.universityserver.repository.memory;
+
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+import com.khokhlov.universityserver.repository.TimetableRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+class MemoryTimetableRepository implements TimetableRepository {
+
+    private final MemoryDB DB;
+
+    MemoryTimetableRepository(MemoryDB DB) {
+        this.DB = DB;
+    }
+
+    @Override
+    public Collection<Timetable> findAll() {
+        return DB.getTimetables().values();
+    }
+
+    @Override
+    public List<Timetable> findByGroupId(long groupId) {
+        return DB.findTimetablesByGroupId(groupId);
+    }
+
+    @Override
+    public List<Timetable> findByTeacherId(long teacherId) {
+        return DB.findTimetablesByTeacherId(teacherId);
+    }
+
+    @Override
+    public List<Timetable> findByStart(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        return DB.findTimetablesByStart(fromInclusive, toExclusive);
+    }
+
+    @Override
+    public boolean contains(Timetable timetable) {
+        return DB.containsTimetable(timetable);
+    }
+
+    @Override
+    public long getGroupDailyMinutes(long groupId, LocalDate date) {
+        return DB.getGroupDailyMinutes(groupId, date);
+    }
+
+    @Override
+    public long getTeacherDailyMinutes(long teacherId, LocalDate date) {
+        return DB.getTeacherDailyMinutes(teacherId, date);
+    }
+
+    @Override
+    public boolean reserveDailyMinutes(long id, Timetable timetable, long maxMinutesPerDay) {
+        return DB.reserveDailyMinutes(id, timetable, maxMinutesPerDay);
+    }
+
+    @Override
+    public void cancelDailyMinutes(long id, Timetable timetable) {
+        DB.cancelDailyMinutes(id, timetable);
+    }
+
+    @Override
+    public long nextId() {
+        return DB.getTimetables().nextId();
+    }
+
+    @Override
+    public boolean insert(long id, Timetable timetable) {
+        return DB.getTimetables().insert(id, timetable);
+    }
+
+    @Override
+    public WriteStatus update(long id, Timetable timetable, Long expectedVersion) {
+        return DB.getTimetables().update(id, timetable, expectedVersion);
+    }
+}
@@ -7,53 +7,63 @@ import com.khokhlov.universityserver.exception.StudentNotFoundException;
 import com.khokhlov.universityserver.model.Group;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.WriteStatus;
 import com.khokhlov.universityserver.model.dto.GroupDTO;
+import com.khokhlov.universityserver.model.dto.GroupDetailsDTO;
+import com.khokhlov.universityserver.repository.Repositories;
+import com.khokhlov.universityserver.repository.memory.MemoryRepositories;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
 
 @Slf4j
 public class GroupService {
-    private final MemoryDB DB;
+    private final Repositories DB;
     private final MappingService mappingService;
     private final StudentService studentService;
     private final PropertyService propertyService;
-    private final AtomicLong idGenerator;
 
-    public GroupService(MemoryDB DB, MappingService mappingService, StudentService studentService, PropertyService propertyService) {
+    public GroupService(Repositories DB, MappingService mappingService, StudentService studentService, PropertyService propertyService) {
         this.DB = DB;
         this.mappingService = mappingService;
-        this.idGenerator = new AtomicLong(initializeIdGenerator(DB));
         this.studentService = studentService;
         this.propertyService = propertyService;
-        idGenerator.incrementAndGet();
-        log.info("GroupService initialized with ID generator starting from {}", idGenerator.get());
     }
 
-    private long initializeIdGenerator(MemoryDB DB) {
-        return DB.getGroups().keySet().stream()
-                .mapToLong(Long::longValue)
-                .max()
-                .orElse(0L);
+    public GroupService(MemoryDB DB, MappingService mappingService, StudentService studentService, PropertyService propertyService) {
+        this(new MemoryRepositories(DB), mappingService, studentService, propertyService);
     }
 
     public Collection<Group> getAllGroups() {
-        return DB.getGroups().values();
+        return DB.getGroups().findAll();
     }
 
     public void addGroup(GroupDTO groupDTO) {
-        Group group = mappingService.fromGroupDTO(idGenerator.get(), groupDTO);
-        if (!DB.getGroups().containsValue(group)) {
-            DB.getGroups().put(idGenerator.getAndIncrement(), group);
-            log.info("Added new group with ID {}: {}", idGenerator.get() - 1, group);
-        } else {
-            log.warn("Attempted to add an existing group: {}", group);
-            throw new GroupAlreadyExistsException("Group already exists");
+        DB.write(() -> insertGroup(groupDTO));
+    }
+
+    private void insertGroup(GroupDTO groupDTO) {
+        Group group = mappingService.fromGroupDTO(0, groupDTO);
+        if (DB.getGroups().findByNumber(group.getNumber()).isPresent()) {
+            throw groupAlreadyExists(group);
+        }
+        long groupId = DB.getGroups().nextId();
+        group.setId(groupId);
+        if (!DB.getGroups().insert(groupId, group)) {
+            throw groupAlreadyExists(group);
         }
+        log.info("Added new group with ID {}: {}", groupId, group);
+    }
+
+    private GroupAlreadyExistsException groupAlreadyExists(Group group) {
+        log.warn("Attempted to add an existing group: {}", group);
+        return new GroupAlreadyExistsException("Group already exists");
     }
 
     public List<Student> getStudentsById(GroupDTO groupDTO) {
@@ -86,52 +96,71 @@ public class GroupService {
     }
 
     public Optional<Group> getGroupByNumberAndSurname(String groupNumber, String surname) {
-        long number = Long.parseLong(groupNumber);
-        return getAllGroups().stream()
-                .filter(group -> group.getNumber() == number &&
-                        group.getStudents().stream()
-                                .anyMatch(student -> student.getSurname().equalsIgnoreCase(surname)))
-                .findFirst();
+        return getGroupByNumber(groupNumber)
+                .filter(group -> DB.getStudents().findBySurname(surname).stream()
+                        .anyMatch(student -> group.containsStudent(student.getId())));
     }
 
     public Optional<Group> getGroupByNumber(String groupNumber) {
         long number = Long.parseLong(groupNumber);
-        return getAllGroups().stream()
-                .filter(group -> group.getNumber() == number)
-                .findFirst();
+        return DB.getGroups().findByNumber(number);
     }
 
     public Optional<Group> getGroupBySurname(String surname) {
-        return getAllGroups().stream()
-                .filter(group -> group.getStudents().stream()
-                        .anyMatch(student -> student.getSurname().equalsIgnoreCase(surname)))
+        return DB.getGroups().findByStudentSurname(surname).stream()
                 .findFirst();
     }
 
+    public GroupDetailsDTO getGroupDetails(Group group) {
+        List<Student> students = group.studentIdStream()
+                .mapToObj(studentId -> DB.getStudents().findById(studentId))
+                .flatMap(Optional::stream)
+                .toList();
+        return new GroupDetailsDTO(group.getId(), group.getNumber(), students, group.getVersion());
+    }
+
     public boolean addStudentsToGroup(long groupNumber, List<Student> studentsToAdd) {
-        Group group = getGroupByNumber(String.valueOf(groupNumber))
-                .orElseThrow(() -> {
-                    log.error("Group not found with number {}", groupNumber);
-                    return new GroupNotFoundException("Group not found with number " + groupNumber);
-                });
+        return DB.write(() -> applyStudentsToGroup(groupNumber, studentsToAdd));
+    }
 
-        List<Student> currentStudents = group.getStudents();
+    private boolean applyStudentsToGroup(long groupNumber, List<Student> studentsToAdd) {
         int maxStudents = propertyService.getPropertyAsInt("max.students");
+        long[] newStudentIds = distinctStudentIds(studentsToAdd);
+
+        while (true) {
+            Group group = DB.getGroups().findByNumber(groupNumber)
+                    .orElseThrow(() -> {
+                        log.error("Group not found with number {}", groupNumber);
+                        return new GroupNotFoundException("Group not found with number " + groupNumber);
+                    });
+
+            if (group.getStudentCount() + newStudentIds.length > maxStudents) {
+                log.error("Adding students will exceed the maximum number of {} students.", maxStudents);
+                throw new IllegalArgumentException("Adding students will exceed the maximum number of " + maxStudents + " students.");
+            }
+            for (long studentId : newStudentIds) {
+                if (group.containsStudent(studentId)) {
+                    log.warn("Student with ID {} already exists in the group {}", studentId, groupNumber);
+                    throw new StudentAlreadyExistsException("Student with id " + studentId + " already exists");
+                }
+            }
 
-        if (currentStudents.size() + studentsToAdd.size() > maxStudents) {
-            log.error("Adding students will exceed the maximum number of {} students.", maxStudents);
-            throw new IllegalArgumentException("Adding students will exceed the maximum number of " + maxStudents + " students.");
+            if (DB.getGroups().update(group.getId(), group.withStudents(newStudentIds), group.getVersion()) == WriteStatus.APPLIED) {
+                log.info("Added students with IDs {} to group {}", Arrays.toString(newStudentIds), groupNumber);
+                return true;
+            }
+            log.debug("Group {} changed concurrently, retrying", groupNumber);
         }
+    }
 
-        for (Student student : studentsToAdd) {
-            if (!currentStudents.contains(student)) {
-                currentStudents.add(student);
-                log.info("Added student with ID {} to group {}", student.getId(), groupNumber);
-            } else {
-                log.warn("Student with ID {} already exists in the group {}", student.getId(), groupNumber);
+    private long[] distinctStudentIds(List<Student> students) {
+        Set<Long> studentIds = new LinkedHashSet<>();
+        for (Student student : students) {
+            if (!studentIds.add(student.getId())) {
+                log.warn("Student with ID {} is listed more than once", student.getId());
                 throw new StudentAlreadyExistsException("Student with id " + student.getId() + " already exists");
             }
         }
-        return true;
+        return studentIds.stream().mapToLong(Long::longValue).toArray();
     }
-}
\ No newline at end of file
+}
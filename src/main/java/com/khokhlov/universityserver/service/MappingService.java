@@ -9,21 +9,23 @@ import com.khokhlov.universityserver.model.dto.StudentDTO;
 import com.khokhlov.universityserver.model.dto.TeacherDTO;
 import com.khokhlov.universityserver.model.dto.TimetableDTO;
 
+import static com.khokhlov.universityserver.utils.NormalizationUtils.canonical;
+
 
 public class MappingService {
 
     Student fromStudentDTO(long id, StudentDTO studentDTO) {
         return new Student(id,
-                studentDTO.getName(),
-                studentDTO.getSurname(),
+                canonical(studentDTO.getName()),
+                canonical(studentDTO.getSurname()),
                 studentDTO.getBirthdate(),
                 studentDTO.getPhoneNumber());
     }
 
     Teacher fromTeacherDTO(long id, TeacherDTO teacherDTO) {
         return new Teacher(id,
-                teacherDTO.getName(),
-                teacherDTO.getSurname(),
+                canonical(teacherDTO.getName()),
+                canonical(teacherDTO.getSurname()),
                 teacherDTO.getExperience(),
                 teacherDTO.getSubjects());
     }
@@ -35,6 +35,10 @@ public class PropertyService {
         }
     }
 
+    public String getProperty(String propertyName, String defaultValue) {
+        return properties.getProperty(propertyName, defaultValue).trim();
+    }
+
     public int getPropertyAsInt(String propertyName) {
         return Integer.parseInt(properties.getProperty(propertyName));
     }
@@ -7,62 +7,89 @@ import com.khokhlov.universityserver.model.Teacher;
 import com.khokhlov.universityserver.model.data.MemoryDB;
 import com.khokhlov.universityserver.model.dto.SubjectDTO;
 import com.khokhlov.universityserver.model.dto.TeacherDTO;
+import com.khokhlov.universityserver.repository.Repositories;
+import com.khokhlov.universityserver.repository.memory.MemoryRepositories;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collection;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.List;
 
 @Slf4j
 public class TeacherService {
-    private final MemoryDB DB;
+    private final Repositories DB;
     private final MappingService mappingService;
-    private final AtomicLong idGenerator;
 
-    public TeacherService(MemoryDB DB, MappingService mappingService) {
+    public TeacherService(Repositories DB, MappingService mappingService) {
         this.DB = DB;
         this.mappingService = mappingService;
-        this.idGenerator = new AtomicLong(initializeIdGenerator(DB));
-        idGenerator.incrementAndGet();
     }
 
-    private long initializeIdGenerator(MemoryDB DB) {
-        return DB.getTeachers().keySet().stream()
-                .mapToLong(Long::longValue)
-                .max()
-                .orElse(0L);
+    public TeacherService(MemoryDB DB, MappingService mappingService) {
+        this(new MemoryRepositories(DB), mappingService);
     }
 
     public Collection<Teacher> getAllTeachers() {
-        Collection<Teacher> teachers = DB.getTeachers().values();
+        Collection<Teacher> teachers = DB.getTeachers().findAll();
         log.info("Retrieved {} teachers", teachers.size());
         return teachers;
     }
 
     public void addTeacher(TeacherDTO teacherDTO) {
-        Teacher teacher = mappingService.fromTeacherDTO(idGenerator.get(), teacherDTO);
-        if (!DB.getTeachers().containsValue(teacher)) {
-            DB.getTeachers().put(idGenerator.getAndIncrement(), teacher);
-            log.info("Added new teacher: {}", teacher);
-        } else {
-            log.warn("Attempt to add existing teacher: {}", teacher);
-            throw new TeacherAlreadyExistsException("Teacher already exists");
+        DB.write(() -> insertTeacher(teacherDTO));
+    }
+
+    private void insertTeacher(TeacherDTO teacherDTO) {
+        Teacher teacher = mappingService.fromTeacherDTO(0, teacherDTO);
+        if (DB.getTeachers().findBySurname(teacher.getSurname()).contains(teacher)) {
+            throw teacherAlreadyExists(teacher);
         }
+        long teacherId = DB.getTeachers().nextId();
+        teacher.setId(teacherId);
+        if (!DB.getTeachers().insert(teacherId, teacher)) {
+            throw teacherAlreadyExists(teacher);
+        }
+        log.info("Added new teacher: {}", teacher);
+    }
+
+    private TeacherAlreadyExistsException teacherAlreadyExists(Teacher teacher) {
+        log.warn("Attempt to add existing teacher: {}", teacher);
+        return new TeacherAlreadyExistsException("Teacher already exists");
+    }
+
+    public List<Teacher> getTeachersBySubject(Subject subject) {
+        List<Teacher> teachers = DB.getTeachers().findBySubject(subject);
+        log.info("Retrieved {} teachers teaching {}", teachers.size(), subject);
+        return teachers;
     }
 
     public void addSubjectToTeacher(long teacherId, SubjectDTO subjectDTO) {
-        if (DB.getTeachers().containsKey(teacherId)) {
-            Teacher teacher = DB.getTeachers().get(teacherId);
-            Subject newSubject = Subject.fromValue(subjectDTO.getSubject());
-            if (!teacher.getSubjects().contains(newSubject)) {
-                teacher.getSubjects().add(newSubject);
-                log.info("Added subject {} to teacher with ID {}", newSubject, teacherId);
-            } else {
+        DB.write(() -> applySubjectToTeacher(teacherId, subjectDTO));
+    }
+
+    private void applySubjectToTeacher(long teacherId, SubjectDTO subjectDTO) {
+        Subject newSubject = Subject.fromValue(subjectDTO.getSubject());
+        while (true) {
+            Teacher teacher = DB.getTeachers().findById(teacherId).orElse(null);
+            if (teacher == null) {
+                log.error("Teacher with ID {} not found", teacherId);
+                throw new TeacherNotFoundException("Teacher with id " + teacherId + " not found");
+            }
+            if (teacher.hasSubject(newSubject)) {
                 log.warn("Attempt to add existing subject {} to teacher with ID {}", newSubject, teacherId);
                 throw new IllegalArgumentException("Subject " + subjectDTO.getSubject() + " already exists for teacher");
             }
-        } else {
-            log.error("Teacher with ID {} not found", teacherId);
-            throw new TeacherNotFoundException("Teacher with id " + teacherId + " not found");
+            Teacher updatedTeacher = teacher.withSubject(newSubject);
+            switch (DB.getTeachers().update(teacherId, updatedTeacher, teacher.getVersion())) {
+                case APPLIED -> {
+                    log.info("Added subject {} to teacher with ID {}", newSubject, teacherId);
+                    return;
+                }
+                case UNIQUE_CONFLICT -> {
+                    log.warn("Adding subject {} to teacher with ID {} duplicates another teacher", newSubject, teacherId);
+                    throw new TeacherAlreadyExistsException("Teacher already exists");
+                }
+                default -> log.debug("Teacher with ID {} changed concurrently, retrying", teacherId);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -2,57 +2,59 @@ package com.khokhlov.universityserver.service;
 
 import com.khokhlov.universityserver.exception.TimetableAlreadyExistsException;
 import com.khokhlov.universityserver.exception.TimetableNotFoundException;
+import com.khokhlov.universityserver.exception.VersionConflictException;
+import com.khokhlov.universityserver.model.Group;
 import com.khokhlov.universityserver.model.Timetable;
 import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.WriteStatus;
 import com.khokhlov.universityserver.model.dto.TimetableDTO;
+import com.khokhlov.universityserver.repository.Repositories;
+import com.khokhlov.universityserver.repository.memory.MemoryRepositories;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class TimetableService {
-    private final MemoryDB DB;
+    private final Repositories DB;
     private final MappingService mappingService;
     private final PropertyService propertyService;
-    private final AtomicLong idGenerator;
 
-    public TimetableService(MemoryDB DB, MappingService mappingService, PropertyService propertyService) {
+    public TimetableService(Repositories DB, MappingService mappingService, PropertyService propertyService) {
         this.DB = DB;
         this.mappingService = mappingService;
         this.propertyService = propertyService;
-        this.idGenerator = new AtomicLong(initializeIdGenerator(DB));
-        idGenerator.incrementAndGet();
     }
 
-    private long initializeIdGenerator(MemoryDB DB) {
-        return DB.getTeachers().keySet().stream()
-                .mapToLong(Long::longValue)
-                .max()
-                .orElse(0L);
+    public TimetableService(MemoryDB DB, MappingService mappingService, PropertyService propertyService) {
+        this(new MemoryRepositories(DB), mappingService, propertyService);
+    }
+
+    public long getDataVersion() {
+        return DB.getDataVersion();
     }
 
     public Collection<Timetable> getAllTimetables() {
-        Collection<Timetable> timetables = DB.getTimetables().values();
+        Collection<Timetable> timetables = DB.getTimetables().findAll();
         log.info("Retrieved {} timetables", timetables.size());
         return timetables;
     }
 
     public Optional<Timetable> getTimetablesByGroupNumber(long groupNumber) {
-        if (DB.getGroups().values().stream().noneMatch(group -> group.getNumber() == groupNumber)) {
-            log.error("Group not found for the given timetable: group number {}", groupNumber);
-            throw new TimetableNotFoundException("Group not found for the given timetable ");
-        }
+        Group group = DB.getGroups().findByNumber(groupNumber)
+                .orElseThrow(() -> {
+                    log.error("Group not found for the given timetable: group number {}", groupNumber);
+                    return new TimetableNotFoundException("Group not found for the given timetable ");
+                });
 
-        Optional<Timetable> timetable = DB.getTimetables().values().stream()
-                .filter(t -> DB.getGroups().containsKey(t.getGroupId()) &&
-                        DB.getGroups().get(t.getGroupId()).getNumber() == groupNumber)
+        Optional<Timetable> timetable = DB.getTimetables().findByGroupId(group.getId()).stream()
                 .findFirst();
 
         if (timetable.isPresent()) {
@@ -65,11 +67,7 @@ public class TimetableService {
     }
 
     public List<Timetable> getTimetablesByStudentSurname(String studentSurname) {
-        List<Timetable> timetables = DB.getTimetables().values().stream()
-                .filter(timetable -> DB.getGroups().get(timetable.getGroupId())
-                        .getStudents().stream()
-                        .anyMatch(student -> student.getSurname().equalsIgnoreCase(studentSurname)))
-                .collect(Collectors.toList());
+        List<Timetable> timetables = getTimetablesByGroups(DB.getGroups().findByStudentSurname(studentSurname));
 
         if (timetables.isEmpty()) {
             log.warn("No timetables found for student surname {}", studentSurname);
@@ -80,10 +78,21 @@ public class TimetableService {
         return timetables;
     }
 
+    public List<Timetable> getTimetablesByStudentId(long studentId) {
+        List<Timetable> timetables = getTimetablesByGroups(DB.getGroups().findByStudentId(studentId));
+
+        if (timetables.isEmpty()) {
+            log.warn("No timetables found for student with ID {}", studentId);
+            throw new TimetableNotFoundException("No timetables found for the given student ");
+        }
+
+        log.info("Found {} timetables for student with ID {}", timetables.size(), studentId);
+        return timetables;
+    }
+
     public List<Timetable> getTimetablesByTeacherSurname(String teacherSurname) {
-        List<Timetable> timetables = DB.getTimetables().values().stream()
-                .filter(timetable -> DB.getTeachers().get(timetable.getTeacherId())
-                        .getSurname().equalsIgnoreCase(teacherSurname))
+        List<Timetable> timetables = DB.getTeachers().findBySurname(teacherSurname).stream()
+                .flatMap(teacher -> DB.getTimetables().findByTeacherId(teacher.getId()).stream())
                 .collect(Collectors.toList());
 
         if (timetables.isEmpty()) {
@@ -96,9 +105,7 @@ public class TimetableService {
     }
 
     public List<Timetable> getTimetablesByDate(LocalDate date) {
-        List<Timetable> timetables = DB.getTimetables().values().stream()
-                .filter(timetable -> timetable.getStartDateTime().toLocalDate().equals(date))
-                .collect(Collectors.toList());
+        List<Timetable> timetables = DB.getTimetables().findByStart(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
 
         if (timetables.isEmpty()) {
             log.warn("No timetables found for date {}", date);
@@ -109,72 +116,150 @@ public class TimetableService {
         return timetables;
     }
 
+    public List<Timetable> getTimetablesByDateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            log.error("Invalid date range: {} is after {}", from, to);
+            throw new IllegalArgumentException("Start of the date range must not be after its end");
+        }
+
+        List<Timetable> timetables = DB.getTimetables().findByStart(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+
+        if (timetables.isEmpty()) {
+            log.warn("No timetables found between {} and {}", from, to);
+            throw new TimetableNotFoundException("No timetables found for the given date range ");
+        }
+
+        log.info("Found {} timetables between {} and {}", timetables.size(), from, to);
+        return timetables;
+    }
+
     public void addTimetable(TimetableDTO timetableDTO) {
-        Timetable newTimetable = mappingService.fromTimetableDTO(idGenerator.get(), timetableDTO);
+        DB.write(() -> insertTimetable(timetableDTO));
+    }
+
+    private void insertTimetable(TimetableDTO timetableDTO) {
+        Timetable newTimetable = mappingService.fromTimetableDTO(timetableDTO);
 
         if (!isDurationValid(newTimetable.getStartDateTime(), newTimetable.getEndDateTime())) {
             log.error("The duration of the timetable must be 90 minutes.");
             throw new IllegalArgumentException("The duration of the timetable must be 90 minutes.");
         }
 
-        if (!DB.getTimetables().containsValue(newTimetable)) {
-            if (!isTimeLimitExceeded(newTimetable.getGroupId(), newTimetable.getStartDateTime(), newTimetable.getEndDateTime(), true) ||
-                    !isTimeLimitExceeded(newTimetable.getTeacherId(), newTimetable.getStartDateTime(), newTimetable.getEndDateTime(), false)) {
-                DB.getTimetables().put(idGenerator.getAndIncrement(), newTimetable);
-                log.info("Added new timetable: {}", newTimetable);
-            } else {
-                log.error("The total duration for the group or teacher exceeds the limit.");
-                throw new IllegalArgumentException("The total duration for the group or teacher exceeds the limit.");
+        if (DB.getTimetables().contains(newTimetable)) {
+            log.warn("Attempt to add existing timetable: {}", newTimetable);
+            throw new TimetableAlreadyExistsException("Timetable already exists");
+        }
+
+        long maxMinutesPerDay = propertyService.getPropertyAsInt("max.classes", 90);
+        if (exceedsDailyMinutes(newTimetable, maxMinutesPerDay)) {
+            throw dailyMinutesExceeded();
+        }
+
+        long timetableId = DB.getTimetables().nextId();
+        newTimetable.setId(timetableId);
+        if (!DB.getTimetables().reserveDailyMinutes(timetableId, newTimetable, maxMinutesPerDay)) {
+            throw dailyMinutesExceeded();
+        }
+
+        boolean inserted = false;
+        try {
+            inserted = DB.getTimetables().insert(timetableId, newTimetable);
+        } finally {
+            if (!inserted) {
+                DB.getTimetables().cancelDailyMinutes(timetableId, newTimetable);
             }
-        } else {
+        }
+        if (!inserted) {
             log.warn("Attempt to add existing timetable: {}", newTimetable);
             throw new TimetableAlreadyExistsException("Timetable already exists");
         }
+        log.info("Added new timetable: {}", newTimetable);
     }
 
 
     public void updateTimetable(LocalDate date, TimetableDTO timetableDTO) {
-        Optional<Timetable> existingTimetableOpt = DB.getTimetables().values().stream()
-                .filter(t -> t.getGroupId() == timetableDTO.getGroupId() &&
-                        t.getTeacherId() == timetableDTO.getTeacherId() &&
-                        t.getStartDateTime().toLocalDate().equals(date))
-                .findFirst();
+        updateTimetable(date, timetableDTO, null);
+    }
+
+    public Timetable updateTimetable(LocalDate date, TimetableDTO timetableDTO, Long expectedVersion) {
+        return DB.write(() -> applyTimetableUpdate(date, timetableDTO, expectedVersion));
+    }
+
+    private Timetable applyTimetableUpdate(LocalDate date, TimetableDTO timetableDTO, Long expectedVersion) {
+        Optional<Timetable> existingTimetableOpt = DB.getTimetables().findByGroupId(timetableDTO.getGroupId()).stream()
+                .filter(timetable -> timetable.getTeacherId() == timetableDTO.getTeacherId() &&
+                        timetable.getStartDateTime().toLocalDate().equals(date))
+                .min(Comparator.comparingLong(Timetable::getId));
 
         if (existingTimetableOpt.isPresent()) {
             Timetable existingTimetable = existingTimetableOpt.get();
+            long timetableId = existingTimetable.getId();
 
             if (!isDurationValid(timetableDTO.getStartDateTime(), timetableDTO.getEndDateTime())) {
                 log.error("The duration of the timetable must be 90 minutes.");
                 throw new IllegalArgumentException("The duration of the timetable must be 90 minutes.");
             }
 
-            if (isTimeLimitExceeded(timetableDTO.getGroupId(), timetableDTO.getStartDateTime(), timetableDTO.getEndDateTime(), true)) {
-                throw new IllegalArgumentException("Exceeds group time limit");
+            Timetable updatedTimetable = new Timetable(existingTimetable.getId(),
+                    existingTimetable.getGroupId(),
+                    existingTimetable.getTeacherId(),
+                    timetableDTO.getStartDateTime(),
+                    timetableDTO.getEndDateTime());
+            if (!DB.getTimetables().reserveDailyMinutes(timetableId, updatedTimetable, propertyService.getPropertyAsInt("max.classes", 90))) {
+                log.error("The total duration for the group or teacher exceeds the limit.");
+                throw new IllegalArgumentException("The total duration for the group or teacher exceeds the limit.");
             }
 
-            if (isTimeLimitExceeded(timetableDTO.getTeacherId(), timetableDTO.getStartDateTime(), timetableDTO.getEndDateTime(), false)) {
-                throw new IllegalArgumentException("Exceeds teacher time limit");
+            long version = expectedVersion != null ? expectedVersion : existingTimetable.getVersion();
+            WriteStatus status = WriteStatus.VERSION_CONFLICT;
+            try {
+                status = DB.getTimetables().update(timetableId, updatedTimetable, version);
+            } finally {
+                if (status != WriteStatus.APPLIED) {
+                    DB.getTimetables().cancelDailyMinutes(timetableId, updatedTimetable);
+                }
+            }
+            switch (status) {
+                case APPLIED -> {
+                    log.info("Updated timetable with ID {} to version {}: {}", timetableId, updatedTimetable.getVersion(), updatedTimetable);
+                    return updatedTimetable;
+                }
+                case UNIQUE_CONFLICT -> {
+                    log.warn("Attempt to update timetable to an existing one: {}", updatedTimetable);
+                    throw new TimetableAlreadyExistsException("Timetable already exists");
+                }
+                default -> {
+                    log.warn("Timetable with ID {} is no longer at version {}", timetableId, version);
+                    throw new VersionConflictException("Timetable with id " + timetableId + " was modified concurrently");
+                }
             }
-
-            existingTimetable.setStartDateTime(timetableDTO.getStartDateTime());
-            existingTimetable.setEndDateTime(timetableDTO.getEndDateTime());
         } else {
             throw new TimetableNotFoundException("Timetable not found for the given date, group, and teacher");
         }
     }
 
 
-    private boolean isTimeLimitExceeded(Long entityId, LocalDateTime newStartDateTime, LocalDateTime newEndDateTime, boolean isGroup) {
-        LocalDate date = newStartDateTime.toLocalDate();
-        long totalMinutes = DB.getTimetables().values().stream()
-                .filter(t -> (isGroup ? t.getGroupId() : t.getTeacherId()) == entityId &&
-                        t.getStartDateTime().toLocalDate().equals(date))
-                .mapToLong(t -> Duration.between(t.getStartDateTime(), t.getEndDateTime()).toMinutes())
-                .sum();
+    private List<Timetable> getTimetablesByGroups(List<Group> groups) {
+        return groups.stream()
+                .flatMap(group -> DB.getTimetables().findByGroupId(group.getId()).stream())
+                .collect(Collectors.toList());
+    }
 
-        totalMinutes += Duration.between(newStartDateTime, newEndDateTime).toMinutes();
+    /**
+     * Checks the limit against the current totals, so a timetable that
+     * cannot fit is turned down before it is given an id; the reservation
+     * made afterwards still guards against concurrent inserts.
+     */
+    private boolean exceedsDailyMinutes(Timetable timetable, long maxMinutesPerDay) {
+        LocalDate date = timetable.getStartDateTime().toLocalDate();
+        long minutes = Duration.between(timetable.getStartDateTime(), timetable.getEndDateTime()).toMinutes();
+        return DB.getTimetables().getGroupDailyMinutes(timetable.getGroupId(), date) + minutes > maxMinutesPerDay
+                || DB.getTimetables().getTeacherDailyMinutes(timetable.getTeacherId(), date) + minutes > maxMinutesPerDay;
+    }
 
-        return totalMinutes > propertyService.getPropertyAsInt("max.classes", 90);
+    private IllegalArgumentException dailyMinutesExceeded() {
+        log.error("The total duration for the group or teacher exceeds the limit.");
+        return new IllegalArgumentException("The total duration for the group or teacher exceeds the limit.");
     }
 
     private boolean isDurationValid(LocalDateTime startDateTime, LocalDateTime endDateTime) {
@@ -0,0 +1,259 @@
+package com.khokhlov.universityserver.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.khokhlov.universityserver.consts.Consts.RETRY_AFTER;
+
+/**
+ * Runs servlet handlers on virtual threads, so a slow request does not hold
+ * one of the container's threads. At most {@code maxInFlight} handlers run
+ * at once and at most {@code queueLimit} more wait for a turn; requests
+ * beyond that are turned away with {@code 503 Service Unavailable}. A
+ * request that times out also gets a {@code 503}; whatever its handler still
+ * writes after that is dropped.
+ */
+@Slf4j
+public class AsyncRequestExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final long timeoutMillis;
+
+    public AsyncRequestExecutor(int maxInFlight, int queueLimit, long timeoutMillis) {
+        if (maxInFlight < 1 || queueLimit < 0) {
+            throw new IllegalArgumentException("Invalid async limits: maxInFlight=" + maxInFlight + ", queueLimit=" + queueLimit);
+        }
+        this.running = new Semaphore(maxInFlight);
+        this.admitted = new Semaphore(maxInFlight + queueLimit);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void dispatch(HttpServletRequest req, HttpServletResponse resp, Handler handler) throws IOException {
+        if (!admitted.tryAcquire()) {
+            log.warn("Rejected {} {}: too many requests in flight", req.getMethod(), req.getRequestURI());
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            resp.setHeader(RETRY_AFTER, "1");
+            resp.getWriter().write("Server is busy, try again later");
+            return;
+        }
+        AsyncContext asyncContext;
+        try {
+            asyncContext = req.startAsync(req, resp);
+        } catch (RuntimeException e) {
+            admitted.release();
+            throw e;
+        }
+        asyncContext.setTimeout(timeoutMillis);
+        GuardedResponse guarded = new GuardedResponse(resp);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (guarded.finish()) {
+                    log.warn("Timed out {} {} after {} ms", req.getMethod(), req.getRequestURI(), timeoutMillis);
+                    if (!resp.isCommitted()) {
+                        resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                        resp.setHeader(RETRY_AFTER, "1");
+                    }
+                    asyncContext.complete();
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                if (guarded.finish()) {
+                    log.warn("Error on {} {}: {}", req.getMethod(), req.getRequestURI(), String.valueOf(event.getThrowable()));
+                    asyncContext.complete();
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        submit(() -> {
+            try {
+                handler.handle(req, guarded);
+            } catch (Exception e) {
+                log.error("Error processing async request: {}", e.getMessage(), e);
+                if (!guarded.isCommitted()) {
+                    guarded.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } finally {
+                if (guarded.finish()) {
+                    asyncContext.complete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs {@code task} on a virtual thread once a slot is free; returns
+     * {@code false} without running it when the queue is full.
+     */
+    public boolean execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            return false;
+        }
+        submit(task);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private void submit(Runnable task) {
+        executor.execute(() -> {
+            running.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                running.release();
+                admitted.release();
+            }
+        });
+    }
+
+    /**
+     * Hands the handler's writes on to the response until the request is
+     * finished, by the handler or by a timeout or error, and drops them
+     * after that: by then the container may have recycled the response.
+     * No lock is held while writing, so a handler stalled on a slow client
+     * neither pins its carrier thread nor holds up a timeout.
+     */
+    private static final class GuardedResponse extends HttpServletResponseWrapper {
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private PrintWriter writer;
+
+        GuardedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        /**
+         * @return whether this call finished the request
+         */
+        boolean finish() {
+            return finished.compareAndSet(false, true);
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new GuardedWriter(finished.get() ? Writer.nullWriter() : super.getWriter()));
+            }
+            return writer;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (finished.get()) {
+                throw new IllegalStateException("Response is already complete");
+            }
+            return super.getOutputStream();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return finished.get() || super.isCommitted();
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            if (!finished.get()) {
+                super.setStatus(sc);
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            if (!finished.get()) {
+                super.sendError(sc, msg);
+            }
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            if (!finished.get()) {
+                super.sendError(sc);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!finished.get()) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!finished.get()) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setContentType(String type) {
+            if (!finished.get()) {
+                super.setContentType(type);
+            }
+        }
+
+        private final class GuardedWriter extends Writer {
+            private final Writer target;
+
+            GuardedWriter(Writer target) {
+                this.target = target;
+            }
+
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                if (!finished.get()) {
+                    target.write(buffer, offset, length);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (!finished.get()) {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!finished.get()) {
+                    target.close();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException;
+    }
+}
@@ -0,0 +1,177 @@
+package com.khokhlov.universityserver.servlet;
+
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.service.JsonService;
+import com.khokhlov.universityserver.service.PropertyService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.khokhlov.universityserver.consts.Consts.*;
+
+/**
+ * Streams the change feed as newline-delimited JSON: {@code GET /changes?since=seq}
+ * returns every change after {@code seq}, one per line. With {@code wait=seconds}
+ * it holds the request until there is at least one change or the wait runs out.
+ * Without {@code since}, or when {@code seq} is too old, the only line is
+ * {@code {"resync":true,"seq":...}}: reload everything and continue from that sequence.
+ * <p>
+ * A waiting request is parked in async mode and dispatched again once the
+ * feed gets a change or the wait runs out, so no thread, and no slot of the
+ * {@link AsyncRequestExecutor}, is held while it waits.
+ */
+@Slf4j
+@WebServlet(name = "changeServlet", value = "/changes/*", asyncSupported = true)
+public class ChangeServlet extends HttpServlet {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final long MAX_WAIT_SECONDS = 25;
+
+    private ChangeFeed changeFeed;
+    private JsonService jsonService;
+    private AsyncRequestExecutor asyncRequestExecutor;
+    private long maxWaitSeconds;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        ServletContext context = config.getServletContext();
+        this.changeFeed = (ChangeFeed) context.getAttribute(CHANGE_FEED);
+        this.jsonService = (JsonService) context.getAttribute(JSON_SERVICE);
+        this.asyncRequestExecutor = (AsyncRequestExecutor) context.getAttribute(ASYNC_REQUEST_EXECUTOR);
+        PropertyService propertyService = (PropertyService) context.getAttribute(PROPERTY_SERVICE);
+        this.maxWaitSeconds = propertyService == null ? MAX_WAIT_SECONDS
+                : Long.parseLong(propertyService.getProperty("changes.max.wait.seconds", String.valueOf(MAX_WAIT_SECONDS)));
+        log.info("ChangeServlet initialized");
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        long waitSeconds = parkableWait(req);
+        if (waitSeconds > 0) {
+            park(req, resp, Long.parseLong(req.getParameter(SINCE)), waitSeconds);
+        } else if (asyncRequestExecutor == null) {
+            super.service(req, resp);
+        } else {
+            asyncRequestExecutor.dispatch(req, resp, super::service);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        try {
+            String since = req.getParameter(SINCE);
+            long sequence = since == null ? -1 : Long.parseLong(since);
+            resp.setContentType("application/x-ndjson");
+            PrintWriter out = resp.getWriter();
+            if (since == null) {
+                out.println(jsonService.toJson(new Resync(true, changeFeed.getLastSequence())));
+                out.flush();
+                return;
+            }
+            int sent = writeChanges(out, sequence);
+            log.info("GET request processed. Sent {} changes after {}", sent, sequence);
+        } catch (NumberFormatException e) {
+            log.info("Number format exception: {}", e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("Number format exception");
+        } catch (Exception e) {
+            log.error("Error processing GET request: {}", e.getMessage(), e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            resp.getWriter().write("Error processing request");
+        }
+    }
+
+    /**
+     * @return how long to park the request for, or 0 to answer it right away
+     */
+    private long parkableWait(HttpServletRequest req) {
+        String since = req.getParameter(SINCE);
+        String wait = req.getParameter(WAIT);
+        if (since == null || wait == null || !"GET".equals(req.getMethod())
+                || req.getDispatcherType() != DispatcherType.REQUEST || !req.isAsyncSupported()) {
+            return 0;
+        }
+        try {
+            Long.parseLong(since);
+            return Math.max(0, Math.min(Long.parseLong(wait), maxWaitSeconds));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void park(HttpServletRequest req, HttpServletResponse resp, long since, long waitSeconds) {
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(TimeUnit.SECONDS.toMillis(waitSeconds));
+        AtomicBoolean woken = new AtomicBoolean();
+        Runnable wake = () -> {
+            if (woken.compareAndSet(false, true)) {
+                asyncContext.dispatch();
+            }
+        };
+        Runnable cancel = changeFeed.onChangeAfter(since, wake);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                cancel.run();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                cancel.run();
+                wake.run();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                cancel.run();
+                if (woken.compareAndSet(false, true)) {
+                    asyncContext.complete();
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    private int writeChanges(PrintWriter out, long since) {
+        int sent = 0;
+        long sequence = since;
+        while (true) {
+            ChangeFeed.Page page = changeFeed.read(sequence, PAGE_SIZE);
+            if (page.resyncRequired()) {
+                out.println(jsonService.toJson(new Resync(true, page.lastSequence())));
+                break;
+            }
+            for (ChangeFeed.Change change : page.changes()) {
+                out.println(jsonService.toJson(change));
+                sequence = change.seq();
+            }
+            sent += page.changes().size();
+            if (page.changes().size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        out.flush();
+        return sent;
+    }
+
+    private record Resync(boolean resync, long seq) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.khokhlov.universityserver.servlet;
 
 import com.khokhlov.universityserver.exception.GroupNotFoundException;
+import com.khokhlov.universityserver.model.Group;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.dto.GroupDTO;
 import com.khokhlov.universityserver.service.GroupService;
@@ -15,16 +16,19 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import static com.khokhlov.universityserver.consts.Consts.*;
 import static com.khokhlov.universityserver.utils.HttpRequestUtils.getBody;
 
 @Slf4j
-@WebServlet(name = "GroupServlet", value = "/groups/*")
+@WebServlet(name = "GroupServlet", value = "/groups/*", asyncSupported = true)
 public class GroupServlet extends HttpServlet {
     private GroupService groupService;
     private JsonService jsonService;
+    private AsyncRequestExecutor asyncRequestExecutor;
 
 
     @Override
@@ -33,9 +37,19 @@ public class GroupServlet extends HttpServlet {
         ServletContext context = config.getServletContext();
         this.groupService = (GroupService) context.getAttribute(GROUP_SERVICE);
         this.jsonService = (JsonService) context.getAttribute(JSON_SERVICE);
+        this.asyncRequestExecutor = (AsyncRequestExecutor) context.getAttribute(ASYNC_REQUEST_EXECUTOR);
         log.info("GroupServlet initialized");
     }
 
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (asyncRequestExecutor == null) {
+            super.service(req, resp);
+        } else {
+            asyncRequestExecutor.dispatch(req, resp, super::service);
+        }
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
@@ -110,21 +124,23 @@ public class GroupServlet extends HttpServlet {
     private Object getPathInfo(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String groupNumber = req.getParameter("number");
         String surname = req.getParameter(SURNAME);
+        boolean expandStudents = !IDS.equals(req.getParameter(VIEW));
 
         Object result = null;
 
         try {
             if (groupNumber != null && surname != null) {
-                result = groupService.getGroupByNumberAndSurname(groupNumber, surname);
+                result = expand(groupService.getGroupByNumberAndSurname(groupNumber, surname), expandStudents);
                 log.debug("getPathInfo: Retrieved group by number {} and surname {}", groupNumber, surname);
             } else if (groupNumber != null) {
-                result = groupService.getGroupByNumber(groupNumber);
+                result = expand(groupService.getGroupByNumber(groupNumber), expandStudents);
                 log.debug("getPathInfo: Retrieved group by number {}", groupNumber);
             } else if (surname != null) {
-                result = groupService.getGroupBySurname(surname);
+                result = expand(groupService.getGroupBySurname(surname), expandStudents);
                 log.debug("getPathInfo: Retrieved group by surname {}", surname);
             } else {
-                result = groupService.getAllGroups();
+                Collection<Group> groups = groupService.getAllGroups();
+                result = expandStudents ? groups.stream().map(groupService::getGroupDetails).toList() : groups;
                 log.debug("getPathInfo: Retrieved all groups");
             }
             resp.setStatus(HttpServletResponse.SC_OK);
@@ -142,4 +158,7 @@ public class GroupServlet extends HttpServlet {
         return result;
     }
 
-}
\ No newline at end of file
+    private Object expand(Optional<Group> group, boolean expandStudents) {
+        return expandStudents ? group.map(groupService::getGroupDetails) : group;
+    }
+}
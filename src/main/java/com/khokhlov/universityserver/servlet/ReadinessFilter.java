@@ -0,0 +1,53 @@
+package com.khokhlov.universityserver.servlet;
+
+import com.khokhlov.universityserver.persistence.SnapshotWarmup;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+import static com.khokhlov.universityserver.consts.Consts.RETRY_AFTER;
+import static com.khokhlov.universityserver.consts.Consts.SNAPSHOT_WARMUP;
+
+/**
+ * Holds back API requests while the database is still loading from its
+ * snapshot: student lookups by id are already answered from the mapped
+ * snapshot, everything else gets {@code 503 Service Unavailable}.
+ */
+@Slf4j
+@WebFilter(filterName = "readinessFilter", urlPatterns = {"/students/*", "/teachers/*", "/groups/*", "/timetable/*", "/changes/*"},
+        asyncSupported = true)
+public class ReadinessFilter extends HttpFilter {
+
+    private SnapshotWarmup snapshotWarmup;
+
+    @Override
+    public void init(FilterConfig config) throws ServletException {
+        super.init(config);
+        this.snapshotWarmup = (SnapshotWarmup) config.getServletContext().getAttribute(SNAPSHOT_WARMUP);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain) throws IOException, ServletException {
+        if (snapshotWarmup == null || snapshotWarmup.isReady() || isStudentLookup(req)) {
+            chain.doFilter(req, resp);
+            return;
+        }
+        log.info("Rejected {} {}: database is still loading", req.getMethod(), req.getRequestURI());
+        resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        resp.setHeader(RETRY_AFTER, "1");
+        resp.getWriter().write("Server is starting, try again later");
+    }
+
+    private static boolean isStudentLookup(HttpServletRequest req) {
+        String pathInfo = req.getPathInfo();
+        return "GET".equals(req.getMethod()) && "/students".equals(req.getServletPath())
+                && pathInfo != null && pathInfo.matches("/\\d+");
+    }
+}
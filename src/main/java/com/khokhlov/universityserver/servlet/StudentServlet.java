@@ -2,6 +2,8 @@ package com.khokhlov.universityserver.servlet;
 
 import com.khokhlov.universityserver.exception.StudentAlreadyExistsException;
 import com.khokhlov.universityserver.exception.StudentNotFoundException;
+import com.khokhlov.universityserver.exception.VersionConflictException;
+import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.dto.StudentDTO;
 import com.khokhlov.universityserver.service.JsonService;
 import com.khokhlov.universityserver.service.StudentService;
@@ -15,16 +17,20 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.util.Optional;
 
 import static com.khokhlov.universityserver.consts.Consts.*;
 import static com.khokhlov.universityserver.utils.HttpRequestUtils.getBody;
+import static com.khokhlov.universityserver.utils.HttpRequestUtils.getIfMatchVersion;
+import static com.khokhlov.universityserver.utils.HttpRequestUtils.toETag;
 
 @Slf4j
-@WebServlet(name = "studentService", value = "/students/*")
+@WebServlet(name = "studentService", value = "/students/*", asyncSupported = true)
 public class StudentServlet extends HttpServlet {
 
     private StudentService studentService;
     private JsonService jsonService;
+    private AsyncRequestExecutor asyncRequestExecutor;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -32,9 +38,19 @@ public class StudentServlet extends HttpServlet {
         ServletContext context = config.getServletContext();
         this.studentService = (StudentService) context.getAttribute(STUDENT_SERVICE);
         this.jsonService = (JsonService) context.getAttribute(JSON_SERVICE);
+        this.asyncRequestExecutor = (AsyncRequestExecutor) context.getAttribute(ASYNC_REQUEST_EXECUTOR);
         log.info("StudentServlet initialized");
     }
 
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (asyncRequestExecutor == null) {
+            super.service(req, resp);
+        } else {
+            asyncRequestExecutor.dispatch(req, resp, super::service);
+        }
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
@@ -97,13 +113,18 @@ public class StudentServlet extends HttpServlet {
             var studentDTO = jsonService.fromJson(studentToUpdateAsString, StudentDTO.class);
             studentDTO.validate();
 
-            studentService.updateStudent(studentId, studentDTO);
+            Student updatedStudent = studentService.updateStudent(studentId, studentDTO, getIfMatchVersion(req));
+            resp.setHeader(ETAG, toETag(updatedStudent.getVersion()));
             resp.setStatus(HttpServletResponse.SC_OK);
             log.info("PUT request processed. Student updated: {}", studentDTO);
         } catch (StudentNotFoundException e) {
             log.error("Student not found: {}", e.getMessage(), e);
             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
             resp.getWriter().write(e.getMessage());
+        } catch (VersionConflictException e) {
+            log.warn("Version conflict: {}", e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+            resp.getWriter().write(e.getMessage());
         } catch (Exception e) {
             log.error("Failed to update student: {}", e.getMessage(), e);
             resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -137,7 +158,9 @@ public class StudentServlet extends HttpServlet {
                 String[] pathPart = pathInfo.substring(1).split("/");
                 if (pathPart.length == 1 && pathPart[0].matches("\\d+")) {
                     long id = Integer.parseInt(pathPart[0]);
-                    result = studentService.getStudentById(id);
+                    Optional<Student> student = studentService.getStudentById(id);
+                    student.ifPresent(found -> resp.setHeader(ETAG, toETag(found.getVersion())));
+                    result = student;
                     log.debug("getPathInfo: Retrieved student by id {}", id);
                 }
             } else if (name != null && surname != null) {
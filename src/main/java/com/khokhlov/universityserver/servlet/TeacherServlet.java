@@ -2,6 +2,7 @@ package com.khokhlov.universityserver.servlet;
 
 import com.khokhlov.universityserver.exception.TeacherAlreadyExistsException;
 import com.khokhlov.universityserver.exception.TeacherNotFoundException;
+import com.khokhlov.universityserver.model.Subject;
 import com.khokhlov.universityserver.model.dto.SubjectDTO;
 import com.khokhlov.universityserver.model.dto.TeacherDTO;
 import com.khokhlov.universityserver.service.JsonService;
@@ -17,14 +18,16 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
 
+import static com.khokhlov.universityserver.consts.Consts.SUBJECT;
 import static com.khokhlov.universityserver.utils.HttpRequestUtils.getBody;
 
 @Slf4j
-@WebServlet(name = "teacherServlet", value = "/teachers/*")
+@WebServlet(name = "teacherServlet", value = "/teachers/*", asyncSupported = true)
 public class TeacherServlet extends HttpServlet {
 
     private TeacherService teacherService;
     private JsonService jsonService;
+    private AsyncRequestExecutor asyncRequestExecutor;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -32,13 +35,26 @@ public class TeacherServlet extends HttpServlet {
         ServletContext servletContext = config.getServletContext();
         this.teacherService = (TeacherService) servletContext.getAttribute("teacherService");
         this.jsonService = (JsonService) servletContext.getAttribute("jsonService");
+        this.asyncRequestExecutor = (AsyncRequestExecutor) servletContext.getAttribute("asyncRequestExecutor");
         log.info("TeacherServlet initialized with TeacherService and JsonService");
     }
 
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (asyncRequestExecutor == null) {
+            super.service(req, resp);
+        } else {
+            asyncRequestExecutor.dispatch(req, resp, super::service);
+        }
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
-            var result = teacherService.getAllTeachers();
+            String subject = req.getParameter(SUBJECT);
+            var result = subject != null
+                    ? teacherService.getTeachersBySubject(Subject.fromValue(subject))
+                    : teacherService.getAllTeachers();
 
             resp.setContentType("application/json");
             PrintWriter out = resp.getWriter();
@@ -47,6 +63,10 @@ public class TeacherServlet extends HttpServlet {
 
             log.info("GET request processed. Result: {}", result);
             resp.setStatus(HttpServletResponse.SC_OK);
+        } catch (IllegalArgumentException e) {
+            log.info("Invalid subject: {}", e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("Invalid subject: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error processing GET request: {}", e.getMessage(), e);
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -1,10 +1,13 @@
 package com.khokhlov.universityserver.servlet;
 
 import com.khokhlov.universityserver.exception.TimetableNotFoundException;
+import com.khokhlov.universityserver.exception.VersionConflictException;
+import com.khokhlov.universityserver.model.Timetable;
 import com.khokhlov.universityserver.model.dto.TimetableDTO;
 import com.khokhlov.universityserver.service.JsonService;
 import com.khokhlov.universityserver.service.PropertyService;
 import com.khokhlov.universityserver.service.TimetableService;
+import com.khokhlov.universityserver.utils.SingleFlight;
 import com.khokhlov.universityserver.validator.Validator;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
@@ -19,16 +22,23 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.function.Supplier;
 
 import static com.khokhlov.universityserver.consts.Consts.*;
 import static com.khokhlov.universityserver.utils.HttpRequestUtils.getBody;
+import static com.khokhlov.universityserver.utils.HttpRequestUtils.getIfMatchVersion;
+import static com.khokhlov.universityserver.utils.HttpRequestUtils.toETag;
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
 
 @Slf4j
-@WebServlet(name = "TimetableServlet", value = "/timetable/*")
+@WebServlet(name = "TimetableServlet", value = "/timetable/*", asyncSupported = true)
 public class TimetableServlet extends HttpServlet {
     private TimetableService timetableService;
     private PropertyService propertyService;
     private JsonService jsonService;
+    private AsyncRequestExecutor asyncRequestExecutor;
+    private final SingleFlight<String, String> queries = new SingleFlight<>(1024);
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -37,17 +47,27 @@ public class TimetableServlet extends HttpServlet {
         this.timetableService = (TimetableService) context.getAttribute(TIMETABLE_SERVICE);
         this.propertyService = (PropertyService) context.getAttribute(PROPERTY_SERVICE);
         this.jsonService = (JsonService) context.getAttribute(JSON_SERVICE);
+        this.asyncRequestExecutor = (AsyncRequestExecutor) context.getAttribute(ASYNC_REQUEST_EXECUTOR);
         log.info("TimetableServlet initialized.");
     }
 
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (asyncRequestExecutor == null) {
+            super.service(req, resp);
+        } else {
+            asyncRequestExecutor.dispatch(req, resp, super::service);
+        }
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
-            var result = getPathInfo(req, resp);
+            String result = getPathInfo(req, resp);
 
             resp.setContentType("application/json");
             PrintWriter out = resp.getWriter();
-            out.print(jsonService.toJson(result));
+            out.print(result);
             out.flush();
 
             log.info("GET request processed. Result: {}", result);
@@ -83,9 +103,14 @@ public class TimetableServlet extends HttpServlet {
             String body = getBody(req);
             TimetableDTO timetableDTO = jsonService.fromJson(body, TimetableDTO.class);
             Validator.validateTimetable(timetableDTO.getStartDateTime(), timetableDTO.getEndDateTime(), propertyService);
-            timetableService.updateTimetable(date, timetableDTO);
+            Timetable updatedTimetable = timetableService.updateTimetable(date, timetableDTO, getIfMatchVersion(req));
+            resp.setHeader(ETAG, toETag(updatedTimetable.getVersion()));
             resp.setStatus(HttpServletResponse.SC_OK);
             log.info("Timetable updated successfully.");
+        } catch (VersionConflictException e) {
+            log.warn("Version conflict: {}", e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+            resp.getWriter().write(e.getMessage());
         } catch (Exception e) {
             log.error("Error updating timetable: {}", e.getMessage());
             resp.setStatus(HttpServletResponse.SC_CONFLICT);
@@ -93,33 +118,63 @@ public class TimetableServlet extends HttpServlet {
         }
     }
 
-    private Object getPathInfo(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    private String getPathInfo(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String groupNumber = req.getParameter("groupNumber");
         String studentSurname = req.getParameter("studentSurname");
+        String studentId = req.getParameter("studentId");
         String teacherSurname = req.getParameter("teacherSurname");
         String date = req.getParameter("date");
+        String from = req.getParameter("from");
+        String to = req.getParameter("to");
 
-        Object result = null;
+        String result = null;
 
         try {
+            String queryKey;
+            Supplier<Object> query;
             if (groupNumber != null) {
-                result = timetableService.getTimetablesByGroupNumber(Long.parseLong(groupNumber));
+                long number = Long.parseLong(groupNumber);
+                queryKey = "groupNumber=" + number;
+                query = () -> timetableService.getTimetablesByGroupNumber(number);
             } else if (studentSurname != null) {
-                result = timetableService.getTimetablesByStudentSurname(studentSurname);
+                queryKey = "studentSurname=" + normalize(studentSurname);
+                query = () -> timetableService.getTimetablesByStudentSurname(studentSurname);
+            } else if (studentId != null) {
+                long id = Long.parseLong(studentId);
+                queryKey = "studentId=" + id;
+                query = () -> timetableService.getTimetablesByStudentId(id);
             } else if (teacherSurname != null) {
-                result = timetableService.getTimetablesByTeacherSurname(teacherSurname);
+                queryKey = "teacherSurname=" + normalize(teacherSurname);
+                query = () -> timetableService.getTimetablesByTeacherSurname(teacherSurname);
+            } else if (from != null && to != null) {
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+                LocalDate fromDate = LocalDate.parse(from, formatter);
+                LocalDate toDate = LocalDate.parse(to, formatter);
+                queryKey = "from=" + fromDate + "&to=" + toDate;
+                query = () -> timetableService.getTimetablesByDateRange(fromDate, toDate);
             } else if (date != null) {
                 LocalDate dateFormat = LocalDate.parse(date, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-                result = timetableService.getTimetablesByDate(dateFormat);
+                queryKey = "date=" + dateFormat;
+                query = () -> timetableService.getTimetablesByDate(dateFormat);
             } else {
-                result = timetableService.getAllTimetables();
+                queryKey = "";
+                query = timetableService::getAllTimetables;
             }
+            result = queries.get(queryKey, timetableService.getDataVersion(), () -> jsonService.toJson(query.get()));
             resp.setStatus(HttpServletResponse.SC_OK);
             log.info("Timetables retrieved successfully.");
         } catch (NumberFormatException e) {
             log.error("Invalid group number format: {}", e.getMessage());
             resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             resp.getWriter().write("Invalid group number format: " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            log.error("Invalid date format: {}", e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("Invalid date format: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid request parameters: {}", e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("Invalid request parameters: " + e.getMessage());
         } catch (TimetableNotFoundException e) {
             log.error("Timetable not found: {}", e.getMessage());
             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
@@ -8,6 +8,8 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.BufferedReader;
 import java.io.IOException;
 
+import static com.khokhlov.universityserver.consts.Consts.IF_MATCH;
+
 @Slf4j
 @UtilityClass
 public class HttpRequestUtils {
@@ -32,4 +34,27 @@ public class HttpRequestUtils {
         }
         return stringBuilder.toString();
     }
+
+    public static Long getIfMatchVersion(HttpServletRequest request) {
+        String ifMatch = request.getHeader(IF_MATCH);
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("Malformed If-Match header: " + ifMatch);
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed If-Match header: " + ifMatch, e);
+        }
+    }
+
+    public static String toETag(long version) {
+        return "\"" + version + "\"";
+    }
 }
@@ -0,0 +1,27 @@
+package com.khokhlov.universityserver.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.List;
+import java.util.Locale;
+
+@UtilityClass
+public class NormalizationUtils {
+    private static final StringPool NAMES = new StringPool(8192);
+    private static final StringPool NORMALIZED_NAMES = new StringPool(8192);
+
+    public static String canonical(String value) {
+        return NAMES.canonical(value);
+    }
+
+    public static String normalize(String value) {
+        return value == null ? null : NORMALIZED_NAMES.canonical(value.toLowerCase(Locale.ROOT));
+    }
+
+    public static List<String> normalize(String name, String surname) {
+        if (name == null || surname == null) {
+            return null;
+        }
+        return List.of(normalize(name), normalize(surname));
+    }
+}
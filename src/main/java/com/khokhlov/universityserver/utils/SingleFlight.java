@@ -0,0 +1,73 @@
+package com.khokhlov.universityserver.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical computations. Callers asking for the same key while it
+ * is being computed wait for that computation instead of starting their
+ * own, and its result keeps being served until the caller's data version
+ * moves past the one it was computed for. Failures are handed to every
+ * waiting caller but are not kept. Beyond {@code maxEntries} keys, stale
+ * results are dropped first, then other finished ones.
+ */
+public class SingleFlight<K, V> {
+
+    private final int maxEntries;
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public V get(K key, long version, Supplier<V> loader) {
+        Flight<V> own = new Flight<>(version, new CompletableFuture<>());
+        Flight<V> flight = flights.compute(key, (k, current) ->
+                current != null && current.version() >= version ? current : own);
+        if (flight == own) {
+            if (flights.size() > maxEntries) {
+                evict(key, version);
+            }
+            try {
+                own.result().complete(loader.get());
+            } catch (Throwable e) {
+                flights.remove(key, own);
+                own.result().completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return flight.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void evict(K key, long version) {
+        flights.values().removeIf(other -> other.version() < version);
+        Iterator<Map.Entry<K, Flight<V>>> entries = flights.entrySet().iterator();
+        while (flights.size() > maxEntries && entries.hasNext()) {
+            Map.Entry<K, Flight<V>> entry = entries.next();
+            if (!entry.getKey().equals(key) && entry.getValue().result().isDone()) {
+                entries.remove();
+            }
+        }
+    }
+
+    public int size() {
+        return flights.size();
+    }
+
+    private record Flight<V>(long version, CompletableFuture<V> result) {
+    }
+}
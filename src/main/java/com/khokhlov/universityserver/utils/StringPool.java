@@ -0,0 +1,42 @@
+package com.khokhlov.universityserver.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free canonicalization pool. Each string hashes to one slot;
+ * an equal string already in the slot is returned instead of the argument,
+ * otherwise the argument takes the slot over. Memory is capped at the slot
+ * count and a miss only costs the deduplication of that one value.
+ */
+public class StringPool {
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+
+    public StringPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String pooled = slots.get(index);
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        slots.set(index, value);
+        return value;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,155 @@
+package com.khokhlov.universityserver.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.service.JsonService;
+import com.khokhlov.universityserver.servlet.AsyncRequestExecutor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Latency of tiny requests while slow ones (a full timetable dump followed
+ * by a slow client write) keep arriving. A fixed pool of platform threads
+ * stands in for the container: in blocking mode it runs the handlers
+ * itself, in async mode it only hands them to {@link AsyncRequestExecutor}.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=AsyncServletBenchmark [-Pargs="seconds containerThreads slowClients slowWriteMillis"]}.
+ */
+public class AsyncServletBenchmark {
+
+    private static final int TINY_CLIENTS = 8;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int containerThreads = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int slowClients = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long slowWriteMillis = args.length > 3 ? Long.parseLong(args[3]) : 200;
+
+        MemoryDB db = new MemoryDB();
+        LocalDateTime start = LocalDateTime.of(2024, 9, 2, 8, 0);
+        for (long i = 1; i <= 500; i++) {
+            LocalDateTime classStart = start.plusMinutes(i * 100);
+            db.getTimetables().put(i, new Timetable(i, i % 50, i % 40, classStart, classStart.plusMinutes(90)));
+        }
+        db.getStudents().put(1L, new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90"));
+
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new Jdk8Module())
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        JsonService jsonService = new JsonService(objectMapper);
+        Runnable slow = () -> {
+            jsonService.toJson(db.getTimetables().values());
+            sleep(slowWriteMillis);
+        };
+        Runnable tiny = () -> jsonService.toJson(db.getStudents().get(1L));
+
+        System.out.printf("seconds=%d containerThreads=%d slowClients=%d slowWriteMillis=%d%n",
+                seconds, containerThreads, slowClients, slowWriteMillis);
+        for (int round = 0; round < 2; round++) {
+            System.out.printf("--- round %d%n", round + 1);
+            ExecutorService container = Executors.newFixedThreadPool(containerThreads);
+            run("blocking", seconds, slowClients, slow, tiny,
+                    handler -> CompletableFuture.runAsync(handler, container));
+            container.shutdownNow();
+
+            ExecutorService asyncContainer = Executors.newFixedThreadPool(containerThreads);
+            try (AsyncRequestExecutor executor = new AsyncRequestExecutor(256, 1024, 30_000)) {
+                run("virtual threads", seconds, slowClients, slow, tiny, handler -> {
+                    CompletableFuture<Void> done = new CompletableFuture<>();
+                    asyncContainer.execute(() -> {
+                        boolean accepted = executor.execute(() -> {
+                            handler.run();
+                            done.complete(null);
+                        });
+                        if (!accepted) {
+                            done.completeExceptionally(new IllegalStateException("503"));
+                        }
+                    });
+                    return done;
+                });
+            }
+            asyncContainer.shutdownNow();
+        }
+    }
+
+    private static void run(String name, int seconds, int slowClients, Runnable slow, Runnable tiny,
+                            Function<Runnable, CompletableFuture<Void>> server) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong slowDone = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<long[]> tinyLatencies = new ArrayList<>();
+
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        for (int c = 0; c < slowClients; c++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        server.apply(slow).join();
+                        slowDone.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (int c = 0; c < TINY_CLIENTS; c++) {
+            long[] latencies = new long[1_000_000];
+            tinyLatencies.add(latencies);
+            clients.execute(() -> {
+                int count = 0;
+                while (System.nanoTime() < deadline && count < latencies.length - 1) {
+                    long begin = System.nanoTime();
+                    try {
+                        server.apply(tiny).join();
+                        latencies[++count] = System.nanoTime() - begin;
+                    } catch (RuntimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                latencies[0] = count;
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        long[] all = tinyLatencies.stream()
+                .flatMapToLong(latencies -> Arrays.stream(latencies, 1, (int) latencies[0] + 1))
+                .sorted()
+                .toArray();
+        System.out.printf("%-16s tiny p50 %8.2f ms  p99 %8.2f ms  tiny %8.0f req/s  slow %6.0f req/s  rejected %d%n",
+                name,
+                percentile(all, 0.50) / 1_000_000.0,
+                percentile(all, 0.99) / 1_000_000.0,
+                all.length / (double) seconds,
+                slowDone.get() / (double) seconds,
+                rejected.get());
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
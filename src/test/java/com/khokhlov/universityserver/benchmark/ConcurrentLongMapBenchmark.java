@@ -0,0 +1,126 @@
+package com.khokhlov.universityserver.benchmark;
+
+import com.khokhlov.universityserver.model.data.ConcurrentLongMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ConcurrentLongMap} with {@code ConcurrentHashMap<Long, V>}:
+ * retained heap per entry and multi-threaded get/put throughput.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=ConcurrentLongMapBenchmark [-Pargs="entries threads"]}.
+ */
+public class ConcurrentLongMapBenchmark {
+
+    private static final Object VALUE = new Object();
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("entries=%d threads=%d%n", entries, threads);
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("--- round %d%n", round + 1);
+            run("ConcurrentHashMap<Long>", entries, threads, new ChmAdapter());
+            run("ConcurrentLongMap", entries, threads, new LongMapAdapter());
+        }
+    }
+
+    private static void run(String name, int entries, int threads, Adapter map) throws Exception {
+        long before = usedHeap();
+        long putNanos = timed(threads, entries, map::put);
+        long after = usedHeap();
+        long getNanos = timed(threads, entries, key -> {
+            if (map.get(key) == null) {
+                throw new IllegalStateException("Missing key " + key);
+            }
+        });
+        System.out.printf("%-24s %6.1f bytes/entry  put %7.2f Mops/s  get %7.2f Mops/s%n",
+                name,
+                (after - before) / (double) entries,
+                entries * 1_000.0 / putNanos,
+                entries * 1_000.0 / getNanos);
+        map.clear();
+    }
+
+    private static long timed(int threads, int entries, KeyAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int perThread = entries / threads;
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long from = (long) t * perThread;
+            long to = t == threads - 1 ? entries : from + perThread;
+            executor.execute(() -> {
+                for (long key = from; key < to; key++) {
+                    action.apply(key);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        return System.nanoTime() - start;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private interface KeyAction {
+        void apply(long key);
+    }
+
+    private interface Adapter {
+        void put(long key);
+
+        Object get(long key);
+
+        void clear();
+    }
+
+    private static final class ChmAdapter implements Adapter {
+        private Map<Long, Object> map = new ConcurrentHashMap<>();
+
+        @Override
+        public void put(long key) {
+            map.put(key, VALUE);
+        }
+
+        @Override
+        public Object get(long key) {
+            return map.get(key);
+        }
+
+        @Override
+        public void clear() {
+            map = new ConcurrentHashMap<>();
+        }
+    }
+
+    private static final class LongMapAdapter implements Adapter {
+        private ConcurrentLongMap<Object> map = new ConcurrentLongMap<>();
+
+        @Override
+        public void put(long key) {
+            map.put(key, VALUE);
+        }
+
+        @Override
+        public Object get(long key) {
+            return map.get(key);
+        }
+
+        @Override
+        public void clear() {
+            map = new ConcurrentLongMap<>();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.khokhlov.universityserver.benchmark;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.service.GroupService;
+import com.khokhlov.universityserver.service.MappingService;
+import com.khokhlov.universityserver.service.PropertyService;
+import com.khokhlov.universityserver.service.StudentService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of {@link GroupService#addStudentsToGroup}. Each thread makes
+ * one addition per round; with a shared group all threads of a round race
+ * for the same row (every conflict costs a CAS retry), with a group per
+ * thread they never touch the same row.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=GroupMembershipBenchmark [-Pargs="opsPerThread threads"]}.
+ */
+public class GroupMembershipBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("opsPerThread=%d threads=%d%n", opsPerThread, threads);
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("--- round %d%n", round + 1);
+            run("shared group", opsPerThread, threads, true);
+            run("group per thread", opsPerThread, threads, false);
+        }
+    }
+
+    private static void run(String name, int opsPerThread, int threads, boolean shared) throws Exception {
+        MemoryDB db = new MemoryDB();
+        int groupsPerRound = shared ? 1 : threads;
+        long groupCount = (long) opsPerThread * groupsPerRound;
+        for (long i = 1; i <= groupCount; i++) {
+            db.getGroups().put(i, new Group(i, i, new long[0]));
+        }
+        MappingService mappingService = new MappingService();
+        GroupService groupService = new GroupService(db, mappingService, new StudentService(db, mappingService), new UnboundedGroups());
+
+        AtomicLong studentIds = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int slot = shared ? 0 : t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int round = 0; round < opsPerThread; round++) {
+                    long groupNumber = (long) round * groupsPerRound + slot + 1;
+                    long id = studentIds.incrementAndGet();
+                    Student student = new Student(id, "Name", "Surname" + id, LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+                    groupService.addStudentsToGroup(groupNumber, List.of(student));
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        long nanos = System.nanoTime() - begin;
+
+        long total = (long) opsPerThread * threads;
+        long stored = db.getGroups().values().stream().mapToLong(Group::getStudentCount).sum();
+        if (stored != total) {
+            throw new IllegalStateException("Lost updates: expected " + total + " members, found " + stored);
+        }
+        System.out.printf("%-18s %10.0f ops/s%n", name, total * 1_000_000_000.0 / nanos);
+    }
+
+    private static final class UnboundedGroups extends PropertyService {
+        @Override
+        public int getPropertyAsInt(String propertyName) {
+            return "max.students".equals(propertyName) ? Integer.MAX_VALUE : super.getPropertyAsInt(propertyName);
+        }
+    }
+}
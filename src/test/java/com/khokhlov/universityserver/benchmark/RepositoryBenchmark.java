@@ -0,0 +1,124 @@
+package com.khokhlov.universityserver.benchmark;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.repository.Repositories;
+import com.khokhlov.universityserver.repository.jdbc.JdbcRepositories;
+import com.khokhlov.universityserver.repository.memory.MemoryRepositories;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Indexed lookups the services make (student by id, students by surname,
+ * a group's timetables, a day's timetables and a group's daily minutes)
+ * against the in-memory repositories and against the same rows imported
+ * into an embedded H2 file.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=RepositoryBenchmark [-Pargs="students timetables lookups"]}.
+ */
+public class RepositoryBenchmark {
+
+    private static final int GROUPS = 2_000;
+    private static final int TEACHERS = 500;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 9, 2, 8, 0);
+
+    public static void main(String[] args) throws IOException {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int timetables = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        System.out.printf("students=%d timetables=%d lookups=%d%n", students, timetables, lookups);
+
+        MemoryDB db = populate(students, timetables);
+        Path directory = Files.createTempDirectory("repository-benchmark");
+        try (JdbcRepositories jdbc = new JdbcRepositories("jdbc:h2:" + directory.resolve("university"), 4)) {
+            long begin = System.nanoTime();
+            jdbc.importFrom(db);
+            System.out.printf("import           %8.0f ms  file %d MB%n", millisSince(begin), sizeInMb(directory));
+            for (int round = 0; round < 2; round++) {
+                System.out.printf("--- round %d%n", round + 1);
+                lookups("memory", new MemoryRepositories(db), students, lookups);
+                lookups("jdbc", jdbc, students, lookups);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static void lookups(String name, Repositories repositories, int students, int lookups) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long found = 0;
+        long byId = 0;
+        long bySurname = 0;
+        long byGroup = 0;
+        long byDay = 0;
+        long minutes = 0;
+        for (int i = 0; i < lookups; i++) {
+            long begin = System.nanoTime();
+            found += repositories.getStudents().findById(random.nextLong(1, students + 1)).isPresent() ? 1 : 0;
+            long afterId = System.nanoTime();
+            found += repositories.getStudents().findBySurname("Surname" + random.nextInt(students / 10 + 1)).size();
+            long afterSurname = System.nanoTime();
+            long groupId = random.nextLong(1, GROUPS + 1);
+            found += repositories.getTimetables().findByGroupId(groupId).size();
+            long afterGroup = System.nanoTime();
+            LocalDate day = START.toLocalDate().plusDays(random.nextInt(365));
+            found += repositories.getTimetables().findByStart(day.atStartOfDay(), day.plusDays(1).atStartOfDay()).size();
+            long afterDay = System.nanoTime();
+            found += repositories.getTimetables().getGroupDailyMinutes(groupId, day);
+            long afterMinutes = System.nanoTime();
+            byId += afterId - begin;
+            bySurname += afterSurname - afterId;
+            byGroup += afterGroup - afterSurname;
+            byDay += afterDay - afterGroup;
+            minutes += afterMinutes - afterDay;
+        }
+        System.out.printf("%-8s us/op  by id %7.1f  by surname %7.1f  by group %7.1f  by day %7.1f  daily minutes %7.1f  (%d)%n",
+                name, micros(byId, lookups), micros(bySurname, lookups), micros(byGroup, lookups),
+                micros(byDay, lookups), micros(minutes, lookups), found);
+    }
+
+    private static MemoryDB populate(int students, int timetables) {
+        MemoryDB db = new MemoryDB();
+        for (long id = 1; id <= students; id++) {
+            db.getStudents().put(id, new Student(id, "Name" + id, "Surname" + id / 10, LocalDate.of(2000, 1, 1), null));
+        }
+        for (long id = 1; id <= GROUPS; id++) {
+            long first = (id - 1) * 3 % students + 1;
+            db.getGroups().put(id, new Group(id, 100 + id, new long[]{first, first % students + 1, (first + 1) % students + 1}));
+        }
+        long spacingSeconds = Math.max(1, 365L * 24 * 60 * 60 / timetables);
+        for (long id = 1; id <= timetables; id++) {
+            LocalDateTime classStart = START.plusSeconds(id * spacingSeconds);
+            db.getTimetables().put(id, new Timetable(id, id % GROUPS + 1, id % TEACHERS + 1, classStart, classStart.plusMinutes(90)));
+        }
+        return db;
+    }
+
+    private static long sizeInMb(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum() >> 20;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static double micros(long nanos, int count) {
+        return nanos / 1_000.0 / count;
+    }
+
+    private static double millisSince(long begin) {
+        return (System.nanoTime() - begin) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,135 @@
+package com.khokhlov.universityserver.benchmark;
+
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.persistence.SnapshotFile;
+import com.khokhlov.universityserver.persistence.SnapshotWarmup;
+import com.khokhlov.universityserver.persistence.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Restart time of a populated database whose students have been edited
+ * {@code updatesPerStudent} times: replaying the whole write-ahead log,
+ * loading a snapshot and replaying only the log written after it, and
+ * mapping the snapshot to answer lookups by id while it loads.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=RestartBenchmark [-Pargs="students timetables updatesPerStudent tailChanges"]}.
+ */
+public class RestartBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int timetables = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int updatesPerStudent = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int tailChanges = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        Path directory = Files.createTempDirectory("restart-benchmark");
+        Path logFile = directory.resolve("wal.log");
+        SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("db.snapshot"));
+        System.out.printf("students=%d timetables=%d updatesPerStudent=%d tailChanges=%d%n",
+                students, timetables, updatesPerStudent, tailChanges);
+
+        populate(logFile, directory, students, timetables, updatesPerStudent);
+        restart("log replay", logFile, null);
+
+        checkpointAndChange(logFile, snapshotFile, directory, tailChanges);
+
+        restart("snapshot + tail", logFile, snapshotFile);
+        warmup(logFile, snapshotFile, students);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static void checkpointAndChange(Path logFile, SnapshotFile snapshotFile, Path directory, int tailChanges) {
+        MemoryDB db = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, 0)) {
+            wal.replay(db);
+            wal.attach(db);
+            long begin = System.nanoTime();
+            wal.checkpoint(db, snapshotFile);
+            System.out.printf("checkpoint       %8.0f ms  snapshot %6d MB%n", millisSince(begin), sizeInMb(directory, "db.snapshot"));
+            db.write(() -> {
+                for (long id = 1; id <= tailChanges; id++) {
+                    db.getStudents().put(id, new Student(id, "Changed" + id, "Doe", LocalDate.of(2000, 1, 1), null));
+                }
+            });
+        }
+    }
+
+    private static void restart(String name, Path logFile, SnapshotFile snapshotFile) {
+        System.gc();
+        long begin = System.nanoTime();
+        MemoryDB db = new MemoryDB();
+        long tail;
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, 0)) {
+            tail = snapshotFile == null ? wal.replay(db) : wal.replay(db, snapshotFile);
+        }
+        System.out.printf("%-16s %8.0f ms  replayed %d changes, %d students, %d timetables%n",
+                name, millisSince(begin), tail, db.getStudents().size(), db.getTimetables().size());
+    }
+
+    private static void warmup(Path logFile, SnapshotFile snapshotFile, int students) throws InterruptedException {
+        System.gc();
+        long begin = System.nanoTime();
+        MemoryDB db = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, 0);
+             SnapshotWarmup warmup = new SnapshotWarmup(db, snapshotFile.map(), wal)) {
+            warmup.start(() -> {
+            });
+            db.getStudents().get((long) students);
+            double lookups = millisSince(begin);
+            warmup.awaitReady();
+            System.out.printf("mapped warm-up   %8.0f ms  first lookup after %.1f ms, %d students, %d timetables%n",
+                    millisSince(begin), lookups, db.getStudents().size(), db.getTimetables().size());
+        }
+    }
+
+    private static void populate(Path logFile, Path directory, int students, int timetables, int updatesPerStudent) {
+        MemoryDB db = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, 0)) {
+            wal.attach(db);
+            long begin = System.nanoTime();
+            db.write(() -> populate(db, students, timetables, updatesPerStudent));
+            System.out.printf("populate + log   %8.0f ms  log %6d MB%n", millisSince(begin), sizeInMb(directory, "wal.log"));
+        }
+    }
+
+    private static void populate(MemoryDB db, int students, int timetables, int updatesPerStudent) {
+        for (int round = 0; round <= updatesPerStudent; round++) {
+            for (long id = 1; id <= students; id++) {
+                db.getStudents().put(id, new Student(id, "Name" + id, "Doe", LocalDate.of(2000, 1, 1), "+7 " + round));
+            }
+        }
+        LocalDateTime start = LocalDateTime.of(2024, 9, 2, 8, 0);
+        for (long id = 1; id <= timetables; id++) {
+            LocalDateTime classStart = start.plusMinutes(id * 100);
+            db.getTimetables().put(id, new Timetable(id, id % 10_000, id % 2_000, classStart, classStart.plusMinutes(90)));
+        }
+    }
+
+    private static long sizeInMb(Path directory, String prefix) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .mapToLong(file -> file.toFile().length())
+                    .sum() >> 20;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static double millisSince(long begin) {
+        return (System.nanoTime() - begin) / 1_000_000.0;
+    }
+}
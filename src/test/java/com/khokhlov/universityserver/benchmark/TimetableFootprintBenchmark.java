@@ -0,0 +1,56 @@
+package com.khokhlov.universityserver.benchmark;
+
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.TimetableStorage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Heap held per timetable row by each {@link TimetableStorage}, counting
+ * the rows together with every index kept over them (key uniqueness and
+ * daily minutes included). Fails when columnar storage needs more than
+ * {@value #MAX_COLUMNAR_BYTES_PER_ROW} bytes a row.
+ * <p>
+ * Run with {@code gradle benchmark -Pbenchmark=TimetableFootprintBenchmark [-Pargs="rows"]}.
+ */
+public class TimetableFootprintBenchmark {
+
+    private static final long MAX_COLUMNAR_BYTES_PER_ROW = 150;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        System.out.printf("rows=%d%n", rows);
+        measure(TimetableStorage.OBJECT, rows);
+        long columnar = measure(TimetableStorage.COLUMNAR, rows);
+        if (columnar > MAX_COLUMNAR_BYTES_PER_ROW) {
+            throw new IllegalStateException("Columnar storage holds " + columnar + " B/row, expected at most "
+                    + MAX_COLUMNAR_BYTES_PER_ROW);
+        }
+    }
+
+    private static long measure(TimetableStorage storage, int rows) {
+        long before = usedHeap();
+        MemoryDB db = new MemoryDB(storage);
+        for (long id = 1; id <= rows; id++) {
+            LocalDateTime start = START.plusDays(id % 365).plusMinutes(id / 365 % 1440);
+            db.getTimetables().insert(id, new Timetable(id, id % 1000, id % 300, start, start.plusMinutes(90)));
+        }
+        long bytesPerRow = (usedHeap() - before) / rows;
+        if (db.getTimetables().size() != rows) {
+            throw new IllegalStateException("Expected " + rows + " rows, found " + db.getTimetables().size());
+        }
+        System.out.printf("%-9s %6d B/row%n", storage, bytesPerRow);
+        return bytesPerRow;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
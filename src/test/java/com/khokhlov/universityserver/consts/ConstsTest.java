@@ -8,14 +8,29 @@ class ConstsTest {
 
     @Test
     public void testConsts() {
+        assertEquals("memoryDB", Consts.MEMORY_DB);
+        assertEquals("repositories", Consts.REPOSITORIES);
+        assertEquals("writeAheadLog", Consts.WRITE_AHEAD_LOG);
+        assertEquals("snapshotter", Consts.SNAPSHOTTER);
+        assertEquals("snapshotWarmup", Consts.SNAPSHOT_WARMUP);
+        assertEquals("changeFeed", Consts.CHANGE_FEED);
         assertEquals("propertyService", Consts.PROPERTY_SERVICE);
         assertEquals("studentService", Consts.STUDENT_SERVICE);
         assertEquals("teacherService", Consts.TEACHER_SERVICE);
         assertEquals("groupService", Consts.GROUP_SERVICE);
         assertEquals("timetableService", Consts.TIMETABLE_SERVICE);
         assertEquals("jsonService", Consts.JSON_SERVICE);
+        assertEquals("asyncRequestExecutor", Consts.ASYNC_REQUEST_EXECUTOR);
 
         assertEquals("name", Consts.NAME);
         assertEquals("surname", Consts.SURNAME);
+        assertEquals("subject", Consts.SUBJECT);
+        assertEquals("view", Consts.VIEW);
+        assertEquals("ids", Consts.IDS);
+        assertEquals("since", Consts.SINCE);
+        assertEquals("wait", Consts.WAIT);
+        assertEquals("ETag", Consts.ETAG);
+        assertEquals("If-Match", Consts.IF_MATCH);
+        assertEquals("Retry-After", Consts.RETRY_AFTER);
     }
 }
\ No newline at end of file
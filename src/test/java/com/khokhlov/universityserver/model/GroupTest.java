@@ -24,7 +24,8 @@ class GroupTest {
 
         assertEquals(1L, group.getId());
         assertEquals(101L, group.getNumber());
-        assertEquals(students, group.getStudents());
+        assertArrayEquals(new long[]{1L, 2L}, group.getStudentIds());
+        assertEquals(2, group.getStudentCount());
     }
 
     @Test
@@ -41,4 +42,16 @@ class GroupTest {
         assertEquals(group1.hashCode(), group2.hashCode());
         assertNotEquals(group1.hashCode(), group3.hashCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_KeepSortedDistinctIds_When_StudentsAreAdded() {
+        Group group = new Group(1L, 101L, new long[]{5L, 1L});
+
+        Group updated = group.withStudents(3L, 5L);
+
+        assertArrayEquals(new long[]{1L, 5L}, group.getStudentIds());
+        assertArrayEquals(new long[]{1L, 3L, 5L}, updated.getStudentIds());
+        assertTrue(updated.containsStudent(3L));
+        assertFalse(updated.containsStudent(2L));
+    }
+}
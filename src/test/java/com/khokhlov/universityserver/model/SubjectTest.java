@@ -2,6 +2,8 @@ package com.khokhlov.universityserver.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SubjectTest {
@@ -22,4 +24,13 @@ class SubjectTest {
     void should_ThrowIllegalArgumentException_When_InvalidValueProvided() {
         assertThrows(IllegalArgumentException.class, () -> Subject.fromValue("NonExistSubject"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_RoundTripSubjectsThroughMask() {
+        int mask = Subject.toMask(List.of(Subject.PHYSICS, Subject.MATH, Subject.PHYSICS));
+
+        assertEquals(Subject.MATH.mask() | Subject.PHYSICS.mask(), mask);
+        assertEquals(List.of(Subject.MATH, Subject.PHYSICS), Subject.fromMask(mask));
+        assertEquals(List.of(), Subject.fromMask(Subject.toMask(null)));
+    }
+}
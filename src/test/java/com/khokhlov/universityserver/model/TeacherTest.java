@@ -55,4 +55,15 @@ class TeacherTest {
         assertNotEquals(teacher_1, notTeacher);
     }
 
-}
\ No newline at end of file
+    @Test
+    void should_ReturnCopyWithSubject_When_SubjectIsAdded() {
+        Teacher teacher = createTeacher_2();
+
+        Teacher updated = teacher.withSubject(Subject.HISTORY);
+
+        assertFalse(teacher.hasSubject(Subject.HISTORY));
+        assertTrue(updated.hasSubject(Subject.HISTORY));
+        assertEquals(List.of(Subject.ECONOMICS, Subject.CHEMISTRY, Subject.HISTORY), updated.getSubjects());
+        assertEquals(teacher.getId(), updated.getId());
+    }
+}
@@ -0,0 +1,91 @@
+package com.khokhlov.universityserver.model.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockIdAllocatorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_HandOutConsecutiveIds_When_CalledFromOneThread() {
+        BlockIdAllocator allocator = new BlockIdAllocator(5L, 2, null);
+
+        assertEquals(5L, allocator.nextId());
+        assertEquals(6L, allocator.nextId());
+        assertEquals(7L, allocator.nextId());
+        assertEquals(9L, allocator.getHighWaterMark());
+    }
+
+    @Test
+    void should_NeverRepeatId_When_CalledConcurrently() throws Exception {
+        BlockIdAllocator allocator = new BlockIdAllocator(1L, 8, null);
+        int threads = 16;
+        int idsPerThread = 1000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < idsPerThread; j++) {
+                        ids.add(allocator.nextId());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void should_ContinueAboveMark_When_Restarted() {
+        Path markFile = directory.resolve("students.id");
+        BlockIdAllocator allocator = new BlockIdAllocator(1L, 4, markFile);
+        long lastId = 0;
+        for (int i = 0; i < 6; i++) {
+            lastId = allocator.nextId();
+        }
+
+        BlockIdAllocator restarted = new BlockIdAllocator(1L, 4, markFile);
+
+        assertTrue(restarted.nextId() > lastId);
+    }
+
+    @Test
+    void should_StartAtFirstId_When_MarkIsEmptyOrUnreadable() throws Exception {
+        Path markFile = directory.resolve("students.id");
+        Files.writeString(markFile, "");
+
+        assertEquals(10L, new BlockIdAllocator(10L, 4, markFile).nextId());
+
+        Files.writeString(markFile, "12x");
+
+        assertEquals(10L, new BlockIdAllocator(10L, 4, markFile).nextId());
+        assertEquals("14", Files.readString(markFile));
+        assertFalse(Files.exists(directory.resolve("students.id.tmp")));
+    }
+}
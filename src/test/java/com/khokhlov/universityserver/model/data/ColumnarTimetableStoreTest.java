@@ -0,0 +1,211 @@
+package com.khokhlov.universityserver.model.data;
+
+import com.khokhlov.universityserver.model.Timetable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTimetableStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 7, 25, 10, 0);
+
+    private ColumnarTimetableStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarTimetableStore();
+    }
+
+    @Test
+    void should_StoreAndMaterializeRow() {
+        Timetable timetable = timetable(1L, 2L, 3L, START);
+        store.compute(1L, (id, old) -> timetable);
+
+        Timetable stored = store.get(1L);
+
+        assertNotSame(timetable, stored);
+        assertEquals(timetable, stored);
+        assertEquals(1L, stored.getId());
+        assertNull(store.get(2L));
+    }
+
+    @Test
+    void should_KeepRowsReachable_When_RowIsRemoved() {
+        for (long id = 1; id <= 200; id++) {
+            long rowId = id;
+            store.compute(rowId, (key, old) -> timetable(rowId, rowId % 3, 1L, START.plusMinutes(rowId)));
+        }
+        for (long id = 1; id <= 200; id += 2) {
+            store.compute(id, (key, old) -> null);
+        }
+
+        assertEquals(100, store.size());
+        for (long id = 2; id <= 200; id += 2) {
+            assertEquals(id, store.get(id).getId());
+            assertNull(store.get(id - 1));
+        }
+        assertEquals(200L, store.maxKey(0L));
+    }
+
+    @Test
+    void should_SelectByColumns() {
+        store.compute(1L, (id, old) -> timetable(1L, 1L, 1L, START.plusDays(1)));
+        store.compute(2L, (id, old) -> timetable(2L, 2L, 1L, START));
+        store.compute(3L, (id, old) -> timetable(3L, 1L, 2L, START));
+
+        assertEquals(List.of(1L, 3L), ids(store.selectByGroupId(1L)).stream().sorted().toList());
+        assertEquals(List.of(3L), ids(store.selectByTeacherId(2L)));
+        assertEquals(List.of(2L, 3L, 1L), ids(store.selectByStart(START, START.plusDays(2))));
+        assertEquals(List.of(2L, 3L), ids(store.selectByStart(START, START.plusDays(1))));
+    }
+
+    @Test
+    void should_RejectTimes_When_NotWholeMinutes() {
+        Timetable timetable = timetable(1L, 1L, 1L, START.plusSeconds(30));
+
+        assertThrows(IllegalArgumentException.class, () -> store.compute(1L, (id, old) -> timetable));
+        assertTrue(store.isEmpty());
+    }
+
+    @Test
+    void should_KeepIndexesInStep_When_UsedAsIndexedTableStore() {
+        IndexedTable<Timetable> table = new IndexedTable<>(store);
+        SumIndex<Timetable> minutes = table.addSumIndex(Timetable::getGroupId, timetable -> 90L);
+
+        table.put(1L, timetable(1L, 1L, 1L, START));
+        table.put(2L, timetable(2L, 1L, 1L, START.plusHours(2)));
+        table.remove(1L);
+
+        assertEquals(90L, minutes.sum(1L));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void should_TakeFrozenSnapshots_When_UsedAsIndexedTableStore() {
+        IndexedTable<Timetable> table = new IndexedTable<>(store);
+        table.put(1L, timetable(1L, 1L, 1L, START));
+        TableSnapshot<Timetable> snapshot = table.snapshot();
+        long version = table.getVersion();
+
+        table.put(2L, timetable(2L, 1L, 1L, START.plusHours(2)));
+        table.remove(1L);
+
+        assertEquals(1, snapshot.size());
+        assertEquals(START, snapshot.get(1L).getStartDateTime());
+        assertNull(snapshot.get(2L));
+        assertEquals(version + 2, table.getVersion());
+        assertEquals(List.of(2L), ids(List.copyOf(table.values())));
+    }
+
+    @Test
+    void should_LeaveTableUntouched_When_TimeIsOutOfRange() {
+        IndexedTable<Timetable> table = new IndexedTable<>(store);
+        SumIndex<Timetable> minutes = table.addSumIndex(Timetable::getGroupId, timetable -> 90L);
+        List<Long> published = new ArrayList<>();
+        table.addChangeListener(new ChangeListener<>() {
+            @Override
+            public void onPut(long id, Timetable row) {
+                published.add(id);
+            }
+
+            @Override
+            public void onRemove(long id) {
+                published.add(id);
+            }
+        });
+
+        assertThrows(IllegalArgumentException.class, () -> table.put(1L, timetable(1L, 1L, 1L, LocalDateTime.of(9000, 1, 1, 8, 0))));
+
+        assertTrue(table.isEmpty());
+        assertEquals(0, table.snapshot().size());
+        assertEquals(0L, minutes.sum(1L));
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void should_RejectDuplicateKey_When_UsedAsIndexedTableStore() {
+        IndexedTable<Timetable> table = new IndexedTable<>(store);
+
+        assertTrue(table.insert(1L, timetable(1L, 1L, 1L, START)));
+        assertFalse(table.insert(2L, timetable(2L, 1L, 1L, START)));
+        assertTrue(table.update(1L, timetable(1L, 1L, 1L, START)));
+        assertTrue(store.containsKeyOf(timetable(3L, 1L, 1L, START)));
+
+        table.remove(1L);
+
+        assertFalse(store.containsKeyOf(timetable(3L, 1L, 1L, START)));
+        assertTrue(table.insert(2L, timetable(2L, 1L, 1L, START)));
+    }
+
+    @Test
+    void should_KeepKeysAndDailyMinutesInStep_When_RowsAreMovedAndUpdated() {
+        IndexedTable<Timetable> table = new IndexedTable<>(store);
+        for (long id = 1; id <= 300; id++) {
+            table.put(id, timetable(id, id % 7, id % 5, START.plusDays(id % 3).plusMinutes(id)));
+        }
+        for (long id = 1; id <= 300; id += 3) {
+            table.remove(id);
+        }
+        for (long id = 2; id <= 300; id += 3) {
+            table.put(id, timetable(id, id % 4, id % 5, START.plusDays(id % 2).plusMinutes(id)));
+        }
+
+        for (long owner = 0; owner < 7; owner++) {
+            for (int day = 0; day < 3; day++) {
+                LocalDate date = START.toLocalDate().plusDays(day);
+                assertEquals(minutes(table, owner, date, Timetable::getGroupId), store.getGroupDailyMinutes(owner, date));
+                assertEquals(minutes(table, owner, date, Timetable::getTeacherId), store.getTeacherDailyMinutes(owner, date));
+            }
+        }
+        for (long id = 1; id <= 300; id++) {
+            Timetable row = table.get(id);
+            assertEquals(row != null, store.containsKeyOf(row != null ? row
+                    : timetable(id, id % 7, id % 5, START.plusDays(id % 3).plusMinutes(id))));
+        }
+    }
+
+    @Test
+    void should_CountReservedMinutesOnce_When_ReservedRowIsWritten() {
+        IndexedTable<Timetable> table = new IndexedTable<>(store);
+        table.put(1L, timetable(1L, 1L, 1L, START));
+        Timetable moved = timetable(1L, 1L, 1L, START.plusHours(2));
+
+        assertTrue(store.reserveDailyMinutes(1L, moved, 90));
+        assertFalse(store.reserveDailyMinutes(2L, timetable(2L, 1L, 2L, START.plusHours(4)), 180));
+        table.put(1L, moved);
+
+        assertEquals(90L, store.getGroupDailyMinutes(1L, START.toLocalDate()));
+        assertEquals(90L, store.getTeacherDailyMinutes(1L, START.toLocalDate()));
+
+        Timetable other = timetable(2L, 1L, 2L, START.plusHours(4));
+        assertTrue(store.reserveDailyMinutes(2L, other, 180));
+        store.cancelDailyMinutes(2L, other);
+        assertEquals(90L, store.getGroupDailyMinutes(1L, START.toLocalDate()));
+        assertEquals(0L, store.getTeacherDailyMinutes(2L, START.toLocalDate()));
+    }
+
+    private static Timetable timetable(long id, long groupId, long teacherId, LocalDateTime start) {
+        return new Timetable(id, groupId, teacherId, start, start.plusMinutes(90));
+    }
+
+    private static List<Long> ids(List<Timetable> timetables) {
+        List<Long> ids = new ArrayList<>();
+        timetables.forEach(timetable -> ids.add(timetable.getId()));
+        return ids;
+    }
+
+    private static long minutes(IndexedTable<Timetable> table, long owner, LocalDate date, ToLongFunction<Timetable> ownerOf) {
+        return table.values().stream()
+                .filter(row -> ownerOf.applyAsLong(row) == owner && row.getStartDateTime().toLocalDate().equals(date))
+                .mapToLong(row -> Duration.between(row.getStartDateTime(), row.getEndDateTime()).toMinutes())
+                .sum();
+    }
+}
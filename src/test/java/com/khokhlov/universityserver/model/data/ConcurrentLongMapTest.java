@@ -0,0 +1,121 @@
+package com.khokhlov.universityserver.model.data;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongMapTest {
+
+    private ConcurrentLongMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new ConcurrentLongMap<>();
+    }
+
+    @Test
+    void should_PutAndGetValue() {
+        assertNull(map.put(1L, "one"));
+        assertEquals("one", map.put(1L, "uno"));
+
+        assertEquals("uno", map.get(1L));
+        assertTrue(map.containsKey(1L));
+        assertFalse(map.containsKey(2L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void should_SupportZeroAndNegativeKeys() {
+        map.put(0L, "zero");
+        map.put(-1L, "minus one");
+        map.put(Long.MIN_VALUE, "min");
+
+        assertEquals("zero", map.get(0L));
+        assertEquals("minus one", map.get(-1L));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertEquals(0L, map.maxKey(42L));
+    }
+
+    @Test
+    void should_RemoveValue() {
+        map.put(1L, "one");
+
+        assertEquals("one", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertNull(map.get(1L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void should_KeepValue_When_ComputeThrows() {
+        map.put(1L, "one");
+
+        assertThrows(IllegalStateException.class, () -> map.compute(1L, (key, old) -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("one", map.get(1L));
+    }
+
+    @Test
+    void should_ReturnDefault_When_MaxKeyOfEmptyMap() {
+        assertEquals(0L, map.maxKey(0L));
+    }
+
+    @Test
+    void should_BehaveLikeHashMap_When_RandomOperationsAreApplied() {
+        Map<Long, String> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(reference.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals(value, map.get(key)));
+        map.forEach((key, value) -> assertEquals(reference.get(key), value));
+    }
+
+    @Test
+    void should_KeepAllEntries_When_WrittenConcurrently() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long offset = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (long key = offset; key < offset + perThread; key++) {
+                        map.put(key, "v" + key);
+                        assertEquals("v" + key, map.get(key));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread, map.size());
+        assertEquals(threads * perThread - 1, map.maxKey(0L));
+    }
+}
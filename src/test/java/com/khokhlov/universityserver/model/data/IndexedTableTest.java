@@ -0,0 +1,204 @@
+package com.khokhlov.universityserver.model.data;
+
+import com.khokhlov.universityserver.model.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedTableTest {
+
+    private IndexedTable<Student> table;
+    private HashIndex<Student> bySurname;
+    private UniqueIndex<Student> byPhone;
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        table = new IndexedTable<>();
+        bySurname = table.addIndex(Student::getSurname);
+        byPhone = table.addUniqueIndex(Student::getPhoneNumber);
+
+        student = new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+    }
+
+    @Test
+    void should_FindRow_When_RowIsPut() {
+        table.put(1L, student);
+
+        assertEquals(1, bySurname.find("Doe").size());
+        assertTrue(bySurname.find("Smith").isEmpty());
+    }
+
+    @Test
+    void should_ReindexRow_When_RowIsReplaced() {
+        table.put(1L, student);
+        table.put(1L, new Student(1L, "John", "Smith", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90"));
+
+        assertTrue(bySurname.find("Doe").isEmpty());
+        assertEquals(1, bySurname.find("Smith").size());
+    }
+
+    @Test
+    void should_DropIndexEntry_When_RowIsRemoved() {
+        table.put(1L, student);
+
+        assertEquals(student, table.remove(1L));
+        assertTrue(bySurname.find("Doe").isEmpty());
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void should_DropIndexEntry_When_RowWasMutatedInPlace() {
+        table.put(1L, student);
+        student.setSurname("Smith");
+
+        table.remove(1L);
+
+        assertTrue(bySurname.find("Doe").isEmpty());
+    }
+
+    @Test
+    void should_IndexExistingRows_When_IndexIsAddedLater() {
+        table.put(1L, student);
+
+        HashIndex<Student> byName = table.addIndex(Student::getName);
+
+        assertEquals(1, byName.find("John").size());
+    }
+
+    @Test
+    void should_RejectInsert_When_UniqueKeyIsTaken() {
+        table.insert(1L, student);
+
+        assertFalse(table.insert(2L, new Student(2L, "Jane", "Roe", LocalDate.of(2001, 1, 1), "+7 (123) 456-78-90")));
+        assertEquals(1, table.size());
+        assertEquals(student, byPhone.find("+7 (123) 456-78-90").orElseThrow());
+    }
+
+    @Test
+    void should_RejectInsert_When_IdIsTaken() {
+        table.insert(1L, student);
+
+        assertFalse(table.insert(1L, new Student(1L, "Jane", "Roe", LocalDate.of(2001, 1, 1), "+7 (999) 456-78-90")));
+        assertEquals(student, table.get(1L));
+    }
+
+    @Test
+    void should_ReleaseOldUniqueKey_When_RowIsUpdated() {
+        table.insert(1L, student);
+
+        assertTrue(table.update(1L, new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (999) 456-78-90")));
+
+        assertTrue(byPhone.find("+7 (123) 456-78-90").isEmpty());
+        assertTrue(table.insert(2L, new Student(2L, "Jane", "Roe", LocalDate.of(2001, 1, 1), "+7 (123) 456-78-90")));
+    }
+
+    @Test
+    void should_KeepRow_When_UpdateViolatesUniqueKey() {
+        table.insert(1L, student);
+        Student other = new Student(2L, "Jane", "Roe", LocalDate.of(2001, 1, 1), "+7 (999) 456-78-90");
+        table.insert(2L, other);
+
+        assertFalse(table.update(2L, new Student(2L, "Jane", "Roe", LocalDate.of(2001, 1, 1), "+7 (123) 456-78-90")));
+        assertThrows(IllegalArgumentException.class, () -> table.put(2L, student));
+
+        assertEquals(other, table.get(2L));
+        assertEquals(other, byPhone.find("+7 (999) 456-78-90").orElseThrow());
+    }
+
+    @Test
+    void should_NotUpdate_When_RowDoesNotExist() {
+        assertFalse(table.update(1L, student));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void should_KeepRunningTotal_When_RowsChange() {
+        SumIndex<Student> yearsBySurname = table.addSumIndex(Student::getSurname, student -> student.getBirthDate().getYear());
+        table.put(1L, student);
+        table.put(2L, new Student(2L, "Jane", "Doe", LocalDate.of(2001, 1, 1), "+7 (999) 456-78-90"));
+
+        assertEquals(4001, yearsBySurname.sum("Doe"));
+
+        table.put(2L, new Student(2L, "Jane", "Roe", LocalDate.of(2001, 1, 1), "+7 (999) 456-78-90"));
+        table.remove(1L);
+
+        assertEquals(0, yearsBySurname.sum("Doe"));
+        assertEquals(2001, yearsBySurname.sum("Roe"));
+    }
+
+    @Test
+    void should_CountReservationOnce_When_ReservedRowIsInserted() {
+        SumIndex<Student> yearsBySurname = table.addSumIndex(Student::getSurname, student -> student.getBirthDate().getYear());
+        Student jane = new Student(2L, "Jane", "Doe", LocalDate.of(2001, 1, 1), "+7 (999) 456-78-90");
+
+        assertTrue(yearsBySurname.reserve(1L, student, 2000));
+        assertFalse(yearsBySurname.reserve(2L, jane, 4000));
+        table.insert(1L, student);
+        assertEquals(2000, yearsBySurname.sum("Doe"));
+
+        assertTrue(yearsBySurname.reserve(2L, jane, 4001));
+        yearsBySurname.cancel(2L, jane);
+        assertEquals(2000, yearsBySurname.sum("Doe"));
+    }
+
+    @Test
+    void should_CreditCurrentRow_When_ReservingAnUpdate() {
+        SumIndex<Student> yearsBySurname = table.addSumIndex(Student::getSurname, student -> student.getBirthDate().getYear());
+        Student older = new Student(1L, "John", "Doe", LocalDate.of(1999, 1, 1), "+7 (999) 123-45-67");
+        table.insert(1L, student);
+
+        assertTrue(yearsBySurname.reserve(1L, older, 2000));
+        assertFalse(yearsBySurname.reserve(2L, older, 4000));
+        yearsBySurname.cancel(1L, older);
+        assertEquals(2000, yearsBySurname.sum("Doe"));
+
+        assertTrue(yearsBySurname.reserve(1L, older, 2000));
+        table.put(1L, older);
+        assertEquals(1999, yearsBySurname.sum("Doe"));
+    }
+
+    @Test
+    void should_KeepListingUnchanged_When_TableIsWrittenAfterwards() {
+        table.put(1L, student);
+        Collection<Student> listing = table.values();
+        TableSnapshot<Student> snapshot = table.snapshot();
+
+        table.put(2L, new Student(2L, "Jane", "Doe", LocalDate.of(2001, 1, 1), "+7 (999) 456-78-90"));
+        table.remove(1L);
+
+        assertEquals(List.of(student), List.copyOf(listing));
+        assertSame(student, snapshot.get(1L));
+        assertEquals(snapshot.getVersion() + 2, table.snapshot().getVersion());
+        assertEquals(1, table.values().size());
+    }
+
+    @Test
+    void should_ReportStatus_When_UpdateIsConditionalOnVersion() {
+        table.put(1L, student);
+        Student renamed = new Student(1L, "John", "Smith", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+
+        assertEquals(WriteStatus.VERSION_CONFLICT, table.update(1L, renamed, 2L));
+        assertEquals(WriteStatus.APPLIED, table.update(1L, renamed, 1L));
+        assertEquals(WriteStatus.NOT_FOUND, table.update(2L, student, null));
+        assertEquals(2L, table.get(1L).getVersion());
+    }
+
+    @Test
+    void should_Replace_When_ExpectedRowHasSameVersion() {
+        table.put(1L, student);
+        Student snapshot = new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+        snapshot.setVersion(student.getVersion());
+        Student stale = new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+
+        assertFalse(table.replace(1L, stale, new Student(1L, "Jack", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90")));
+        assertTrue(table.replace(1L, snapshot, new Student(1L, "Jane", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90")));
+        assertEquals("Jane", table.get(1L).getName());
+    }
+}
@@ -0,0 +1,51 @@
+package com.khokhlov.universityserver.model.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentLongMapTest {
+
+    @Test
+    void should_MatchHashMap_When_RandomlyUpdated() {
+        Random random = new Random(42);
+        Map<Long, Long> expected = new HashMap<>();
+        PersistentLongMap<Long> map = PersistentLongMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, (long) i);
+                map = map.put(key, (long) i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void should_KeepOldVersion_When_NewVersionIsWritten() {
+        PersistentLongMap<String> first = PersistentLongMap.<String>empty().put(1L, "a").put(2L, "b");
+        PersistentLongMap<String> second = first.put(1L, "c").remove(2L);
+
+        assertEquals("a", first.get(1L));
+        assertEquals("b", first.get(2L));
+        assertEquals(2, first.size());
+        assertEquals("c", second.get(1L));
+        assertNull(second.get(2L));
+        assertEquals(1, second.size());
+    }
+}
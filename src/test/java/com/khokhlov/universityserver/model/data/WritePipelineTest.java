@@ -0,0 +1,116 @@
+package com.khokhlov.universityserver.model.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WritePipelineTest {
+
+    private WritePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new WritePipeline(8, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    void should_ApplyEveryCommandOnWriterThread_When_SubmittedConcurrently() throws Exception {
+        long[] counter = {0};
+        List<Thread> writers = new ArrayList<>();
+        int threads = 8;
+        int commandsPerThread = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < commandsPerThread; j++) {
+                        pipeline.execute(() -> {
+                            if (writers.isEmpty() || writers.get(0) != Thread.currentThread()) {
+                                writers.add(Thread.currentThread());
+                            }
+                            return ++counter[0];
+                        });
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals((long) threads * commandsPerThread, pipeline.execute(() -> counter[0]));
+        assertEquals(1, writers.size());
+    }
+
+    @Test
+    void should_RethrowCommandFailure_When_CommandThrows() {
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> pipeline.execute(() -> {
+            throw new IllegalStateException("already exists");
+        }));
+
+        assertEquals("already exists", failure.getMessage());
+        assertEquals(1, pipeline.execute(() -> 1));
+    }
+
+    @Test
+    void should_RunNestedCommandInPlace_When_IssuedFromWriterThread() {
+        assertEquals("inner", pipeline.execute(() -> pipeline.execute(() -> "inner")));
+    }
+
+    @Test
+    void should_RejectCommands_When_Closed() {
+        pipeline.close();
+
+        assertThrows(IllegalStateException.class, () -> pipeline.execute(() -> 1));
+    }
+
+    @Test
+    void should_CompleteEveryCommand_When_ClosedWhileSubmitting() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            WritePipeline closing = new WritePipeline(8, 4);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 100; i++) {
+                            try {
+                                closing.execute(() -> 1);
+                            } catch (IllegalStateException e) {
+                                return;
+                            }
+                        }
+                    }));
+                }
+                closing.close();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
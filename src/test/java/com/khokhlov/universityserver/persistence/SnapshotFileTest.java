@@ -0,0 +1,73 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.TimetableStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_RestoreRowsVersionsAndIdMarks_When_SnapshotIsLoaded() {
+        MemoryDB db = new MemoryDB();
+        LocalDateTime start = LocalDateTime.of(2024, 9, 2, 8, 0);
+        db.getStudents().put(1L, new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90"));
+        db.getStudents().put(1L, new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (999) 456-78-90"));
+        db.getStudents().put(2L, new Student(2L, "Jane", "Roe", null, null));
+        db.getStudents().nextId();
+        db.getStudents().remove(2L);
+        db.getTeachers().put(1L, new Teacher(1L, "Ann", "Smith", null, List.of(Subject.PHYSICS)));
+        db.getGroups().put(1L, new Group(1L, 101L, new long[]{1L}));
+        db.getTimetables().put(1L, new Timetable(1L, 1L, 1L, start, start.plusMinutes(90)));
+        SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("db.snapshot"));
+
+        snapshotFile.write(DatabaseImage.capture(db, 7L));
+        MemoryDB restored = new MemoryDB(TimetableStorage.COLUMNAR);
+
+        assertEquals(7L, snapshotFile.load(restored));
+        assertEquals(1, restored.getStudents().size());
+        assertEquals(2L, restored.getStudents().get(1L).getVersion());
+        assertEquals("+7 (999) 456-78-90", restored.getStudents().get(1L).getPhoneNumber());
+        assertNull(restored.getTeachers().get(1L).getExperience());
+        assertEquals(List.of(Subject.PHYSICS), restored.getTeachers().get(1L).getSubjects());
+        assertTrue(restored.getGroups().get(1L).containsStudent(1L));
+        assertEquals(db.getTimetables().get(1L), restored.getTimetables().get(1L));
+        assertTrue(restored.getStudents().nextId() > 2L);
+    }
+
+    @Test
+    void should_ReturnZero_When_ThereIsNoSnapshotYet() {
+        assertEquals(0L, new SnapshotFile(directory.resolve("db.snapshot")).load(new MemoryDB()));
+    }
+
+    @Test
+    void should_Fail_When_SnapshotIsCorrupt() throws IOException {
+        MemoryDB db = new MemoryDB();
+        db.getStudents().put(1L, new Student(1L, "John", "Doe", null, null));
+        Path file = directory.resolve("db.snapshot");
+        new SnapshotFile(file).write(DatabaseImage.capture(db, 1L));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        assertThrows(UncheckedIOException.class, () -> new SnapshotFile(file).load(new MemoryDB()));
+    }
+}
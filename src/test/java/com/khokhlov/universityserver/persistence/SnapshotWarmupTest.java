@@ -0,0 +1,67 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.khokhlov.universityserver.utils.NormalizationUtils.normalize;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotWarmupTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_ServeLookupsAtOnceAndLoadTheRest_When_StartedFromSnapshot() throws Exception {
+        Path logFile = directory.resolve("wal.log");
+        SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("db.snapshot"));
+        MemoryDB db = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, 0)) {
+            wal.attach(db);
+            db.write(() -> {
+                for (long id = 1; id <= 1000; id++) {
+                    db.getStudents().put(id, new Student(id, "Name" + id, "Doe", null, null));
+                }
+            });
+            wal.checkpoint(db, snapshotFile);
+            db.write(() -> db.getStudents().put(1L, new Student(1L, "Name1", "Roe", null, null)));
+            db.write(() -> db.getStudents().remove(2L));
+            db.write(() -> db.getStudents().put(1001L, new Student(1001L, "Name1001", "Doe", null, null)));
+        }
+
+        MemoryDB restored = new MemoryDB();
+        AtomicBoolean started = new AtomicBoolean();
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, 0);
+             SnapshotWarmup warmup = new SnapshotWarmup(restored, snapshotFile.map(), wal)) {
+            warmup.start(() -> started.set(true));
+
+            assertEquals("Roe", restored.getStudents().get(1L).getSurname());
+            assertNull(restored.getStudents().get(2L));
+            assertEquals("Name500", restored.getStudents().get(500L).getName());
+            assertEquals(1L, restored.getStudents().get(500L).getVersion());
+            assertNotNull(restored.getStudents().get(1001L));
+
+            warmup.awaitReady();
+            assertTrue(warmup.isReady());
+            assertTrue(started.get());
+            assertEquals(1000, restored.getStudents().size());
+            assertEquals(2L, restored.getStudents().get(1L).getVersion());
+            assertEquals(1, restored.getStudentsBySurname().find(normalize("Roe")).size());
+            assertTrue(restored.getStudents().nextId() > 1001L);
+
+            restored.write(() -> restored.getStudents().remove(3L));
+        }
+
+        MemoryDB reopened = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, 0)) {
+            wal.replay(reopened, snapshotFile);
+        }
+        assertEquals(999, reopened.getStudents().size());
+        assertNull(reopened.getStudents().get(3L));
+    }
+}
@@ -0,0 +1,196 @@
+package com.khokhlov.universityserver.persistence;
+
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_RestoreEveryTable_When_LogIsReplayed() {
+        Path file = directory.resolve("wal.log");
+        MemoryDB db = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            wal.attach(db);
+            LocalDateTime start = LocalDateTime.of(2024, 9, 2, 8, 0);
+            db.write(() -> {
+                db.getStudents().put(1L, new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90"));
+                db.getStudents().put(2L, new Student(2L, "Jane", "Roe", null, null));
+                db.getTeachers().put(1L, new Teacher(1L, "Ann", "Smith", 5L, List.of(Subject.MATH, Subject.HISTORY)));
+                db.getGroups().put(1L, new Group(1L, 101L, new long[]{2L, 1L}));
+                db.getTimetables().put(1L, new Timetable(1L, 1L, 1L, start, start.plusMinutes(90)));
+            });
+            db.write(() -> db.getStudents().put(1L, new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (999) 456-78-90")));
+            db.write(() -> db.getStudents().remove(2L));
+        }
+
+        MemoryDB restored = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            assertEquals(7, wal.replay(restored));
+        }
+
+        assertEquals(1, restored.getStudents().size());
+        Student student = restored.getStudents().get(1L);
+        assertEquals("+7 (999) 456-78-90", student.getPhoneNumber());
+        assertEquals(LocalDate.of(2000, 1, 1), student.getBirthDate());
+        assertEquals(2L, student.getVersion());
+        assertEquals(List.of(Subject.MATH, Subject.HISTORY), restored.getTeachers().get(1L).getSubjects());
+        assertArrayEquals(new long[]{1L, 2L}, restored.getGroups().get(1L).getStudentIds());
+        assertEquals(db.getTimetables().get(1L), restored.getTimetables().get(1L));
+        assertTrue(restored.getGroupsByNumber().find(101L).isPresent());
+    }
+
+    @Test
+    void should_CutTornTail_When_LastRecordIsIncomplete() throws IOException {
+        Path file = directory.resolve("wal.log");
+        MemoryDB db = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            wal.attach(db);
+            db.write(() -> db.getStudents().put(1L, new Student(1L, "John", "Doe", null, null)));
+            db.write(() -> db.getStudents().put(2L, new Student(2L, "Jane", "Doe", null, null)));
+        }
+        Path segment = directory.resolve("wal.log.1");
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        MemoryDB restored = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            assertEquals(1, wal.replay(restored));
+            wal.attach(restored);
+            restored.write(() -> restored.getStudents().put(3L, new Student(3L, "Jim", "Doe", null, null)));
+        }
+
+        MemoryDB reopened = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            assertEquals(2, wal.replay(reopened));
+        }
+        assertEquals(List.of(1L, 3L), reopened.getStudents().keySet().stream().sorted().toList());
+    }
+
+    @Test
+    void should_LogEveryWrite_When_WritersShareGroupCommits() throws Exception {
+        Path file = directory.resolve("wal.log");
+        MemoryDB db = new MemoryDB();
+        int threads = 8;
+        int writesPerThread = 50;
+        try (WriteAheadLog wal = new WriteAheadLog(file, 500)) {
+            wal.attach(db);
+            db.startWritePipeline(64, 16);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < writesPerThread; i++) {
+                            long id = thread * writesPerThread + i + 1L;
+                            db.write(() -> db.getStudents().put(id, new Student(id, "Name" + id, "Surname", null, null)));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+                db.stopWritePipeline();
+            }
+        }
+
+        MemoryDB restored = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            assertEquals(threads * writesPerThread, wal.replay(restored));
+        }
+        assertEquals(threads * writesPerThread, restored.getStudents().size());
+    }
+
+    @Test
+    void should_RestoreSnapshotAndTail_When_CheckpointedDuringWrites() throws Exception {
+        Path file = directory.resolve("wal.log");
+        SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("db.snapshot"));
+        MemoryDB db = new MemoryDB();
+        int writes = 2000;
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            wal.attach(db);
+            Thread writer = Thread.ofPlatform().start(() -> {
+                for (long id = 1; id <= writes; id++) {
+                    long studentId = id;
+                    db.write(() -> db.getStudents().put(studentId, new Student(studentId, "Name" + studentId, "Doe", null, null)));
+                    db.write(() -> db.getStudents().put(studentId, new Student(studentId, "Name" + studentId, "Roe", null, null)));
+                }
+            });
+            for (int i = 0; i < 5; i++) {
+                wal.checkpoint(db, snapshotFile);
+            }
+            writer.join();
+            db.write(() -> db.getStudents().remove(1L));
+        }
+        assertFalse(Files.exists(directory.resolve("wal.log.1")));
+
+        MemoryDB restored = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            wal.replay(restored, snapshotFile);
+        }
+
+        assertEquals(writes - 1, restored.getStudents().size());
+        for (long id = 2; id <= writes; id++) {
+            Student student = restored.getStudents().get(id);
+            assertEquals("Roe", student.getSurname());
+            assertEquals(2L, student.getVersion());
+        }
+        assertTrue(restored.getStudents().nextId() > writes);
+    }
+
+    @Test
+    void should_RestoreFinalState_When_SnapshotAlreadyHoldsTailChanges() {
+        Path file = directory.resolve("wal.log");
+        SnapshotFile snapshotFile = new SnapshotFile(directory.resolve("db.snapshot"));
+        MemoryDB db = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            wal.attach(db);
+            db.write(() -> db.getStudents().put(1L, new Student(1L, "John", "Doe", null, "x")));
+            db.write(() -> db.getStudents().put(1L, new Student(1L, "John", "Doe", null, "y")));
+            db.write(() -> db.getStudents().put(2L, new Student(2L, "John", "Doe", null, "x")));
+            db.write(() -> db.getStudents().put(3L, new Student(3L, "John", "Doe", null, "z")));
+            db.write(() -> db.getStudents().remove(3L));
+            db.write(() -> db.getStudents().put(4L, new Student(4L, "John", "Doe", null, "z")));
+            snapshotFile.write(DatabaseImage.capture(db, 1L));
+        }
+
+        MemoryDB restored = new MemoryDB();
+        try (WriteAheadLog wal = new WriteAheadLog(file, 0)) {
+            assertEquals(6, wal.replay(restored, snapshotFile));
+        }
+
+        assertEquals(List.of(1L, 2L, 4L), restored.getStudents().keySet().stream().sorted().toList());
+        assertEquals("y", restored.getStudents().get(1L).getPhoneNumber());
+        assertEquals(2L, restored.getStudents().get(1L).getVersion());
+        assertEquals("x", restored.getStudents().get(2L).getPhoneNumber());
+        assertEquals("z", restored.getStudents().get(4L).getPhoneNumber());
+    }
+}
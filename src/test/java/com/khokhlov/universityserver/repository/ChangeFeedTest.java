@@ -0,0 +1,126 @@
+package com.khokhlov.universityserver.repository;
+
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.repository.memory.MemoryRepositories;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    @Test
+    void should_ReturnChangesInOrder_When_ReadingAfterSequence() {
+        ChangeFeed feed = new ChangeFeed(10, 100);
+        feed.append(ChangeFeed.STUDENT, 1L, "John");
+        feed.append(ChangeFeed.TEACHER, 2L, "Ann");
+        feed.append(ChangeFeed.STUDENT, 1L, null);
+
+        ChangeFeed.Page page = feed.read(101, 10);
+
+        assertFalse(page.resyncRequired());
+        assertEquals(103, page.lastSequence());
+        assertEquals(List.of(
+                new ChangeFeed.Change(102, ChangeFeed.TEACHER, 2L, ChangeFeed.PUT, "Ann"),
+                new ChangeFeed.Change(103, ChangeFeed.STUDENT, 1L, ChangeFeed.DELETE, null)), page.changes());
+        assertEquals(1, feed.read(100, 1).changes().size());
+        assertTrue(feed.read(103, 10).changes().isEmpty());
+    }
+
+    @Test
+    void should_RequireResync_When_SequenceIsNoLongerKept() {
+        ChangeFeed feed = new ChangeFeed(2, 100);
+        for (long id = 1; id <= 5; id++) {
+            feed.append(ChangeFeed.STUDENT, id, "Student" + id);
+        }
+
+        assertTrue(feed.read(102, 10).resyncRequired());
+        assertEquals(List.of(5L), feed.read(104, 10).changes().stream().map(ChangeFeed.Change::id).toList());
+        assertEquals(2, feed.read(103, 10).changes().size());
+        assertTrue(feed.read(50, 10).resyncRequired());
+        assertTrue(feed.read(200, 10).resyncRequired());
+    }
+
+    @Test
+    void should_WakeWaiter_When_ChangeIsAppended() {
+        ChangeFeed feed = new ChangeFeed(10, 0);
+        AtomicInteger woken = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        feed.onChangeAfter(0, woken::incrementAndGet);
+        feed.onChangeAfter(0, cancelled::incrementAndGet).run();
+        assertEquals(0, woken.get());
+
+        feed.append(ChangeFeed.GROUP, 1L, "101");
+        feed.append(ChangeFeed.GROUP, 2L, "102");
+        feed.onChangeAfter(0, woken::incrementAndGet);
+
+        assertEquals(2, woken.get());
+        assertEquals(0, cancelled.get());
+    }
+
+    @Test
+    void should_PublishOnlyLaterWrites_When_AttachedToMemoryRepositories() {
+        MemoryDB db = new MemoryDB();
+        db.getStudents().put(1L, new Student(1L, "John", "Doe", null, null));
+        ChangeFeed feed = new ChangeFeed(10, 0);
+        new MemoryRepositories(db).setChangeFeed(feed);
+
+        db.write(() -> db.getStudents().put(2L, new Student(2L, "Jane", "Doe", null, null)));
+        db.write(() -> db.getStudents().remove(1L));
+
+        List<ChangeFeed.Change> changes = feed.read(0, 10).changes();
+        assertEquals(2, changes.size());
+        assertEquals(2L, changes.get(0).id());
+        assertEquals("Jane", ((Student) changes.get(0).data()).getName());
+        assertEquals(ChangeFeed.DELETE, changes.get(1).op());
+        assertEquals(1L, changes.get(1).id());
+    }
+
+    @Test
+    void should_PublishOnlyDurableWrites_When_CommitBarrierIsSet() {
+        MemoryDB db = new MemoryDB();
+        ChangeFeed feed = new ChangeFeed(10, 0);
+        new MemoryRepositories(db).setChangeFeed(feed);
+        AtomicInteger barrierCalls = new AtomicInteger();
+        db.setCommitBarrier(() -> {
+            assertEquals(0, feed.getLastSequence());
+            if (barrierCalls.incrementAndGet() == 1) {
+                throw new UncheckedIOException(new IOException("fsync failed"));
+            }
+        });
+
+        assertThrows(UncheckedIOException.class, () -> db.write(() -> db.getStudents().put(1L, new Student(1L, "John", "Doe", null, null))));
+        assertEquals(0, feed.getLastSequence());
+
+        db.write(() -> db.getStudents().put(2L, new Student(2L, "Jane", "Doe", null, null)));
+        assertEquals(List.of(2L), feed.read(0, 10).changes().stream().map(ChangeFeed.Change::id).toList());
+    }
+
+    @Test
+    void should_PublishEveryWrite_When_WritesGoThroughPipeline() {
+        MemoryDB db = new MemoryDB();
+        ChangeFeed feed = new ChangeFeed(100, 0);
+        new MemoryRepositories(db).setChangeFeed(feed);
+        db.startWritePipeline(16, 4);
+        try {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (long id = 1; id <= 20; id++) {
+                long studentId = id;
+                writes.add(CompletableFuture.runAsync(() -> db.write(() -> db.getStudents()
+                        .put(studentId, new Student(studentId, "John", "Doe" + studentId, null, null)))));
+            }
+            writes.forEach(CompletableFuture::join);
+        } finally {
+            db.stopWritePipeline();
+        }
+
+        assertEquals(20, feed.read(0, 100).changes().size());
+    }
+}
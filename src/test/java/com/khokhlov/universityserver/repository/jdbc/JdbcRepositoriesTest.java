@@ -0,0 +1,173 @@
+package com.khokhlov.universityserver.repository.jdbc;
+
+import com.khokhlov.universityserver.exception.StudentAlreadyExistsException;
+import com.khokhlov.universityserver.exception.TeacherAlreadyExistsException;
+import com.khokhlov.universityserver.exception.VersionConflictException;
+import com.khokhlov.universityserver.model.Group;
+import com.khokhlov.universityserver.model.Student;
+import com.khokhlov.universityserver.model.Subject;
+import com.khokhlov.universityserver.model.Teacher;
+import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.WriteStatus;
+import com.khokhlov.universityserver.model.dto.GroupDTO;
+import com.khokhlov.universityserver.model.dto.StudentDTO;
+import com.khokhlov.universityserver.model.dto.SubjectDTO;
+import com.khokhlov.universityserver.model.dto.TeacherDTO;
+import com.khokhlov.universityserver.model.dto.TimetableDTO;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.service.GroupService;
+import com.khokhlov.universityserver.service.MappingService;
+import com.khokhlov.universityserver.service.PropertyService;
+import com.khokhlov.universityserver.service.StudentService;
+import com.khokhlov.universityserver.service.TeacherService;
+import com.khokhlov.universityserver.service.TimetableService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRepositoriesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_AnswerServiceQueries_When_BackedByJdbc() {
+        try (JdbcRepositories repositories = new JdbcRepositories(url(), 2)) {
+            MappingService mappingService = new MappingService();
+            PropertyService propertyService = new PropertyService();
+            StudentService studentService = new StudentService(repositories, mappingService);
+            TeacherService teacherService = new TeacherService(repositories, mappingService);
+            GroupService groupService = new GroupService(repositories, mappingService, studentService, propertyService);
+            TimetableService timetableService = new TimetableService(repositories, mappingService, propertyService);
+
+            studentService.addStudent(new StudentDTO("John", "Doe", LocalDate.of(2000, 1, 1), null));
+            studentService.addStudent(new StudentDTO("Jane", "Doe", null, "+7 (123) 456-78-90"));
+            assertThrows(StudentAlreadyExistsException.class,
+                    () -> studentService.addStudent(new StudentDTO("John", "Doe", LocalDate.of(2000, 1, 1), null)));
+            teacherService.addTeacher(new TeacherDTO("Ann", "Smith", 5L, List.of(Subject.MATH)));
+            teacherService.addSubjectToTeacher(1L, new SubjectDTO("History"));
+            assertThrows(IllegalArgumentException.class, () -> teacherService.addSubjectToTeacher(1L, new SubjectDTO("Math")));
+            List<Student> students = List.copyOf(studentService.getStudentsBySurname("DOE"));
+            groupService.addGroup(new GroupDTO(101L, null, students));
+            LocalDateTime start = LocalDateTime.of(2024, 9, 2, 8, 0);
+            timetableService.addTimetable(new TimetableDTO(1L, 1L, start, start.plusMinutes(90)));
+
+            assertEquals(2, studentService.getAllStudents().size());
+            assertEquals(List.of("John"), studentService.getStudentsByNameAndSurname("john", "doe").stream().map(Student::getName).toList());
+            Teacher teacher = teacherService.getTeachersBySubject(Subject.HISTORY).get(0);
+            assertEquals(List.of(Subject.MATH, Subject.HISTORY), teacher.getSubjects());
+            assertEquals(2L, teacher.getVersion());
+            Group group = groupService.getGroupByNumber("101").orElseThrow();
+            assertArrayEquals(new long[]{1L, 2L}, group.getStudentIds());
+            assertEquals(2, groupService.getGroupDetails(group).getStudents().size());
+            assertEquals(1, timetableService.getTimetablesByStudentSurname("doe").size());
+            assertEquals(1, timetableService.getTimetablesByTeacherSurname("SMITH").size());
+            assertEquals(start, timetableService.getTimetablesByDate(start.toLocalDate()).get(0).getStartDateTime());
+            assertEquals(90, repositories.getTimetables().getGroupDailyMinutes(1L, start.toLocalDate()));
+        }
+    }
+
+    @Test
+    void should_RollBackWholeCommand_When_ItFails() {
+        try (JdbcRepositories repositories = new JdbcRepositories(url(), 2)) {
+            long dataVersion = repositories.getDataVersion();
+
+            assertThrows(IllegalStateException.class, () -> repositories.write(() -> {
+                repositories.getStudents().insert(1L, new Student(1L, "John", "Doe", null, null));
+                assertTrue(repositories.getStudents().existsById(1L));
+                throw new IllegalStateException("failed");
+            }));
+
+            assertFalse(repositories.getStudents().existsById(1L));
+            assertEquals(dataVersion, repositories.getDataVersion());
+        }
+    }
+
+    @Test
+    void should_PublishChanges_When_CommandCommits() {
+        try (JdbcRepositories repositories = new JdbcRepositories(url(), 2)) {
+            ChangeFeed feed = new ChangeFeed(10, 0);
+            repositories.setChangeFeed(feed);
+
+            assertThrows(IllegalStateException.class, () -> repositories.write(() -> {
+                repositories.getStudents().insert(1L, new Student(1L, "John", "Doe", null, null));
+                throw new IllegalStateException("failed");
+            }));
+            assertEquals(0, feed.getLastSequence());
+
+            repositories.write(() -> {
+                repositories.getStudents().insert(2L, new Student(2L, "Jane", "Doe", null, null));
+                repositories.getStudents().delete(2L);
+            });
+
+            List<ChangeFeed.Change> changes = feed.read(0, 10).changes();
+            assertEquals(List.of(ChangeFeed.PUT, ChangeFeed.DELETE), changes.stream().map(ChangeFeed.Change::op).toList());
+            assertEquals(List.of(2L, 2L), changes.stream().map(ChangeFeed.Change::id).toList());
+        }
+    }
+
+    @Test
+    void should_ReportConflicts_When_UpdatingStaleOrDuplicateRows() {
+        try (JdbcRepositories repositories = new JdbcRepositories(url(), 2)) {
+            Student john = new Student(1L, "John", "Doe", null, null);
+            assertTrue(repositories.getStudents().insert(1L, john));
+            assertTrue(repositories.getStudents().insert(2L, new Student(2L, "Jane", "Doe", null, null)));
+            assertFalse(repositories.getStudents().insert(3L, new Student(3L, "John", "Doe", null, null)));
+
+            assertEquals(WriteStatus.UNIQUE_CONFLICT, repositories.getStudents().update(1L, new Student(1L, "Jane", "Doe", null, null), null));
+            assertEquals(WriteStatus.VERSION_CONFLICT, repositories.getStudents().update(1L, new Student(1L, "Jim", "Doe", null, null), 2L));
+            assertEquals(WriteStatus.NOT_FOUND, repositories.getStudents().update(4L, new Student(4L, "Jim", "Doe", null, null), null));
+            Student jim = new Student(1L, "Jim", "Doe", null, null);
+            assertEquals(WriteStatus.APPLIED, repositories.getStudents().update(1L, jim, john.getVersion()));
+
+            assertEquals(2L, jim.getVersion());
+            assertEquals(jim, repositories.getStudents().findById(1L).orElseThrow());
+            assertThrows(VersionConflictException.class, () -> new StudentService(repositories, new MappingService())
+                    .updateStudent(1L, new StudentDTO("Jim", "Roe", null, null), 1L));
+            assertTrue(repositories.getStudents().delete(2L));
+            assertFalse(repositories.getStudents().delete(2L));
+        }
+    }
+
+    @Test
+    void should_KeepRowsAndContinueIds_When_ImportedAndReopened() {
+        MemoryDB db = new MemoryDB();
+        int students = JdbcRepositories.IMPORT_BATCH_SIZE * 2 + 1;
+        for (long id = 1; id <= students; id++) {
+            db.getStudents().put(id, new Student(id, "Name" + id, "Doe", null, null));
+        }
+        db.getStudents().put(1L, new Student(1L, "Name1", "Roe", null, null));
+        db.getTeachers().put(1L, new Teacher(1L, "Ann", "Smith", null, List.of(Subject.PHYSICS)));
+        db.getGroups().put(1L, new Group(1L, 101L, new long[]{1L, 2L}));
+        LocalDateTime start = LocalDateTime.of(2024, 9, 2, 8, 0);
+        db.getTimetables().put(1L, new Timetable(1L, 1L, 1L, start, start.plusMinutes(90)));
+        String url = "jdbc:h2:" + directory.resolve("university");
+
+        try (JdbcRepositories repositories = new JdbcRepositories(url, 2)) {
+            repositories.importFrom(db);
+        }
+
+        try (JdbcRepositories repositories = new JdbcRepositories(url, 2)) {
+            assertEquals(students, repositories.getStudents().findAll().size());
+            assertEquals(2L, repositories.getStudents().findById(1L).orElseThrow().getVersion());
+            assertEquals(students - 1, repositories.getStudents().findBySurname("doe").size());
+            assertEquals(List.of(1L), repositories.getGroups().findByStudentId(2L).stream().map(Group::getId).toList());
+            assertEquals(List.of(Subject.PHYSICS), repositories.getTeachers().findBySubject(Subject.PHYSICS).get(0).getSubjects());
+            assertTrue(repositories.getTimetables().contains(new Timetable(0L, 1L, 1L, start, start.plusMinutes(90))));
+            assertEquals(students + 1L, repositories.getStudents().nextId());
+            assertThrows(TeacherAlreadyExistsException.class, () -> new TeacherService(repositories, new MappingService())
+                    .addTeacher(new TeacherDTO("Ann", "Smith", null, List.of(Subject.PHYSICS))));
+        }
+    }
+
+    private String url() {
+        return "jdbc:h2:mem:" + directory.getFileName();
+    }
+}
@@ -8,6 +8,7 @@ import com.khokhlov.universityserver.model.Group;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.data.MemoryDB;
 import com.khokhlov.universityserver.model.dto.GroupDTO;
+import com.khokhlov.universityserver.model.dto.GroupDetailsDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -16,6 +17,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,6 +63,7 @@ class GroupServiceTest {
         groupService.addGroup(groupDTO);
 
         assertThrows(GroupAlreadyExistsException.class, () -> groupService.addGroup(groupDTO));
+        assertEquals(2L, memoryDB.getGroups().nextId());
     }
 
     @Test
@@ -82,6 +89,7 @@ class GroupServiceTest {
 
     @Test
     void should_GetGroupByNumberAndSurname_When_ValidDataProvided() {
+        memoryDB.getStudents().put(1L, student_1);
         Group group = new Group(1L, 101L, Arrays.asList(student_1));
         memoryDB.getGroups().put(1L, group);
 
@@ -91,6 +99,23 @@ class GroupServiceTest {
         assertEquals(group, result.get());
     }
 
+    @Test
+    void should_GetGroupByNumber_When_GroupIsAdded() {
+        groupService.addGroup(groupDTO);
+
+        Optional<Group> result = groupService.getGroupByNumber("101");
+
+        assertTrue(result.isPresent());
+        assertEquals(101L, result.get().getNumber());
+    }
+
+    @Test
+    void should_ReturnEmpty_When_NoStudentWithSurnameInGroup() {
+        memoryDB.getGroups().put(1L, new Group(1L, 101L, Arrays.asList(student_1)));
+
+        assertTrue(groupService.getGroupByNumberAndSurname("101", "Smith").isEmpty());
+    }
+
     @Test
     void should_ThrowException_When_GroupNotFoundByNumber() {
         Optional<Group> result = groupService.getGroupByNumber("999");
@@ -118,7 +143,18 @@ class GroupServiceTest {
         boolean result = groupService.addStudentsToGroup(101L, Arrays.asList(student_1));
 
         assertTrue(result);
-        assertTrue(memoryDB.getGroups().get(1L).getStudents().contains(student_1));
+        assertTrue(memoryDB.getGroups().get(1L).containsStudent(student_1.getId()));
+    }
+
+    @Test
+    void should_GetGroupBySurname_When_StudentWasAddedToGroup() {
+        memoryDB.getStudents().put(1L, student_1);
+        Group group = new Group(1L, 101L, new ArrayList<>());
+        memoryDB.getGroups().put(1L, group);
+
+        groupService.addStudentsToGroup(101L, Arrays.asList(student_1));
+
+        assertEquals(group, groupService.getGroupBySurname("doe").orElseThrow());
     }
 
     @Test
@@ -171,4 +207,63 @@ class GroupServiceTest {
 
         assertThrows(StudentAlreadyExistsException.class, () -> groupService.addStudentsToGroup(101L, Arrays.asList(student_1)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_ResolveCurrentStudents_When_GroupDetailsAreRequested() {
+        memoryDB.getStudents().put(1L, student_1);
+        memoryDB.getStudents().put(2L, student_2);
+        Group group = new Group(1L, 101L, Arrays.asList(student_2, student_1));
+        memoryDB.getGroups().put(1L, group);
+        Student renamed = new Student(2L, "Jane", "Smith", student_2.getBirthDate(), student_2.getPhoneNumber());
+        memoryDB.getStudents().put(2L, renamed);
+
+        GroupDetailsDTO details = groupService.getGroupDetails(group);
+
+        assertEquals(List.of(student_1, renamed), details.getStudents());
+        assertEquals(group, groupService.getGroupBySurname("smith").orElseThrow());
+        assertTrue(groupService.getGroupByNumberAndSurname("101", "Doe").isPresent());
+    }
+
+    @Test
+    void should_ThrowException_When_SameStudentIsAddedTwice() {
+        memoryDB.getGroups().put(1L, new Group(1L, 101L, new ArrayList<>()));
+
+        assertThrows(StudentAlreadyExistsException.class, () -> groupService.addStudentsToGroup(101L, Arrays.asList(student_1, student_1)));
+        assertEquals(0, memoryDB.getGroups().get(1L).getStudentCount());
+    }
+
+    @Test
+    void should_NotExceedMaxStudents_When_StudentsAreAddedConcurrently() throws Exception {
+        int maxStudents = propertyService.getPropertyAsInt("max.students");
+        memoryDB.getGroups().put(1L, new Group(1L, 101L, new ArrayList<>()));
+        int threads = maxStudents * 4;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long i = 1; i <= threads; i++) {
+                Student student = new Student(i, "Student" + i, "Surname" + i, LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        groupService.addStudentsToGroup(101L, List.of(student));
+                        added.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        // group is full
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(maxStudents, added.get());
+        assertEquals(maxStudents, memoryDB.getGroups().get(1L).getStudentCount());
+    }
+}
@@ -28,6 +28,15 @@ class MappingServiceTest {
         assertEquals(expectedStudent, student);
     }
 
+    @Test
+    void should_ShareNameInstances_When_MappingStudentsWithSameName() {
+        Student first = mappingService.fromStudentDTO(1L, new StudentDTO(new String("John"), new String("Doe"), LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90"));
+        Student second = mappingService.fromStudentDTO(2L, new StudentDTO(new String("John"), new String("Doe"), LocalDate.of(2001, 1, 1), "+7 (123) 456-78-91"));
+
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getSurname(), second.getSurname());
+    }
+
     @Test
     void should_MapTeacherDTOToTeacher_When_ValidDTOProvided() {
         List<Subject> subjects = Arrays.asList(Subject.MATH, Subject.PHYSICS);
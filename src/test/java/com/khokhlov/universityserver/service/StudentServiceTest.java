@@ -2,6 +2,7 @@ package com.khokhlov.universityserver.service;
 
 import com.khokhlov.universityserver.exception.StudentAlreadyExistsException;
 import com.khokhlov.universityserver.exception.StudentNotFoundException;
+import com.khokhlov.universityserver.exception.VersionConflictException;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.data.MemoryDB;
 import com.khokhlov.universityserver.model.dto.StudentDTO;
@@ -52,6 +53,20 @@ class StudentServiceTest {
         memoryDB.getStudents().put(1L, student);
 
         assertThrows(StudentAlreadyExistsException.class, () -> studentService.addStudent(studentDTO));
+        assertEquals(2L, memoryDB.getStudents().nextId());
+    }
+
+    @Test
+    void should_AddStudentAndReportConflict_When_WritePipelineIsStarted() {
+        memoryDB.startWritePipeline(16, 4);
+        try {
+            studentService.addStudent(studentDTO);
+
+            assertTrue(memoryDB.getStudents().containsValue(student));
+            assertThrows(StudentAlreadyExistsException.class, () -> studentService.addStudent(studentDTO));
+        } finally {
+            memoryDB.stopWritePipeline();
+        }
     }
 
     @Test
@@ -111,6 +126,30 @@ class StudentServiceTest {
         assertTrue(result.contains(student));
     }
 
+    @Test
+    void should_GetStudentsBySurname_IgnoringCase() {
+        memoryDB.getStudents().put(1L, student);
+
+        Collection<Student> result = studentService.getStudentsBySurname("dOE");
+
+        assertEquals(1, result.size());
+        assertTrue(result.contains(student));
+    }
+
+    @Test
+    void should_FindStudentByNewName_When_StudentIsUpdated() {
+        memoryDB.getStudents().put(1L, student);
+        Student updatedStudent = new Student(1L, "Jane", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+        StudentDTO updatedStudentDTO = new StudentDTO("Jane", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+
+        when(mappingService.fromStudentDTO(1L, updatedStudentDTO)).thenReturn(updatedStudent);
+
+        studentService.updateStudent(1L, updatedStudentDTO);
+
+        assertTrue(studentService.getStudentsByName("John").isEmpty());
+        assertEquals(1, studentService.getStudentsByNameAndSurname("jane", "doe").size());
+    }
+
     @Test
     void should_UpdateStudent_When_StudentExists() {
         memoryDB.getStudents().put(1L, student);
@@ -124,6 +163,19 @@ class StudentServiceTest {
         assertEquals(updatedStudent, memoryDB.getStudents().get(1L));
     }
 
+    @Test
+    void should_ThrowException_When_UpdatingToExistingStudent() {
+        memoryDB.getStudents().put(1L, student);
+        Student otherStudent = new Student(2L, "Jane", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+        memoryDB.getStudents().put(2L, otherStudent);
+        StudentDTO updatedStudentDTO = new StudentDTO("John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
+
+        when(mappingService.fromStudentDTO(2L, updatedStudentDTO)).thenReturn(new Student(2L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90"));
+
+        assertThrows(StudentAlreadyExistsException.class, () -> studentService.updateStudent(2L, updatedStudentDTO));
+        assertEquals(otherStudent, memoryDB.getStudents().get(2L));
+    }
+
     @Test
     void should_ThrowException_When_UpdatingNonexistentStudent() {
         StudentDTO updatedStudentDTO = new StudentDTO("Jane", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
@@ -138,6 +190,7 @@ class StudentServiceTest {
         studentService.deleteStudent(1L);
 
         assertFalse(memoryDB.getStudents().containsKey(1L));
+        assertTrue(studentService.getStudentsBySurname("Doe").isEmpty());
     }
 
     @Test
@@ -145,4 +198,26 @@ class StudentServiceTest {
         assertThrows(StudentNotFoundException.class, () -> studentService.deleteStudent(1L));
     }
 
-}
\ No newline at end of file
+    @Test
+    void should_BumpVersion_When_StudentIsUpdated() {
+        memoryDB.getStudents().put(1L, student);
+        StudentDTO updatedStudentDTO = new StudentDTO("John", "Doe", LocalDate.of(2000, 1, 1), "+7 (999) 999-99-99");
+        when(mappingService.fromStudentDTO(1L, updatedStudentDTO)).thenReturn(new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (999) 999-99-99"));
+
+        Student updated = studentService.updateStudent(1L, updatedStudentDTO, 1L);
+
+        assertEquals(1L, student.getVersion());
+        assertEquals(2L, updated.getVersion());
+        assertSame(updated, memoryDB.getStudents().get(1L));
+    }
+
+    @Test
+    void should_ThrowVersionConflict_When_ExpectedVersionIsStale() {
+        memoryDB.getStudents().put(1L, student);
+        StudentDTO updatedStudentDTO = new StudentDTO("John", "Doe", LocalDate.of(2000, 1, 1), "+7 (999) 999-99-99");
+        when(mappingService.fromStudentDTO(1L, updatedStudentDTO)).thenReturn(new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "+7 (999) 999-99-99"));
+
+        assertThrows(VersionConflictException.class, () -> studentService.updateStudent(1L, updatedStudentDTO, 5L));
+        assertSame(student, memoryDB.getStudents().get(1L));
+    }
+}
@@ -12,6 +12,10 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -53,6 +57,7 @@ class TeacherServiceTest {
         memoryDB.getTeachers().put(1L, teacher);
 
         assertThrows(TeacherAlreadyExistsException.class, () -> teacherService.addTeacher(teacherDTO));
+        assertEquals(2L, memoryDB.getTeachers().nextId());
     }
 
     @Test
@@ -72,7 +77,8 @@ class TeacherServiceTest {
 
         teacherService.addSubjectToTeacher(1L, subjectDTO);
 
-        assertTrue(teacher.getSubjects().contains(Subject.fromValue("Math")));
+        assertTrue(memoryDB.getTeachers().get(1L).getSubjects().contains(Subject.fromValue("Math")));
+        assertEquals(List.of(memoryDB.getTeachers().get(1L)), teacherService.getTeachersBySubject(Subject.MATH));
     }
 
     @Test
@@ -84,10 +90,46 @@ class TeacherServiceTest {
 
     @Test
     void should_ThrowException_When_AddingExistingSubjectToTeacher() {
-        memoryDB.getTeachers().put(1L, teacher);
-        teacher.getSubjects().add(Subject.fromValue("Math"));
+        memoryDB.getTeachers().put(1L, teacher.withSubject(Subject.fromValue("Math")));
         SubjectDTO subjectDTO = new SubjectDTO("Math");
 
         assertThrows(IllegalArgumentException.class, () -> teacherService.addSubjectToTeacher(1L, subjectDTO));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_GetTeachersBySubject_InIdOrder() {
+        Teacher physicist = new Teacher(2L, "Anna", "Petrova", 3L, List.of(Subject.PHYSICS, Subject.MATH));
+        Teacher historian = new Teacher(3L, "Ivan", "Ivanov", 7L, List.of(Subject.HISTORY));
+        memoryDB.getTeachers().put(3L, historian);
+        memoryDB.getTeachers().put(2L, physicist);
+        memoryDB.getTeachers().put(1L, teacher.withSubject(Subject.PHYSICS));
+
+        List<Teacher> teachers = teacherService.getTeachersBySubject(Subject.PHYSICS);
+
+        assertEquals(List.of(1L, 2L), teachers.stream().map(Teacher::getId).toList());
+        assertTrue(teacherService.getTeachersBySubject(Subject.CHEMISTRY).isEmpty());
+    }
+
+    @Test
+    void should_KeepAllSubjects_When_AddedConcurrently() throws Exception {
+        memoryDB.getTeachers().put(1L, teacher);
+        Subject[] subjects = Subject.values();
+        ExecutorService executor = Executors.newFixedThreadPool(subjects.length);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Subject subject : subjects) {
+                futures.add(executor.submit(() -> teacherService.addSubjectToTeacher(1L, new SubjectDTO(subject.toString()))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(subjects), memoryDB.getTeachers().get(1L).getSubjects());
+        for (Subject subject : subjects) {
+            assertEquals(1, teacherService.getTeachersBySubject(subject).size());
+        }
+    }
+}
@@ -2,11 +2,14 @@ package com.khokhlov.universityserver.service;
 
 import com.khokhlov.universityserver.exception.TimetableAlreadyExistsException;
 import com.khokhlov.universityserver.exception.TimetableNotFoundException;
+import com.khokhlov.universityserver.exception.VersionConflictException;
 import com.khokhlov.universityserver.model.Group;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.Teacher;
 import com.khokhlov.universityserver.model.Timetable;
+import com.khokhlov.universityserver.model.data.DailyKey;
 import com.khokhlov.universityserver.model.data.MemoryDB;
+import com.khokhlov.universityserver.model.data.TimetableStorage;
 import com.khokhlov.universityserver.model.dto.TimetableDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +17,11 @@ import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -52,6 +60,7 @@ class TimetableServiceTest {
         timetableDTO = new TimetableDTO(1L, 1L, FIXED_START_TIME, FIXED_END_TIME);
 
         memoryDB.getTeachers().put(1L, teacher);
+        memoryDB.getStudents().put(1L, student);
         memoryDB.getGroups().put(1L, group);
 
         when(mappingService.fromTimetableDTO(anyLong(), eq(timetableDTO))).thenReturn(timetable);
@@ -72,6 +81,90 @@ class TimetableServiceTest {
         memoryDB.getTimetables().put(1L, timetable);
 
         assertThrows(TimetableAlreadyExistsException.class, () -> timetableService.addTimetable(timetableDTO));
+        assertEquals(2L, memoryDB.getTimetables().nextId());
+    }
+
+    @Test
+    void should_ThrowException_When_DailyLimitIsReached() {
+        for (long i = 1; i <= 5; i++) {
+            LocalDateTime start = FIXED_START_TIME.plusHours(2 * i);
+            memoryDB.getTimetables().put(10L + i, new Timetable(10L + i, 1L, 1L, start, start.plusMinutes(90)));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> timetableService.addTimetable(timetableDTO));
+        assertEquals(16L, memoryDB.getTimetables().nextId());
+    }
+
+    @Test
+    void should_AssignIdAboveExistingTimetables_When_AddingTimetable() {
+        TimetableService service = new TimetableService(memoryDB, new MappingService(), propertyService);
+        LocalDateTime start = FIXED_START_TIME.plusHours(2);
+        memoryDB.getTimetables().put(7L, new Timetable(7L, 1L, 1L, start, start.plusMinutes(90)));
+
+        service.addTimetable(timetableDTO);
+
+        assertEquals(8L, memoryDB.getTimetables().get(8L).getId());
+    }
+
+    @Test
+    void should_ThrowException_When_OnlyTeacherDailyLimitIsReached() {
+        for (long i = 1; i <= 5; i++) {
+            LocalDateTime start = FIXED_START_TIME.plusHours(2 * i);
+            memoryDB.getTimetables().put(10L + i, new Timetable(10L + i, 2L, 1L, start, start.plusMinutes(90)));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> timetableService.addTimetable(timetableDTO));
+        assertEquals(0, memoryDB.getGroupDailyMinutes().sum(new DailyKey(1L, FIXED_START_TIME.toLocalDate())));
+    }
+
+    @Test
+    void should_NotExceedDailyLimit_When_TimetablesAreAddedConcurrently() throws Exception {
+        TimetableService service = new TimetableService(memoryDB, new MappingService(), propertyService);
+        int threads = 40;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                LocalDateTime classStart = FIXED_START_TIME.toLocalDate().atStartOfDay().plusMinutes(30L * i);
+                TimetableDTO dto = new TimetableDTO(1L, 100L + i, classStart, classStart.plusMinutes(90));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        service.addTimetable(dto);
+                        added.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        // daily limit reached
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(5, added.get());
+        assertEquals(5, memoryDB.getTimetables().size());
+        memoryDB.getTimetables().forEach((id, timetable) -> assertEquals(id, timetable.getId()));
+        assertEquals(450, memoryDB.getGroupDailyMinutes().sum(new DailyKey(1L, FIXED_START_TIME.toLocalDate())));
+    }
+
+    @Test
+    void should_AddTimetable_When_DailyLimitIsFreedByRemoval() {
+        for (long i = 1; i <= 5; i++) {
+            LocalDateTime start = FIXED_START_TIME.plusHours(2 * i);
+            memoryDB.getTimetables().put(10L + i, new Timetable(10L + i, 1L, 1L, start, start.plusMinutes(90)));
+        }
+        memoryDB.getTimetables().remove(15L);
+
+        timetableService.addTimetable(timetableDTO);
+
+        assertTrue(memoryDB.getTimetables().containsValue(timetable));
     }
 
     @Test
@@ -104,6 +197,16 @@ class TimetableServiceTest {
         assertEquals(timetable, retrievedTimetable.get());
     }
 
+    @Test
+    void should_ReturnEmpty_When_GroupHasNoTimetables() {
+        memoryDB.getGroups().put(2L, new Group(2L, 102L, List.of()));
+        memoryDB.getTimetables().put(1L, timetable);
+
+        Optional<Timetable> retrievedTimetable = timetableService.getTimetablesByGroupNumber(102L);
+
+        assertTrue(retrievedTimetable.isEmpty());
+    }
+
     @Test
     void should_ThrowException_When_GettingTimetablesByNonexistentGroupNumber() {
         assertThrows(TimetableNotFoundException.class, () -> timetableService.getTimetablesByGroupNumber(102L));
@@ -119,6 +222,22 @@ class TimetableServiceTest {
         assertTrue(timetables.contains(timetable));
     }
 
+    @Test
+    void should_GetTimetablesByStudentId_When_StudentIsInGroup() {
+        memoryDB.getTimetables().put(1L, timetable);
+
+        List<Timetable> timetables = timetableService.getTimetablesByStudentId(1L);
+
+        assertEquals(List.of(timetable), timetables);
+    }
+
+    @Test
+    void should_ThrowException_When_StudentIsNotInAnyGroup() {
+        memoryDB.getTimetables().put(1L, timetable);
+
+        assertThrows(TimetableNotFoundException.class, () -> timetableService.getTimetablesByStudentId(2L));
+    }
+
     @Test
     void should_ThrowException_When_GettingTimetablesByNonexistentStudentSurname() {
         assertThrows(TimetableNotFoundException.class, () -> timetableService.getTimetablesByStudentSurname("Nonexistent"));
@@ -134,6 +253,24 @@ class TimetableServiceTest {
         assertTrue(timetables.contains(timetable));
     }
 
+    @Test
+    void should_GetOnlyOwnTimetables_When_TeachersShareSurname() {
+        Teacher namesake = new Teacher(2L, "John", "Smith", 3L, new ArrayList<>());
+        Teacher otherTeacher = new Teacher(3L, "Anna", "Brown", 3L, new ArrayList<>());
+        memoryDB.getTeachers().put(2L, namesake);
+        memoryDB.getTeachers().put(3L, otherTeacher);
+        Timetable namesakeTimetable = new Timetable(2L, 1L, 2L, FIXED_START_TIME.plusDays(1), FIXED_END_TIME.plusDays(1));
+        Timetable otherTimetable = new Timetable(3L, 1L, 3L, FIXED_START_TIME.plusDays(2), FIXED_END_TIME.plusDays(2));
+        memoryDB.getTimetables().put(1L, timetable);
+        memoryDB.getTimetables().put(2L, namesakeTimetable);
+        memoryDB.getTimetables().put(3L, otherTimetable);
+
+        List<Timetable> timetables = timetableService.getTimetablesByTeacherSurname("smith");
+
+        assertEquals(2, timetables.size());
+        assertTrue(timetables.containsAll(List.of(timetable, namesakeTimetable)));
+    }
+
     @Test
     void should_ThrowException_When_GettingTimetablesByNonexistentTeacherSurname() {
         assertThrows(TimetableNotFoundException.class, () -> timetableService.getTimetablesByTeacherSurname("Nonexistent"));
@@ -154,6 +291,34 @@ class TimetableServiceTest {
         assertThrows(TimetableNotFoundException.class, () -> timetableService.getTimetablesByDate(LocalDate.now().plusDays(1)));
     }
 
+    @Test
+    void should_GetTimetablesByDateRange_InStartTimeOrder() {
+        Timetable later = new Timetable(2L, 1L, 1L, FIXED_START_TIME.plusDays(2), FIXED_END_TIME.plusDays(2));
+        Timetable outOfRange = new Timetable(3L, 1L, 1L, FIXED_START_TIME.plusDays(7), FIXED_END_TIME.plusDays(7));
+        memoryDB.getTimetables().put(2L, later);
+        memoryDB.getTimetables().put(1L, timetable);
+        memoryDB.getTimetables().put(3L, outOfRange);
+
+        List<Timetable> timetables = timetableService.getTimetablesByDateRange(FIXED_START_TIME.toLocalDate(), FIXED_START_TIME.toLocalDate().plusDays(2));
+
+        assertEquals(List.of(timetable, later), timetables);
+    }
+
+    @Test
+    void should_ThrowException_When_DateRangeIsReversed() {
+        LocalDate date = FIXED_START_TIME.toLocalDate();
+
+        assertThrows(IllegalArgumentException.class, () -> timetableService.getTimetablesByDateRange(date, date.minusDays(1)));
+    }
+
+    @Test
+    void should_ThrowException_When_NoTimetablesInDateRange() {
+        memoryDB.getTimetables().put(1L, timetable);
+        LocalDate date = FIXED_START_TIME.toLocalDate();
+
+        assertThrows(TimetableNotFoundException.class, () -> timetableService.getTimetablesByDateRange(date.plusDays(1), date.plusDays(6)));
+    }
+
     @Test
     void should_UpdateTimetable_When_TimetableExists() {
         memoryDB.getTimetables().put(1L, timetable);
@@ -181,4 +346,64 @@ class TimetableServiceTest {
         assertThrows(IllegalArgumentException.class, () -> timetableService.updateTimetable(timetableDTO.getStartDateTime().toLocalDate(), updatedTimetableDTO));
     }
 
-}
\ No newline at end of file
+    @Test
+    void should_UpdateTimetable_When_DayIsAtLimit() {
+        memoryDB.getTimetables().put(1L, timetable);
+        for (long i = 1; i <= 4; i++) {
+            LocalDateTime start = FIXED_START_TIME.plusHours(2 * i);
+            memoryDB.getTimetables().put(10L + i, new Timetable(10L + i, 1L, 2L, start, start.plusMinutes(90)));
+        }
+        timetableDTO.setStartDateTime(FIXED_START_TIME.minusMinutes(60));
+        timetableDTO.setEndDateTime(FIXED_END_TIME.minusMinutes(60));
+
+        timetableService.updateTimetable(FIXED_START_TIME.toLocalDate(), timetableDTO);
+
+        assertEquals(FIXED_START_TIME.minusMinutes(60), memoryDB.getTimetables().get(1L).getStartDateTime());
+        assertEquals(450, memoryDB.getGroupDailyMinutes().sum(new DailyKey(1L, FIXED_START_TIME.toLocalDate())));
+    }
+
+    @Test
+    void should_ReleaseReservedMinutes_When_UpdateHitsVersionConflict() {
+        memoryDB.getTimetables().put(1L, timetable);
+        timetableDTO.setStartDateTime(FIXED_START_TIME.plusMinutes(60));
+        timetableDTO.setEndDateTime(FIXED_END_TIME.plusMinutes(60));
+
+        assertThrows(VersionConflictException.class, () -> timetableService.updateTimetable(FIXED_START_TIME.toLocalDate(), timetableDTO, 5L));
+
+        assertEquals(90, memoryDB.getGroupDailyMinutes().sum(new DailyKey(1L, FIXED_START_TIME.toLocalDate())));
+        assertEquals(90, memoryDB.getTeacherDailyMinutes().sum(new DailyKey(1L, FIXED_START_TIME.toLocalDate())));
+    }
+
+    @Test
+    void should_QueryAndUpdateTimetables_When_StorageIsColumnar() {
+        memoryDB = new MemoryDB(TimetableStorage.COLUMNAR);
+        memoryDB.getGroups().put(1L, group);
+        timetableService = new TimetableService(memoryDB, mappingService, propertyService);
+        Timetable later = new Timetable(2L, 1L, 1L, FIXED_START_TIME.plusDays(2), FIXED_END_TIME.plusDays(2));
+        memoryDB.getTimetables().put(2L, later);
+        memoryDB.getTimetables().put(1L, timetable);
+
+        assertEquals(List.of(timetable, later), timetableService.getTimetablesByDateRange(FIXED_START_TIME.toLocalDate(), FIXED_START_TIME.toLocalDate().plusDays(2)));
+        assertEquals(2, memoryDB.findTimetablesByGroupId(1L).size());
+
+        timetableDTO.setStartDateTime(FIXED_START_TIME.plusMinutes(60));
+        timetableDTO.setEndDateTime(FIXED_END_TIME.plusMinutes(60));
+        timetableService.updateTimetable(FIXED_START_TIME.toLocalDate(), timetableDTO);
+
+        assertEquals(FIXED_START_TIME.plusMinutes(60), memoryDB.getTimetables().get(1L).getStartDateTime());
+        assertEquals(2, memoryDB.getTimetables().size());
+    }
+
+    @Test
+    void should_ThrowVersionConflict_When_TimetableChangedSinceRead() {
+        memoryDB.getTimetables().put(1L, timetable);
+        timetableDTO.setStartDateTime(FIXED_START_TIME.plusMinutes(60));
+        timetableDTO.setEndDateTime(FIXED_END_TIME.plusMinutes(60));
+
+        Timetable updated = timetableService.updateTimetable(FIXED_START_TIME.toLocalDate(), timetableDTO, 1L);
+
+        assertEquals(2L, updated.getVersion());
+        assertThrows(VersionConflictException.class, () -> timetableService.updateTimetable(FIXED_START_TIME.toLocalDate(), timetableDTO, 1L));
+        assertSame(updated, memoryDB.getTimetables().get(1L));
+    }
+}
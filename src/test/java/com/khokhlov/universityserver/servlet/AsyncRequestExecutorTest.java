@@ -0,0 +1,182 @@
+package com.khokhlov.universityserver.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AsyncRequestExecutorTest {
+
+    private AsyncRequestExecutor executor;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private AsyncContext asyncContext;
+    private StringWriter responseWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = new AsyncRequestExecutor(1, 0, 1000L);
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        asyncContext = mock(AsyncContext.class);
+        responseWriter = new StringWriter();
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        when(response.getWriter()).thenReturn(new PrintWriter(responseWriter, true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void should_RunHandlerOnVirtualThread_When_Dispatched() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        boolean[] virtual = {false};
+
+        executor.dispatch(request, response, (req, resp) -> {
+            virtual[0] = Thread.currentThread().isVirtual();
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        verify(asyncContext, timeout(5000)).complete();
+        assertTrue(virtual[0]);
+    }
+
+    @Test
+    void should_Return503_When_QueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.dispatch(request, response, (req, resp) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        HttpServletResponse rejected = mock(HttpServletResponse.class);
+        when(rejected.getWriter()).thenReturn(new PrintWriter(responseWriter, true));
+        executor.dispatch(request, rejected, (req, resp) -> fail("Rejected request must not run"));
+        release.countDown();
+
+        verify(rejected).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(rejected).setHeader("Retry-After", "1");
+        verify(request, times(1)).startAsync(request, response);
+        assertTrue(responseWriter.toString().contains("Server is busy"));
+    }
+
+    @Test
+    void should_AcceptAgain_When_RunningRequestCompletes() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        assertTrue(executor.execute(first::countDown));
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch second = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!executor.execute(second::countDown)) {
+            assertTrue(System.nanoTime() < deadline, "Slot was never released");
+            Thread.onSpinWait();
+        }
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_ReleaseSlot_When_StartAsyncFails() throws Exception {
+        when(request.startAsync(request, response)).thenThrow(new IllegalStateException("async not supported"));
+        assertThrows(IllegalStateException.class, () -> executor.dispatch(request, response, (req, resp) -> fail("Must not run")));
+
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(executor.execute(done::countDown));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_Return503AndDropLateWrites_When_RequestTimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.dispatch(request, response, (req, resp) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            resp.setStatus(HttpServletResponse.SC_OK);
+            resp.getWriter().write("late");
+        });
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext, request, response));
+        release.countDown();
+        executor.close();
+
+        verify(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(response, never()).setStatus(HttpServletResponse.SC_OK);
+        verify(asyncContext, times(1)).complete();
+        assertEquals("", responseWriter.toString());
+    }
+
+    @Test
+    void should_TimeOutPromptly_When_HandlerIsStalledWriting() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Writer slowClient = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        when(response.getWriter()).thenReturn(new PrintWriter(slowClient));
+        executor.dispatch(request, response, (req, resp) -> {
+            resp.getWriter().write("big response");
+            resp.getWriter().flush();
+        });
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> timeout = CompletableFuture.runAsync(() -> {
+            try {
+                listener.getValue().onTimeout(new AsyncEvent(asyncContext, request, response));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        timeout.get(5, TimeUnit.SECONDS);
+        verify(asyncContext, times(1)).complete();
+        release.countDown();
+        executor.close();
+        verify(asyncContext, times(1)).complete();
+    }
+}
@@ -0,0 +1,139 @@
+package com.khokhlov.universityserver.servlet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.khokhlov.universityserver.repository.ChangeFeed;
+import com.khokhlov.universityserver.service.JsonService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static com.khokhlov.universityserver.consts.Consts.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ChangeServletTest {
+
+    private ChangeServlet servlet;
+    private ChangeFeed changeFeed;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private StringWriter responseWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        changeFeed = new ChangeFeed(2, 100);
+        ServletContext context = mock(ServletContext.class);
+        ServletConfig config = mock(ServletConfig.class);
+        when(config.getServletContext()).thenReturn(context);
+        when(context.getAttribute(CHANGE_FEED)).thenReturn(changeFeed);
+        when(context.getAttribute(JSON_SERVICE)).thenReturn(new JsonService(new ObjectMapper()));
+        servlet = new ChangeServlet();
+        servlet.init(config);
+
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        responseWriter = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseWriter));
+    }
+
+    @Test
+    void should_WriteOneLinePerChange_When_SinceIsKept() throws Exception {
+        changeFeed.append(ChangeFeed.STUDENT, 1L, "John");
+        changeFeed.append(ChangeFeed.STUDENT, 1L, null);
+        when(request.getParameter(SINCE)).thenReturn("100");
+
+        servlet.doGet(request, response);
+
+        verify(response).setContentType("application/x-ndjson");
+        assertEquals("""
+                {"seq":101,"entity":"student","id":1,"op":"put","data":"John"}
+                {"seq":102,"entity":"student","id":1,"op":"delete"}
+                """, responseWriter.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    void should_AskForResync_When_SinceIsMissingOrTooOld() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            changeFeed.append(ChangeFeed.TEACHER, id, "Teacher" + id);
+        }
+
+        servlet.doGet(request, response);
+        when(request.getParameter(SINCE)).thenReturn("100");
+        servlet.doGet(request, response);
+
+        assertEquals("""
+                {"resync":true,"seq":103}
+                {"resync":true,"seq":103}
+                """, responseWriter.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    void should_Return400_When_SinceIsNotANumber() throws Exception {
+        when(request.getParameter(SINCE)).thenReturn("abc");
+
+        servlet.doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+    }
+
+    @Test
+    void should_ParkRequestUntilChange_When_Waiting() throws Exception {
+        AsyncContext asyncContext = mockWaitingRequest("100");
+
+        servlet.service(request, response);
+
+        verify(asyncContext).setTimeout(5000L);
+        verify(asyncContext, never()).dispatch();
+        assertEquals("", responseWriter.toString());
+
+        changeFeed.append(ChangeFeed.GROUP, 1L, "101");
+        changeFeed.append(ChangeFeed.GROUP, 2L, "102");
+
+        verify(asyncContext, times(1)).dispatch();
+    }
+
+    @Test
+    void should_DispatchOnce_When_WaitRunsOut() throws Exception {
+        AsyncContext asyncContext = mockWaitingRequest("100");
+        servlet.service(request, response);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext, request, response));
+        changeFeed.append(ChangeFeed.GROUP, 1L, "101");
+
+        verify(asyncContext, times(1)).dispatch();
+    }
+
+    @Test
+    void should_AnswerRightAway_When_ChangesAreAlreadyThere() throws Exception {
+        changeFeed.append(ChangeFeed.GROUP, 1L, "101");
+        AsyncContext asyncContext = mockWaitingRequest("100");
+
+        servlet.service(request, response);
+
+        verify(asyncContext, times(1)).dispatch();
+    }
+
+    private AsyncContext mockWaitingRequest(String since) {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.getParameter(SINCE)).thenReturn(since);
+        when(request.getParameter(WAIT)).thenReturn("5");
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        return asyncContext;
+    }
+}
@@ -5,6 +5,7 @@ import com.khokhlov.universityserver.exception.GroupNotFoundException;
 import com.khokhlov.universityserver.model.Group;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.dto.GroupDTO;
+import com.khokhlov.universityserver.model.dto.GroupDetailsDTO;
 import com.khokhlov.universityserver.testutils.MockSetup;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +30,7 @@ class GroupServletTest extends MockSetup {
 
     private Group group;
     private Student student;
+    private GroupDetailsDTO details;
 
     @BeforeEach
     protected void setUp() throws Exception {
@@ -41,13 +43,15 @@ class GroupServletTest extends MockSetup {
 
         student = new Student(1L, "John", "Doe", null, null);
         group = new Group(1L, 1, List.of(student));
+        details = new GroupDetailsDTO(1L, 1L, List.of(student), 0L);
+        when(groupService.getGroupDetails(group)).thenReturn(details);
     }
 
     @Test
     void should_ReturnAllGroups_When_NoFilterIsApplied() throws Exception {
         List<Group> groups = List.of(group);
         when(groupService.getAllGroups()).thenReturn(groups);
-        when(jsonService.toJson(groups)).thenReturn("[{\"id\":1}]");
+        when(jsonService.toJson(List.of(details))).thenReturn("[{\"id\":1}]");
 
         servletGroup.doGet(request, response);
 
@@ -56,11 +60,24 @@ class GroupServletTest extends MockSetup {
         verify(response).setStatus(HttpServletResponse.SC_OK);
     }
 
+    @Test
+    void should_ReturnStudentIds_When_IdsViewIsRequested() throws Exception {
+        when(request.getParameter("number")).thenReturn("1");
+        when(request.getParameter("view")).thenReturn("ids");
+        when(groupService.getGroupByNumber("1")).thenReturn(Optional.of(group));
+        when(jsonService.toJson(Optional.of(group))).thenReturn("{\"studentIds\":[1]}");
+
+        servletGroup.doGet(request, response);
+
+        verify(groupService, never()).getGroupDetails(group);
+        assertEquals("{\"studentIds\":[1]}", responseWriter.toString());
+    }
+
     @Test
     void should_ReturnGroupByNumber_When_GroupNumberIsProvided() throws Exception {
         when(request.getParameter("number")).thenReturn("1");
         when(groupService.getGroupByNumber("1")).thenReturn(Optional.of(group));
-        when(jsonService.toJson(Optional.of(group))).thenReturn("{\"id\":1}");
+        when(jsonService.toJson(Optional.of(details))).thenReturn("{\"id\":1}");
 
         servletGroup.doGet(request, response);
 
@@ -73,7 +90,7 @@ class GroupServletTest extends MockSetup {
     void should_ReturnGroupBySurname_When_SurnameIsProvided() throws Exception {
         when(request.getParameter(SURNAME)).thenReturn("Doe");
         when(groupService.getGroupBySurname("Doe")).thenReturn(Optional.of(group));
-        when(jsonService.toJson(Optional.of(group))).thenReturn("{\"id\":1}");
+        when(jsonService.toJson(Optional.of(details))).thenReturn("{\"id\":1}");
 
         servletGroup.doGet(request, response);
 
@@ -0,0 +1,72 @@
+package com.khokhlov.universityserver.servlet;
+
+import com.khokhlov.universityserver.persistence.SnapshotWarmup;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static com.khokhlov.universityserver.consts.Consts.RETRY_AFTER;
+import static com.khokhlov.universityserver.consts.Consts.SNAPSHOT_WARMUP;
+import static org.mockito.Mockito.*;
+
+class ReadinessFilterTest {
+
+    private ReadinessFilter filter;
+    private SnapshotWarmup snapshotWarmup;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        snapshotWarmup = mock(SnapshotWarmup.class);
+        ServletContext context = mock(ServletContext.class);
+        FilterConfig config = mock(FilterConfig.class);
+        when(config.getServletContext()).thenReturn(context);
+        when(context.getAttribute(SNAPSHOT_WARMUP)).thenReturn(snapshotWarmup);
+        filter = new ReadinessFilter();
+        filter.init(config);
+
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        chain = mock(FilterChain.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter(), true));
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getServletPath()).thenReturn("/students");
+    }
+
+    @Test
+    void should_Return503_When_ListingWhileLoading() throws Exception {
+        filter.doFilter(request, response, chain);
+
+        verify(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(response).setHeader(RETRY_AFTER, "1");
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void should_PassLookupById_When_Loading() throws Exception {
+        when(request.getPathInfo()).thenReturn("/42");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void should_PassEveryRequest_When_Ready() throws Exception {
+        when(snapshotWarmup.isReady()).thenReturn(true);
+        when(request.getMethod()).thenReturn("POST");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+    }
+}
@@ -2,6 +2,7 @@ package com.khokhlov.universityserver.servlet;
 
 import com.khokhlov.universityserver.exception.StudentAlreadyExistsException;
 import com.khokhlov.universityserver.exception.StudentNotFoundException;
+import com.khokhlov.universityserver.exception.VersionConflictException;
 import com.khokhlov.universityserver.model.Student;
 import com.khokhlov.universityserver.model.dto.StudentDTO;
 import com.khokhlov.universityserver.testutils.MockSetup;
@@ -17,6 +18,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import static com.khokhlov.universityserver.consts.Consts.ASYNC_REQUEST_EXECUTOR;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -40,6 +42,18 @@ class StudentServletTest extends MockSetup {
         studentDTO = new StudentDTO("John", "Doe", LocalDate.of(2000, 1, 1), "+7 (123) 456-78-90");
     }
 
+    @Test
+    void should_DispatchToAsyncExecutor_When_AsyncModeIsEnabled() throws Exception {
+        AsyncRequestExecutor asyncRequestExecutor = mock(AsyncRequestExecutor.class);
+        when(servletContext.getAttribute(ASYNC_REQUEST_EXECUTOR)).thenReturn(asyncRequestExecutor);
+        studentServlet.init(servletConfig);
+
+        studentServlet.service(request, response);
+
+        verify(asyncRequestExecutor).dispatch(eq(request), eq(response), any());
+        verifyNoInteractions(studentService);
+    }
+
     @Test
     void should_ReturnAllStudents_When_NoFilterIsApplied() throws Exception {
         List<Student> students = List.of(student);
@@ -62,6 +76,7 @@ class StudentServletTest extends MockSetup {
         studentServlet.doGet(request, response);
 
         verify(studentService).getStudentById(1L);
+        verify(response).setHeader("ETag", "\"0\"");
         assertEquals("{\"id\":1}", responseWriter.toString());
         verify(response).setStatus(HttpServletResponse.SC_OK);
     }
@@ -149,20 +164,53 @@ class StudentServletTest extends MockSetup {
         when(request.getPathInfo()).thenReturn("/1");
         when(request.getReader()).thenReturn(new BufferedReader(new StringReader(studentJson)));
         when(jsonService.fromJson(studentJson, StudentDTO.class)).thenReturn(studentDTO);
+        Student updated = new Student(1L, "John", "Doe", LocalDate.of(2000, 1, 1), "1234567890");
+        updated.setVersion(2L);
+        when(studentService.updateStudent(1L, studentDTO, null)).thenReturn(updated);
 
         studentServlet.doPut(request, response);
 
-        verify(studentService).updateStudent(1L, studentDTO);
+        verify(studentService).updateStudent(1L, studentDTO, null);
+        verify(response).setHeader("ETag", "\"2\"");
         verify(response).setStatus(HttpServletResponse.SC_OK);
     }
 
+    @Test
+    void should_ReturnPreconditionFailed_When_IfMatchVersionIsStale() throws Exception {
+        String studentJson = "{\"name\":\"John\", \"surname\":\"Doe\", \"birthdate\":\"2000-01-01\", \"phoneNumber\":\"1234567890\"}";
+        when(request.getPathInfo()).thenReturn("/1");
+        when(request.getHeader("If-Match")).thenReturn("W/\"3\"");
+        when(request.getReader()).thenReturn(new BufferedReader(new StringReader(studentJson)));
+        when(jsonService.fromJson(studentJson, StudentDTO.class)).thenReturn(studentDTO);
+        when(studentService.updateStudent(1L, studentDTO, 3L)).thenThrow(new VersionConflictException("Student with id 1 was modified concurrently"));
+
+        studentServlet.doPut(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+        assertTrue(responseWriter.toString().contains("modified concurrently"));
+    }
+
+    @Test
+    void should_ReturnBadRequest_When_IfMatchIsMalformed() throws Exception {
+        String studentJson = "{\"name\":\"John\", \"surname\":\"Doe\", \"birthdate\":\"2000-01-01\", \"phoneNumber\":\"1234567890\"}";
+        when(request.getPathInfo()).thenReturn("/1");
+        when(request.getHeader("If-Match")).thenReturn("three");
+        when(request.getReader()).thenReturn(new BufferedReader(new StringReader(studentJson)));
+        when(jsonService.fromJson(studentJson, StudentDTO.class)).thenReturn(studentDTO);
+
+        studentServlet.doPut(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(studentService, never()).updateStudent(anyLong(), any(), any());
+    }
+
     @Test
     void should_ReturnNotFound_When_UpdatingNonexistentStudent() throws Exception {
         String studentJson = "{\"name\":\"John\", \"surname\":\"Doe\", \"birthdate\":\"2000-01-01\", \"phoneNumber\":\"1234567890\"}";
         when(request.getPathInfo()).thenReturn("/999");
         when(request.getReader()).thenReturn(new BufferedReader(new StringReader(studentJson)));
         when(jsonService.fromJson(studentJson, StudentDTO.class)).thenReturn(studentDTO);
-        doThrow(new StudentNotFoundException("Student not found")).when(studentService).updateStudent(999L, studentDTO);
+        doThrow(new StudentNotFoundException("Student not found")).when(studentService).updateStudent(999L, studentDTO, null);
 
         studentServlet.doPut(request, response);
 
@@ -44,6 +44,30 @@ class TeacherServletTest extends MockSetup {
         subjectDTO = new SubjectDTO("Math");
     }
 
+    @Test
+    void should_ReturnTeachersBySubject_When_SubjectParameterIsPresent() throws Exception {
+        List<Teacher> teachers = List.of(teacher);
+        when(request.getParameter("subject")).thenReturn("math");
+        when(teacherService.getTeachersBySubject(MATH)).thenReturn(teachers);
+        when(jsonService.toJson(teachers)).thenReturn("[{\"id\":1}]");
+
+        teacherServlet.doGet(request, response);
+
+        verify(teacherService).getTeachersBySubject(MATH);
+        verify(teacherService, never()).getAllTeachers();
+        assertEquals("[{\"id\":1}]", responseWriter.toString());
+    }
+
+    @Test
+    void should_ReturnBadRequest_When_SubjectIsUnknown() throws Exception {
+        when(request.getParameter("subject")).thenReturn("Astrology");
+
+        teacherServlet.doGet(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        assertTrue(responseWriter.toString().startsWith("Invalid subject"));
+    }
+
     @Test
     void should_ReturnAllTeachers_When_NoFilterIsApplied() throws Exception {
         List<Teacher> teachers = List.of(teacher);
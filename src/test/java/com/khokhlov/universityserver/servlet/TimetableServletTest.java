@@ -66,6 +66,24 @@ class TimetableServletTest extends MockSetup {
         verify(response).setStatus(HttpServletResponse.SC_OK);
     }
 
+    @Test
+    void should_ReuseSerializedResult_When_SameQueryRepeatsWithoutWrites() throws Exception {
+        when(request.getParameter("studentSurname")).thenReturn("Doe");
+        when(timetableService.getDataVersion()).thenReturn(3L);
+        when(timetableService.getTimetablesByStudentSurname(anyString())).thenReturn(List.of(timetable));
+        when(jsonService.toJson(List.of(timetable))).thenReturn("[{\"id\":1}]");
+
+        timetableServlet.doGet(request, response);
+        when(request.getParameter("studentSurname")).thenReturn("DOE");
+        timetableServlet.doGet(request, response);
+        when(timetableService.getDataVersion()).thenReturn(4L);
+        timetableServlet.doGet(request, response);
+
+        verify(timetableService, times(2)).getTimetablesByStudentSurname(anyString());
+        verify(jsonService, times(2)).toJson(List.of(timetable));
+        assertEquals("[{\"id\":1}]".repeat(3), responseWriter.toString());
+    }
+
     @Test
     void should_ReturnNotFound_When_GroupNumberDoesNotExist() throws Exception {
         when(request.getParameter("groupNumber")).thenReturn("999");
@@ -101,6 +119,19 @@ class TimetableServletTest extends MockSetup {
         verify(response).setStatus(HttpServletResponse.SC_OK);
     }
 
+    @Test
+    void should_ReturnTimetablesByStudentId_When_StudentIdIsProvided() throws Exception {
+        when(request.getParameter("studentId")).thenReturn("1");
+        when(timetableService.getTimetablesByStudentId(1L)).thenReturn(List.of(timetable));
+        when(jsonService.toJson(List.of(timetable))).thenReturn("[{\"id\":1}]");
+
+        timetableServlet.doGet(request, response);
+
+        verify(timetableService).getTimetablesByStudentId(1L);
+        assertEquals("[{\"id\":1}]", responseWriter.toString());
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+    }
+
     @Test
     void should_ReturnNotFound_When_StudentSurnameDoesNotExist() throws Exception {
         when(request.getParameter("studentSurname")).thenReturn("Nonexistent");
@@ -162,4 +193,29 @@ class TimetableServletTest extends MockSetup {
         assertTrue(responseWriter.toString().contains("Timetable not found"));
         verify(response).setStatus(HttpServletResponse.SC_NOT_FOUND);
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_ReturnTimetablesByDateRange_When_RangeIsProvided() throws Exception {
+        when(request.getParameter("from")).thenReturn("22/07/2024");
+        when(request.getParameter("to")).thenReturn("28/07/2024");
+        when(timetableService.getTimetablesByDateRange(LocalDate.of(2024, 7, 22), LocalDate.of(2024, 7, 28))).thenReturn(List.of(timetable));
+        when(jsonService.toJson(List.of(timetable))).thenReturn("[{\"id\":1}]");
+
+        timetableServlet.doGet(request, response);
+
+        verify(timetableService).getTimetablesByDateRange(LocalDate.of(2024, 7, 22), LocalDate.of(2024, 7, 28));
+        assertEquals("[{\"id\":1}]", responseWriter.toString());
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    void should_ReturnBadRequest_When_InvalidDateRangeFormat() throws Exception {
+        when(request.getParameter("from")).thenReturn("2024-07-22");
+        when(request.getParameter("to")).thenReturn("28/07/2024");
+
+        timetableServlet.doGet(request, response);
+
+        assertTrue(responseWriter.toString().contains("Invalid date format"));
+        verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+    }
+}
@@ -0,0 +1,93 @@
+package com.khokhlov.universityserver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void should_ComputeOnce_When_SameKeyIsRequestedConcurrently() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>(16);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return flights.get("groupNumber=1", 5L, () -> "payload-" + computations.incrementAndGet());
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("payload-1", future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void should_Recompute_When_DataVersionMoves() {
+        SingleFlight<String, String> flights = new SingleFlight<>(16);
+
+        assertEquals("old", flights.get("date=2024-07-25", 1L, () -> "old"));
+        assertEquals("old", flights.get("date=2024-07-25", 1L, () -> "new"));
+        assertEquals("new", flights.get("date=2024-07-25", 2L, () -> "new"));
+    }
+
+    @Test
+    void should_NotKeepFailure_When_ComputationThrows() {
+        SingleFlight<String, String> flights = new SingleFlight<>(16);
+
+        assertThrows(IllegalStateException.class, () -> flights.get("studentId=1", 1L, () -> {
+            throw new IllegalStateException("not found");
+        }));
+        assertEquals("found", flights.get("studentId=1", 1L, () -> "found"));
+    }
+
+    @Test
+    void should_DropStaleEntries_When_LimitIsExceeded() {
+        SingleFlight<String, String> flights = new SingleFlight<>(2);
+        flights.get("a", 1L, () -> "a");
+        flights.get("b", 1L, () -> "b");
+
+        flights.get("c", 2L, () -> "c");
+
+        assertEquals(1, flights.size());
+    }
+
+    @Test
+    void should_StayWithinLimit_When_ManyKeysShareVersion() {
+        SingleFlight<String, String> flights = new SingleFlight<>(2);
+
+        for (int i = 0; i < 10; i++) {
+            String key = "surname=" + i;
+            assertEquals(key, flights.get(key, 1L, () -> key));
+        }
+
+        assertEquals(2, flights.size());
+    }
+
+    @Test
+    void should_NotKeepFailure_When_ComputationThrowsError() {
+        SingleFlight<String, String> flights = new SingleFlight<>(16);
+
+        assertThrows(StackOverflowError.class, () -> flights.get("studentId=1", 1L, () -> {
+            throw new StackOverflowError();
+        }));
+        assertEquals("found", flights.get("studentId=1", 1L, () -> "found"));
+    }
+}
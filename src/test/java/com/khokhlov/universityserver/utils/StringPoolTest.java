@@ -0,0 +1,65 @@
+package com.khokhlov.universityserver.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @Test
+    void should_ReturnPooledInstance_When_EqualStringIsCanonicalized() {
+        StringPool pool = new StringPool(16);
+        String first = new String("Ivanov");
+        String second = new String("Ivanov");
+
+        assertSame(first, pool.canonical(first));
+        assertSame(first, pool.canonical(second));
+        assertNull(pool.canonical(null));
+    }
+
+    @Test
+    void should_RoundCapacityUpToPowerOfTwo() {
+        assertEquals(16, new StringPool(10).capacity());
+        assertEquals(1, new StringPool(1).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new StringPool(0));
+    }
+
+    @Test
+    void should_StayBounded_When_ManyDistinctStringsArePooled() {
+        StringPool pool = new StringPool(4);
+
+        for (int i = 0; i < 10_000; i++) {
+            String value = "name" + i;
+            assertEquals(value, pool.canonical(value));
+        }
+        assertEquals(4, pool.capacity());
+    }
+
+    @Test
+    void should_ReturnEqualString_When_UsedConcurrently() throws Exception {
+        StringPool pool = new StringPool(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        String value = new String("name" + (i % 200));
+                        assertEquals(value, pool.canonical(value));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}